@@ -0,0 +1,101 @@
+package com.devsinc.userservice.caches;
+
+import com.devsinc.userservice.models.User;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.userdetails.UserCache;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * Size and TTL bounded cache of authenticated principals, keyed by username.
+ * Used by the DaoAuthenticationProvider so that repeated HTTP Basic requests do not load the user every time.
+ * Entries are evicted explicitly whenever a user is updated or deleted, by username or, for changes seen
+ * through a change stream, by ID through an index of the usernames of cached users bounded like the cache itself.
+ */
+@Component
+public class CaffeineUserCache implements UserCache {
+
+    private final Cache<String, UserDetails> cache;
+
+    private final Cache<String, String> usernamesById;
+
+    private final Timer loadTimer;
+
+    /**
+     * Constructs a CaffeineUserCache.
+     * @param meterRegistry the registry the cache metrics are published to
+     * @param maximumSize the maximum number of cached users
+     * @param timeToLive how long a user stays cached after being loaded
+     */
+    public CaffeineUserCache(MeterRegistry meterRegistry,
+                             @Value("${user_service.app.user-cache.maximum-size:10000}") long maximumSize,
+                             @Value("${user_service.app.user-cache.time-to-live:60s}") Duration timeToLive) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(timeToLive)
+                .recordStats()
+                .build();
+        this.usernamesById = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(timeToLive)
+                .build();
+        this.loadTimer = Timer.builder("user.cache.load")
+                .description("Time taken to load a user missing from the user cache")
+                .register(meterRegistry);
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "users");
+    }
+
+    @Override
+    public UserDetails getUserFromCache(String username) {
+        return cache.getIfPresent(username);
+    }
+
+    @Override
+    public void putUserInCache(UserDetails user) {
+        cache.put(user.getUsername(), user);
+        if (user instanceof User cachedUser) {
+            usernamesById.put(cachedUser.getId(), cachedUser.getUsername());
+        }
+    }
+
+    @Override
+    public void removeUserFromCache(String username) {
+        cache.invalidate(username);
+    }
+
+    /**
+     * Evicts a user known only by its ID, such as one changed by another instance.
+     * @param id the ID of the user to evict
+     */
+    public void removeUserFromCacheById(String id) {
+        String username = usernamesById.asMap().remove(id);
+        if (username != null) {
+            cache.invalidate(username);
+        }
+    }
+
+    /**
+     * Evicts every user.
+     */
+    public void removeAllUsersFromCache() {
+        cache.invalidateAll();
+        usernamesById.invalidateAll();
+    }
+
+    /**
+     * Wraps a UserDetailsService so that the loads it performs on cache misses are timed.
+     * @param userDetailsService the service loading users from the database
+     * @return the timed UserDetailsService
+     */
+    public UserDetailsService timed(UserDetailsService userDetailsService) {
+        return username -> loadTimer.record(() -> userDetailsService.loadUserByUsername(username));
+    }
+}
@@ -0,0 +1,331 @@
+package com.devsinc.userservice.caches;
+
+import com.devsinc.userservice.models.Role;
+import com.devsinc.userservice.models.User;
+import com.mongodb.MongoException;
+import com.mongodb.MongoServerException;
+import com.mongodb.client.ChangeStreamIterable;
+import com.mongodb.client.MongoChangeStreamCursor;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.Aggregates;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.ReplaceOptions;
+import com.mongodb.client.model.changestream.ChangeStreamDocument;
+import com.mongodb.client.model.changestream.OperationType;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.BsonDocument;
+import org.bson.BsonValue;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keeps the in-process caches of this instance in step with writes made by every instance, by following
+ * a change stream on the user and roles collections: changed or deleted users are evicted from the user cache,
+ * member counts of the affected roles are dropped, and any role change refreshes the role catalog.
+ * Users are deleted by tombstoning them, so the deletes of the purge only remove users no longer cached or counted.
+ * Verified credentials are keyed by password hash, so they never need evicting for a change made elsewhere.
+ * <p>
+ * The resume token is saved per consumer at most once per save interval, so after a restart or a lost connection
+ * the stream resumes where it stopped. Without a token, or once the oplog no longer holds it, every cache is
+ * dropped instead. Change streams need a replica set; a single node one is enough locally.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "user_service.app.change-streams.enabled", havingValue = "true")
+public class ChangeStreamCacheInvalidator {
+
+    static final String RESUME_TOKENS_COLLECTION = "change_stream_tokens";
+
+    /**
+     * The server error returned when resuming from a token that has fallen off the oplog.
+     */
+    private static final int CHANGE_STREAM_HISTORY_LOST = 286;
+
+    private static final String PENDING_EVENTS = "pendingEvents";
+
+    private final MongoTemplate mongoTemplate;
+
+    private final CaffeineUserCache userCache;
+
+    private final RoleCatalog roleCatalog;
+
+    private final RoleMemberCounts memberCounts;
+
+    private final MeterRegistry meterRegistry;
+
+    private final Timer lag;
+
+    private final String consumerId;
+
+    private final Duration maxAwaitTime;
+
+    private final Duration tokenSaveInterval;
+
+    private final Duration retryBackoff;
+
+    private final String userCollection;
+
+    private final String roleCollection;
+
+    private volatile boolean running;
+
+    private Thread thread;
+
+    private BsonDocument savedToken;
+
+    private Instant savedAt = Instant.MIN;
+
+    /**
+     * Constructs a ChangeStreamCacheInvalidator.
+     * @param mongoTemplate the template the change stream is opened and the resume token stored with
+     * @param userCache the cache of authenticated users
+     * @param roleCatalog the in-memory catalog of roles
+     * @param memberCounts the cache of the number of users holding each role
+     * @param meterRegistry the registry the invalidation metrics are published to
+     * @param consumerId the key the resume token of this instance is stored under, which must be stable across restarts
+     * @param maxAwaitTime how long to wait for a change before checking whether to stop and saving the resume token
+     * @param tokenSaveInterval the least time between two saves of the resume token
+     * @param retryBackoff how long to wait before reopening the change stream after an error
+     */
+    public ChangeStreamCacheInvalidator(MongoTemplate mongoTemplate, CaffeineUserCache userCache,
+                                        RoleCatalog roleCatalog, RoleMemberCounts memberCounts, MeterRegistry meterRegistry,
+                                        @Value("${user_service.app.change-streams.consumer-id:${HOSTNAME:user-service}}") String consumerId,
+                                        @Value("${user_service.app.change-streams.max-await-time:1s}") Duration maxAwaitTime,
+                                        @Value("${user_service.app.change-streams.token-save-interval:1s}") Duration tokenSaveInterval,
+                                        @Value("${user_service.app.change-streams.retry-backoff:1s}") Duration retryBackoff) {
+        this.mongoTemplate = mongoTemplate;
+        this.userCache = userCache;
+        this.roleCatalog = roleCatalog;
+        this.memberCounts = memberCounts;
+        this.meterRegistry = meterRegistry;
+        this.lag = Timer.builder("cache.invalidation.lag")
+                .description("Time from a write to its change event being applied to the local caches")
+                .register(meterRegistry);
+        this.consumerId = consumerId;
+        this.maxAwaitTime = maxAwaitTime;
+        this.tokenSaveInterval = tokenSaveInterval;
+        this.retryBackoff = retryBackoff;
+        this.userCollection = mongoTemplate.getCollectionName(User.class);
+        this.roleCollection = mongoTemplate.getCollectionName(Role.class);
+    }
+
+    /**
+     * Starts following the change stream once the application is ready.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void start() {
+        if (running) {
+            return;
+        }
+        running = true;
+        thread = new Thread(this::run, "cache-invalidation");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Stops following the change stream and saves the last resume token.
+     * @throws InterruptedException if interrupted while waiting for the change stream to close
+     */
+    @PreDestroy
+    public synchronized void stop() throws InterruptedException {
+        if (!running) {
+            return;
+        }
+        running = false;
+        thread.join(maxAwaitTime.plus(retryBackoff).toMillis() * 2);
+    }
+
+    private void run() {
+        BsonDocument resumeToken = null;
+        boolean loaded = false;
+        // Whether the caches may have missed changes that the stream cannot replay.
+        boolean stale = false;
+        while (running) {
+            try {
+                if (!loaded) {
+                    resumeToken = loadResumeToken();
+                    stale = resumeToken == null;
+                    loaded = true;
+                }
+                try (MongoChangeStreamCursor<ChangeStreamDocument<Document>> cursor = watch(resumeToken)) {
+                    log.info("Following changes to {} and {} as {}", userCollection, roleCollection, consumerId);
+                    // Only once the stream is open, so no change can slip in between.
+                    if (stale) {
+                        invalidateAll();
+                        stale = false;
+                    }
+                    while (running) {
+                        ChangeStreamDocument<Document> event = cursor.tryNext();
+                        if (event != null && !apply(event)) {
+                            log.warn("Change stream invalidated, restarting it from now and dropping every cache");
+                            resumeToken = null;
+                            stale = true;
+                            break;
+                        }
+                        // Advances even without events, so a quiet stream does not fall behind the oplog.
+                        if (cursor.getResumeToken() != null) {
+                            resumeToken = cursor.getResumeToken();
+                            saveResumeToken(resumeToken, false);
+                        }
+                    }
+                }
+            } catch (MongoServerException e) {
+                if (e.getCode() == CHANGE_STREAM_HISTORY_LOST) {
+                    log.warn("Resume token no longer in the oplog, restarting the change stream from now and dropping every cache");
+                    resumeToken = null;
+                    stale = true;
+                } else {
+                    backOff(e);
+                }
+            } catch (RuntimeException e) {
+                // The event was not applied, so its token was not kept and it is replayed on resuming.
+                backOff(e);
+            }
+        }
+        if (resumeToken != null) {
+            saveResumeToken(resumeToken, true);
+        }
+    }
+
+    private MongoChangeStreamCursor<ChangeStreamDocument<Document>> watch(BsonDocument resumeToken) {
+        ChangeStreamIterable<Document> changeStream = mongoTemplate.getDb()
+                .watch(List.of(Aggregates.match(Filters.in("ns.coll", userCollection, roleCollection))))
+                .maxAwaitTime(maxAwaitTime.toMillis(), TimeUnit.MILLISECONDS);
+        return (resumeToken == null ? changeStream : changeStream.resumeAfter(resumeToken)).cursor();
+    }
+
+    /**
+     * Evicts what a change event makes stale from the caches of this instance.
+     * @param event the change event
+     * @return false if the event invalidated the change stream, which must be reopened before every cache is dropped
+     */
+    boolean apply(ChangeStreamDocument<Document> event) {
+        String collection = event.getNamespace() == null ? null : event.getNamespace().getCollectionName();
+        OperationType operation = event.getOperationType();
+        if (operation == OperationType.INVALIDATE) {
+            return false;
+        }
+        if (publishedEventsOnly(event)) {
+            // The outbox relay moved events out of the document, which changes nothing cached.
+            return true;
+        }
+        if (roleCollection.equals(collection)) {
+            roleCatalog.refresh();
+        } else if (operation == OperationType.INSERT) {
+            memberCounts.invalidate(roleIds(event.getFullDocument()));
+        } else if (operation == OperationType.UPDATE || operation == OperationType.REPLACE) {
+            userCache.removeUserFromCacheById(id(event.getDocumentKey()));
+            if (tombstoned(event)) {
+                memberCounts.invalidateAll();
+            }
+        } else if (operation == OperationType.DELETE) {
+            userCache.removeUserFromCacheById(id(event.getDocumentKey()));
+        } else {
+            invalidateAll();
+        }
+        Counter.builder("cache.invalidation.events")
+                .tag("collection", String.valueOf(collection))
+                .tag("operation", operation.getValue())
+                .register(meterRegistry)
+                .increment();
+        if (event.getWallTime() != null) {
+            lag.record(Duration.between(Instant.ofEpochMilli(event.getWallTime().getValue()), Instant.now()));
+        }
+        return true;
+    }
+
+    private void backOff(RuntimeException e) {
+        log.warn("Change stream failed, resuming it in {}", retryBackoff, e);
+        try {
+            Thread.sleep(retryBackoff.toMillis());
+        } catch (InterruptedException interrupted) {
+            Thread.currentThread().interrupt();
+            running = false;
+        }
+    }
+
+    private void invalidateAll() {
+        userCache.removeAllUsersFromCache();
+        memberCounts.invalidateAll();
+        roleCatalog.refresh();
+    }
+
+    private BsonDocument loadResumeToken() {
+        BsonDocument saved = resumeTokens().withDocumentClass(BsonDocument.class)
+                .find(Filters.eq("_id", consumerId))
+                .first();
+        savedToken = saved == null ? null : saved.getDocument("token", null);
+        return savedToken;
+    }
+
+    private void saveResumeToken(BsonDocument token, boolean force) {
+        Instant now = Instant.now();
+        if (token.equals(savedToken) || (!force && now.isBefore(savedAt.plus(tokenSaveInterval)))) {
+            return;
+        }
+        try {
+            resumeTokens().replaceOne(Filters.eq("_id", consumerId),
+                    new Document("_id", consumerId).append("token", token).append("savedAt", Date.from(now)),
+                    new ReplaceOptions().upsert(true));
+            savedToken = token;
+            savedAt = now;
+        } catch (MongoException e) {
+            log.warn("Unable to save the change stream resume token", e);
+        }
+    }
+
+    private MongoCollection<Document> resumeTokens() {
+        return mongoTemplate.getCollection(RESUME_TOKENS_COLLECTION);
+    }
+
+    private static String id(BsonDocument documentKey) {
+        BsonValue id = documentKey.get("_id");
+        return id.isString() ? id.asString().getValue() : id.toString();
+    }
+
+    private static boolean tombstoned(ChangeStreamDocument<Document> event) {
+        return event.getUpdateDescription() == null
+                || event.getUpdateDescription().getUpdatedFields() == null
+                || event.getUpdateDescription().getUpdatedFields().containsKey("deletedAt");
+    }
+
+    private static boolean publishedEventsOnly(ChangeStreamDocument<Document> event) {
+        if (event.getOperationType() != OperationType.UPDATE || event.getUpdateDescription() == null
+                || event.getUpdateDescription().getUpdatedFields() == null) {
+            return false;
+        }
+        List<String> removedFields = event.getUpdateDescription().getRemovedFields();
+        return (removedFields == null || removedFields.isEmpty())
+                && event.getUpdateDescription().getUpdatedFields().keySet().stream()
+                .allMatch(field -> field.startsWith(PENDING_EVENTS));
+    }
+
+    private static List<String> roleIds(Document user) {
+        List<String> roleIds = new ArrayList<>();
+        if (user != null && user.get("roles") instanceof List<?> roles) {
+            for (Object role : roles) {
+                if (role instanceof Document embedded && embedded.get("_id") != null) {
+                    roleIds.add(embedded.get("_id").toString());
+                }
+            }
+        }
+        return roleIds;
+    }
+}
@@ -0,0 +1,176 @@
+package com.devsinc.userservice.caches;
+
+import com.devsinc.userservice.models.Role;
+import com.devsinc.userservice.repositories.RoleRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * In-memory catalog of all roles, indexed by ID and by role name.
+ * Roles change rarely, so lookups are served from an immutable snapshot that is swapped
+ * whenever the catalog is refreshed. A miss falls back to the repository, which keeps
+ * roles created by other instances visible without waiting for a refresh.
+ * Roles renamed or deleted by other instances are seen at the next periodic refresh,
+ * or right away when the change stream invalidation is enabled.
+ */
+@Slf4j
+@Component
+public class RoleCatalog {
+
+    private final RoleRepository roleRepository;
+
+    private final boolean warmUp;
+
+    private final Counter hits;
+
+    private final Counter misses;
+
+    private final Counter refreshes;
+
+    private volatile Snapshot snapshot = new Snapshot(Map.of(), Map.of());
+
+    /**
+     * Constructs a RoleCatalog backed by the specified RoleRepository.
+     * @param roleRepository the repository for roles
+     * @param meterRegistry the registry the catalog metrics are published to
+     * @param warmUp whether to load all roles once the application has started
+     */
+    public RoleCatalog(RoleRepository roleRepository, MeterRegistry meterRegistry,
+                       @Value("${user_service.app.role-catalog.warm-up:true}") boolean warmUp) {
+        this.roleRepository = roleRepository;
+        this.warmUp = warmUp;
+        this.hits = Counter.builder("role.catalog.lookups").tag("result", "hit").register(meterRegistry);
+        this.misses = Counter.builder("role.catalog.lookups").tag("result", "miss").register(meterRegistry);
+        this.refreshes = Counter.builder("role.catalog.refreshes").register(meterRegistry);
+        Gauge.builder("role.catalog.size", this, catalog -> catalog.snapshot.byId().size()).register(meterRegistry);
+    }
+
+    /**
+     * Loads the catalog once the application is ready.
+     * A failure is logged rather than thrown; lookups then fall back to the repository until the next refresh.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        if (!warmUp) {
+            return;
+        }
+        try {
+            refresh();
+        } catch (DataAccessException e) {
+            log.warn("Unable to load role catalog on startup, roles will be loaded on demand", e);
+        }
+    }
+
+    /**
+     * Reloads the catalog periodically, bounding how long a role renamed or deleted elsewhere is served stale.
+     * A failure is logged rather than thrown, and the current snapshot kept until the next run.
+     */
+    @Scheduled(fixedDelayString = "${user_service.app.role-catalog.refresh-interval:60000}",
+            initialDelayString = "${user_service.app.role-catalog.refresh-interval:60000}")
+    public void refreshPeriodically() {
+        try {
+            refresh();
+        } catch (DataAccessException e) {
+            log.warn("Unable to refresh role catalog, keeping the current snapshot", e);
+        }
+    }
+
+    /**
+     * Reloads every role from the repository and replaces the current snapshot.
+     */
+    public void refresh() {
+        replace(roleRepository.findAll());
+    }
+
+    /**
+     * Replaces the current snapshot with the given roles.
+     * Lets non-blocking callers refresh the catalog from roles they loaded themselves.
+     * @param roles every role
+     */
+    public synchronized void replace(List<Role> roles) {
+        Map<String, Role> byId = new HashMap<>();
+        Map<String, Role> byRoleName = new HashMap<>();
+        for (Role role : roles) {
+            byId.put(role.getId(), role);
+            byRoleName.put(role.getRoleName(), role);
+        }
+        snapshot = new Snapshot(Map.copyOf(byId), Map.copyOf(byRoleName));
+        refreshes.increment();
+    }
+
+    /**
+     * Finds a role by its ID.
+     * @param id the ID of the role to find
+     * @return the role, or an empty Optional if no role with the ID exists
+     */
+    public Optional<Role> findById(String id) {
+        return findCachedById(id).or(() -> roleRepository.findById(id).map(this::put));
+    }
+
+    /**
+     * Finds a role by its role name.
+     * @param roleName the name of the role to find
+     * @return the role, or an empty Optional if no role with the name exists
+     */
+    public Optional<Role> findByRoleName(String roleName) {
+        return findCachedByRoleName(roleName).or(() -> roleRepository.findByRoleName(roleName).map(this::put));
+    }
+
+    /**
+     * Finds a role by its ID in the current snapshot only, without ever querying the repository.
+     * @param id the ID of the role to find
+     * @return the role, or an empty Optional if it is not in the snapshot
+     */
+    public Optional<Role> findCachedById(String id) {
+        return count(snapshot.byId().get(id));
+    }
+
+    /**
+     * Finds a role by its role name in the current snapshot only, without ever querying the repository.
+     * @param roleName the name of the role to find
+     * @return the role, or an empty Optional if it is not in the snapshot
+     */
+    public Optional<Role> findCachedByRoleName(String roleName) {
+        return count(snapshot.byRoleName().get(roleName));
+    }
+
+    /**
+     * Adds a role loaded after a snapshot miss, replacing the cached one with the same ID under its previous name.
+     * @param role the role to add
+     * @return the added role
+     */
+    public synchronized Role put(Role role) {
+        Map<String, Role> byId = new HashMap<>(snapshot.byId());
+        Map<String, Role> byRoleName = new HashMap<>(snapshot.byRoleName());
+        byId.put(role.getId(), role);
+        byRoleName.values().removeIf(cached -> cached.getId().equals(role.getId()));
+        byRoleName.put(role.getRoleName(), role);
+        snapshot = new Snapshot(Map.copyOf(byId), Map.copyOf(byRoleName));
+        return role;
+    }
+
+    private Optional<Role> count(Role role) {
+        if (role != null) {
+            hits.increment();
+            return Optional.of(role);
+        }
+        misses.increment();
+        return Optional.empty();
+    }
+
+    private record Snapshot(Map<String, Role> byId, Map<String, Role> byRoleName) {
+    }
+}
@@ -0,0 +1,112 @@
+package com.devsinc.userservice.caches;
+
+import com.devsinc.userservice.models.RoleRef;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Optional;
+import java.util.function.ToLongFunction;
+
+/**
+ * Cache of the number of users holding each role, keyed by role ID.
+ * A miss is answered by an indexed count of the users referencing the role. Cached counts are then kept in step
+ * with user creations and deletions rather than reloaded; updates never change the roles of a user.
+ * A count racing with a write may be off by one until its entry expires.
+ */
+@Component
+public class RoleMemberCounts {
+
+    private final Cache<String, Long> cache;
+
+    /**
+     * Constructs a RoleMemberCounts.
+     * @param meterRegistry the registry the cache metrics are published to
+     * @param maximumSize the maximum number of cached counts
+     * @param timeToLive how long a count is adjusted in place before being counted again
+     */
+    public RoleMemberCounts(MeterRegistry meterRegistry,
+                            @Value("${user_service.app.role-member-counts.maximum-size:1000}") long maximumSize,
+                            @Value("${user_service.app.role-member-counts.time-to-live:10m}") Duration timeToLive) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(timeToLive)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "role-member-counts");
+    }
+
+    /**
+     * Returns the number of users holding a role, counting them on a miss.
+     * @param roleId the ID of the role
+     * @param counter counts the users holding the role with the given ID
+     * @return the number of users holding the role
+     */
+    public long get(String roleId, ToLongFunction<String> counter) {
+        return cache.get(roleId, counter::applyAsLong);
+    }
+
+    /**
+     * Returns the cached number of users holding a role, without ever counting them.
+     * Lets non-blocking callers count on a miss themselves, then {@link #put} the result.
+     * @param roleId the ID of the role
+     * @return the cached number of users, or an empty Optional if it is not cached
+     */
+    public Optional<Long> getIfPresent(String roleId) {
+        return Optional.ofNullable(cache.getIfPresent(roleId));
+    }
+
+    /**
+     * Caches a number of users counted after a miss.
+     * @param roleId the ID of the role
+     * @param count the number of users holding the role
+     */
+    public void put(String roleId, long count) {
+        cache.put(roleId, count);
+    }
+
+    /**
+     * Counts a user that was created with the given roles.
+     * @param roles the roles of the created user
+     */
+    public void added(Collection<RoleRef> roles) {
+        adjust(roles, 1);
+    }
+
+    /**
+     * Stops counting a user that was deleted.
+     * @param roles the roles of the deleted user
+     */
+    public void removed(Collection<RoleRef> roles) {
+        adjust(roles, -1);
+    }
+
+    /**
+     * Forgets the cached counts of the given roles.
+     * @param roleIds the IDs of the roles
+     */
+    public void invalidate(Collection<String> roleIds) {
+        cache.invalidateAll(roleIds);
+    }
+
+    /**
+     * Forgets every cached count, for writes that cannot tell which roles they affected.
+     */
+    public void invalidateAll() {
+        cache.invalidateAll();
+    }
+
+    private void adjust(Collection<RoleRef> roles, long delta) {
+        if (roles == null) {
+            return;
+        }
+        roles.stream().map(RoleRef::getId).distinct().forEach(
+                roleId -> cache.asMap().computeIfPresent(roleId, (id, count) -> Math.max(0, count + delta))
+        );
+    }
+}
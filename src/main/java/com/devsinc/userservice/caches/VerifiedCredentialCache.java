@@ -0,0 +1,120 @@
+package com.devsinc.userservice.caches;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.time.Duration;
+
+/**
+ * Opt-in cache of recently verified credentials, so that repeated HTTP Basic requests skip BCrypt.
+ * For each stored password hash it remembers an HMAC of the raw password that was last verified against it.
+ * The HMAC key is generated at startup and never leaves the process, so cached entries cannot be
+ * brute-forced offline. Because entries are keyed by the stored hash, a changed password can never
+ * match a stale entry; changes and deletions still invalidate their entry immediately.
+ */
+@Component
+public class VerifiedCredentialCache {
+
+    private static final String HMAC_ALGORITHM = "HmacSHA256";
+
+    private final boolean enabled;
+
+    private final Cache<String, byte[]> cache;
+
+    private final SecretKeySpec key;
+
+    /**
+     * Constructs a VerifiedCredentialCache.
+     * @param meterRegistry the registry the cache metrics are published to
+     * @param enabled whether verified credentials are cached at all
+     * @param maximumSize the maximum number of cached credentials
+     * @param timeToLive how long a verified credential is trusted without running the password encoder again
+     */
+    public VerifiedCredentialCache(MeterRegistry meterRegistry,
+                                   @Value("${user_service.app.credential-cache.enabled:false}") boolean enabled,
+                                   @Value("${user_service.app.credential-cache.maximum-size:10000}") long maximumSize,
+                                   @Value("${user_service.app.credential-cache.time-to-live:5m}") Duration timeToLive) {
+        this.enabled = enabled;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(timeToLive)
+                .recordStats()
+                .build();
+        byte[] secret = new byte[32];
+        new SecureRandom().nextBytes(secret);
+        this.key = new SecretKeySpec(secret, HMAC_ALGORITHM);
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "credentials");
+    }
+
+    /**
+     * Wraps a password encoder so that successful matches are remembered.
+     * @param passwordEncoder the encoder verifying passwords on a cache miss
+     * @return the caching encoder, or the given encoder itself if the cache is disabled
+     */
+    public PasswordEncoder wrap(PasswordEncoder passwordEncoder) {
+        if (!enabled) {
+            return passwordEncoder;
+        }
+        return new PasswordEncoder() {
+            @Override
+            public String encode(CharSequence rawPassword) {
+                return passwordEncoder.encode(rawPassword);
+            }
+
+            @Override
+            public boolean matches(CharSequence rawPassword, String encodedPassword) {
+                if (rawPassword == null || encodedPassword == null) {
+                    return passwordEncoder.matches(rawPassword, encodedPassword);
+                }
+                byte[] digest = digest(rawPassword, encodedPassword);
+                byte[] verified = cache.getIfPresent(encodedPassword);
+                if (verified != null && MessageDigest.isEqual(verified, digest)) {
+                    return true;
+                }
+                boolean matches = passwordEncoder.matches(rawPassword, encodedPassword);
+                if (matches) {
+                    cache.put(encodedPassword, digest);
+                }
+                return matches;
+            }
+
+            @Override
+            public boolean upgradeEncoding(String encodedPassword) {
+                return passwordEncoder.upgradeEncoding(encodedPassword);
+            }
+        };
+    }
+
+    /**
+     * Forgets the verified credential for a stored password hash.
+     * @param encodedPassword the stored password hash that was changed or deleted
+     */
+    public void invalidate(String encodedPassword) {
+        if (encodedPassword != null) {
+            cache.invalidate(encodedPassword);
+        }
+    }
+
+    private byte[] digest(CharSequence rawPassword, String encodedPassword) {
+        try {
+            Mac mac = Mac.getInstance(HMAC_ALGORITHM);
+            mac.init(key);
+            mac.update(encodedPassword.getBytes(StandardCharsets.UTF_8));
+            mac.update((byte) 0);
+            return mac.doFinal(rawPassword.toString().getBytes(StandardCharsets.UTF_8));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Unable to compute credential digest", e);
+        }
+    }
+}
@@ -1,37 +1,72 @@
 package com.devsinc.userservice.configurations;
 
+import com.devsinc.userservice.caches.CaffeineUserCache;
+import com.devsinc.userservice.caches.VerifiedCredentialCache;
+import com.devsinc.userservice.security.JwtAuthenticationFilter;
+import com.devsinc.userservice.security.JwtTokenProvider;
+import com.devsinc.userservice.security.LoginThrottle;
+import com.devsinc.userservice.security.LoginThrottleFilter;
+import com.devsinc.userservice.security.RequestRejectionFilter;
+import com.devsinc.userservice.security.ThrottledAuthenticationProvider;
 import com.devsinc.userservice.services.UserService;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
 import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.security.authentication.AuthenticationProvider;
 import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
 import org.springframework.security.config.annotation.authentication.configuration.AuthenticationConfiguration;;
 import org.springframework.security.config.annotation.method.configuration.EnableMethodSecurity;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
-import org.springframework.security.config.annotation.web.configurers.AbstractAuthenticationFilterConfigurer;
 import org.springframework.security.config.annotation.web.configurers.AbstractHttpConfigurer;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.config.http.SessionCreationPolicy;
+import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
+import org.springframework.security.web.authentication.www.BasicAuthenticationFilter;
+import org.springframework.web.servlet.HandlerExceptionResolver;
 
 import static org.springframework.security.config.Customizer.withDefaults;
 
 @Configuration
+@Profile("!reactive")
 @EnableWebSecurity
 @EnableMethodSecurity
 public class DefaultSecurityConfig {
 
-    private final BCryptPasswordEncoder passwordEncoder;
+    private final PasswordEncoder passwordEncoder;
 
     private final UserService userService;
 
-    public DefaultSecurityConfig(BCryptPasswordEncoder passwordEncoder, UserService userService) {
+    private final CaffeineUserCache userCache;
+
+    private final VerifiedCredentialCache credentialCache;
+
+    private final JwtTokenProvider jwtTokenProvider;
+
+    private final HandlerExceptionResolver handlerExceptionResolver;
+
+    private final LoginThrottle loginThrottle;
+
+    public DefaultSecurityConfig(PasswordEncoder passwordEncoder, UserService userService, CaffeineUserCache userCache,
+                                 VerifiedCredentialCache credentialCache, JwtTokenProvider jwtTokenProvider,
+                                 @Qualifier("handlerExceptionResolver") HandlerExceptionResolver handlerExceptionResolver,
+                                 LoginThrottle loginThrottle) {
         this.passwordEncoder = passwordEncoder;
         this.userService = userService;
+        this.userCache = userCache;
+        this.credentialCache = credentialCache;
+        this.jwtTokenProvider = jwtTokenProvider;
+        this.handlerExceptionResolver = handlerExceptionResolver;
+        this.loginThrottle = loginThrottle;
     }
 
     /**
      * Configures the security filter chain.
+     * Sessions are never created: clients authenticate every request with a bearer token issued by /sign_in,
+     * or with HTTP Basic.
+     * Registrations and logins are throttled by client IP before they reach the user service.
      * @param http The HttpSecurity object to configure.
      * @return The configured SecurityFilterChain.
      * @throws Exception if an error occurs during configuration.
@@ -41,28 +76,40 @@ public class DefaultSecurityConfig {
         http.csrf(AbstractHttpConfigurer::disable).authorizeHttpRequests(
                 authorizeRequests -> authorizeRequests
                         .requestMatchers("/role/**").authenticated()
+                        .requestMatchers("/user/import").authenticated()
+                        .requestMatchers("/user/search").authenticated()
+                        .requestMatchers("/user/changes").authenticated()
                         .requestMatchers("/user/register")
                         .permitAll()
                         .requestMatchers("/sign_in/**")
                         .permitAll()
                         .requestMatchers("/user/**").permitAll()
                         .anyRequest().authenticated()
-                        ).formLogin(AbstractAuthenticationFilterConfigurer::permitAll)
+                        ).sessionManagement(sessionManagement -> sessionManagement
+                                .sessionCreationPolicy(SessionCreationPolicy.STATELESS))
+                        .addFilterBefore(new JwtAuthenticationFilter(jwtTokenProvider), BasicAuthenticationFilter.class)
+                        .addFilterBefore(new RequestRejectionFilter(handlerExceptionResolver), BasicAuthenticationFilter.class)
+                        .addFilterBefore(new LoginThrottleFilter(loginThrottle), BasicAuthenticationFilter.class)
                         .httpBasic(withDefaults());
         return http.build();
     }
 
     /**
-     * Creates a DaoAuthenticationProvider bean.
-     * @return The configured DaoAuthenticationProvider.
+     * Creates the AuthenticationProvider bean, a DaoAuthenticationProvider throttling failed logins per username.
+     * Authenticated users are kept in the user cache, so only cache misses reach the database,
+     * and recently verified credentials skip the password encoder when the credential cache is enabled.
+     * Hashes with an outdated encoding are replaced after a successful login.
+     * @return The configured AuthenticationProvider.
      */
     @Bean
-    public DaoAuthenticationProvider daoAuthenticationProvider() {
+    public AuthenticationProvider daoAuthenticationProvider() {
         DaoAuthenticationProvider provider =
                 new DaoAuthenticationProvider();
-        provider.setPasswordEncoder(passwordEncoder);
-        provider.setUserDetailsService(userService);
-        return provider;
+        provider.setPasswordEncoder(credentialCache.wrap(passwordEncoder));
+        provider.setUserDetailsService(userCache.timed(userService));
+        provider.setUserCache(userCache);
+        provider.setUserDetailsPasswordService(userService);
+        return new ThrottledAuthenticationProvider(provider, loginThrottle);
     }
 
     /**
@@ -0,0 +1,75 @@
+package com.devsinc.userservice.configurations;
+
+import com.devsinc.userservice.metrics.MeteredDbRefResolver;
+import com.devsinc.userservice.metrics.MongoCommandsPerRequestFilter;
+import io.micrometer.core.aop.TimedAspect;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.autoconfigure.mongo.MongoClientSettingsBuilderCustomizer;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.Ordered;
+import org.springframework.data.mongodb.MongoDatabaseFactory;
+import org.springframework.data.mongodb.core.convert.MappingMongoConverter;
+import org.springframework.data.mongodb.core.convert.MongoCustomConversions;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
+
+/**
+ * Metrics not covered by the actuator auto-configuration, which already times HTTP requests,
+ * repository invocations and Mongo commands.
+ * Percentile histograms are enabled per metric name in application.yml.
+ */
+@Configuration
+public class MetricsConfig {
+
+    /**
+     * Times the methods of beans annotated with @Timed, such as the services.
+     * @param meterRegistry the registry the timers are published to
+     * @return the aspect
+     */
+    @Bean
+    public TimedAspect timedAspect(MeterRegistry meterRegistry) {
+        return new TimedAspect(meterRegistry);
+    }
+
+    /**
+     * Replaces the auto-configured converter with one counting DBRef resolutions.
+     * The reactive driver does not resolve DBRefs, so this only applies to the servlet stack.
+     * @return the mapping converter
+     */
+    @Bean
+    @Profile("!reactive")
+    public MappingMongoConverter mappingMongoConverter(MongoDatabaseFactory mongoDatabaseFactory, MongoMappingContext mappingContext,
+                                                       MongoCustomConversions conversions, MeterRegistry meterRegistry) {
+        MappingMongoConverter converter = new MappingMongoConverter(
+                new MeteredDbRefResolver(mongoDatabaseFactory, meterRegistry), mappingContext);
+        converter.setCustomConversions(conversions);
+        return converter;
+    }
+
+    @Bean
+    @Profile("!reactive")
+    public MongoCommandsPerRequestFilter mongoCommandsPerRequestFilter(MeterRegistry meterRegistry) {
+        return new MongoCommandsPerRequestFilter(meterRegistry);
+    }
+
+    /**
+     * Runs the filter ahead of the security filter chain, so that user lookups made while authenticating are counted.
+     * @return the filter registration
+     */
+    @Bean
+    @Profile("!reactive")
+    public FilterRegistrationBean<MongoCommandsPerRequestFilter> mongoCommandsPerRequestFilterRegistration(
+            MongoCommandsPerRequestFilter filter) {
+        FilterRegistrationBean<MongoCommandsPerRequestFilter> registration = new FilterRegistrationBean<>(filter);
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE + 1);
+        return registration;
+    }
+
+    @Bean
+    @Profile("!reactive")
+    public MongoClientSettingsBuilderCustomizer mongoCommandsPerRequestListener(MongoCommandsPerRequestFilter filter) {
+        return settings -> settings.addCommandListener(filter);
+    }
+}
@@ -0,0 +1,104 @@
+package com.devsinc.userservice.configurations;
+
+import com.mongodb.client.AggregateIterable;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mapping.context.MappingContext;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.IndexDefinition;
+import org.springframework.data.mongodb.core.index.IndexOperations;
+import org.springframework.data.mongodb.core.index.IndexResolver;
+import org.springframework.data.mongodb.core.index.MongoPersistentEntityIndexResolver;
+import org.springframework.data.mongodb.core.mapping.MongoPersistentEntity;
+import org.springframework.data.mongodb.core.mapping.MongoPersistentProperty;
+import org.springframework.data.mongodb.core.query.Collation;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Creates the indexes declared on the mapped documents once every singleton is instantiated, before the web server
+ * starts, so no request is served before they exist.
+ * Uniqueness of usernames, emails and role names is enforced by these indexes, so a failure here stops the application
+ * instead of letting it run without them; when existing documents hold duplicates, the failure lists them.
+ * Creating an index that already exists is a no-op.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "user_service.app.indexes.ensure-on-startup", havingValue = "true", matchIfMissing = true)
+public class MongoIndexInitializer implements SmartInitializingSingleton {
+
+    /**
+     * Most duplicate values listed when a unique index cannot be created.
+     */
+    private static final int REPORTED_DUPLICATES = 10;
+
+    private final MongoTemplate mongoTemplate;
+
+    public MongoIndexInitializer(MongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        ensureIndexes();
+    }
+
+    /**
+     * Ensures the indexes of every mapped document exist.
+     * @throws IllegalStateException listing the duplicate values when a unique index cannot be created over them
+     */
+    public void ensureIndexes() {
+        MappingContext<? extends MongoPersistentEntity<?>, MongoPersistentProperty> mappingContext =
+                mongoTemplate.getConverter().getMappingContext();
+        IndexResolver indexResolver = new MongoPersistentEntityIndexResolver(mappingContext);
+        for (MongoPersistentEntity<?> entity : mappingContext.getPersistentEntities()) {
+            if (!entity.isAnnotationPresent(org.springframework.data.mongodb.core.mapping.Document.class)) {
+                continue;
+            }
+            IndexOperations indexOperations = mongoTemplate.indexOps(entity.getType());
+            indexResolver.resolveIndexFor(entity.getTypeInformation()).forEach(index -> {
+                String name;
+                try {
+                    name = indexOperations.ensureIndex(index);
+                } catch (DuplicateKeyException e) {
+                    throw new IllegalStateException(describeDuplicates(entity.getCollection(), index), e);
+                }
+                log.info("Ensured index {} on {}", name, entity.getCollection());
+            });
+        }
+    }
+
+    /**
+     * Groups the documents the unique index would hold by its keys, within its partial filter and collation.
+     */
+    private String describeDuplicates(String collection, IndexDefinition index) {
+        Document keys = new Document(index.getIndexKeys());
+        Document options = index.getIndexOptions();
+        Document groupKeys = new Document();
+        keys.keySet().forEach(key -> groupKeys.append(key.replace('.', '_'), "$" + key));
+        List<Document> pipeline = new ArrayList<>();
+        if (options.containsKey("partialFilterExpression")) {
+            pipeline.add(new Document("$match", options.get("partialFilterExpression")));
+        }
+        pipeline.add(new Document("$group", new Document("_id", groupKeys).append("count", new Document("$sum", 1))));
+        pipeline.add(new Document("$match", new Document("count", new Document("$gt", 1))));
+        pipeline.add(new Document("$limit", REPORTED_DUPLICATES));
+        AggregateIterable<Document> duplicates = mongoTemplate.getCollection(collection).aggregate(pipeline);
+        if (options.containsKey("collation")) {
+            duplicates.collation(Collation.from(options.get("collation", Document.class)).toMongoCollation());
+        }
+        List<String> values = new ArrayList<>();
+        for (Document duplicate : duplicates) {
+            values.add(duplicate.get("_id", Document.class).toJson() + " (" + duplicate.get("count") + " documents)");
+        }
+        return "Unable to create unique index " + options.get("name", keys.toJson()) + " on " + collection
+                + ", resolve these duplicate values first"
+                + (values.size() == REPORTED_DUPLICATES ? " (first " + REPORTED_DUPLICATES + " shown)" : "")
+                + ": " + String.join(", ", values);
+    }
+}
@@ -1,15 +1,56 @@
 package com.devsinc.userservice.configurations;
 
+import com.devsinc.userservice.security.OffloadingPasswordEncoder;
+import com.devsinc.userservice.security.PasswordEncoderSettings;
+import com.devsinc.userservice.security.PasswordHashingExecutor;
+import com.devsinc.userservice.security.TimedPasswordEncoder;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.context.annotation.Primary;
+import org.springframework.security.crypto.password.PasswordEncoder;
 
 @Configuration
 public class PasswordEncoderConfig {
 
+    public static final String PASSWORD_ENCODER = "passwordEncoder";
+
+    @Bean
+    public PasswordEncoderSettings passwordEncoderSettings(
+            @Value("${user_service.app.password-hashing.algorithm:bcrypt}") String algorithm,
+            @Value("${user_service.app.password-hashing.bcrypt.strength:10}") int bcryptStrength,
+            @Value("${user_service.app.password-hashing.argon2.memory-kib:19456}") int argon2MemoryKib,
+            @Value("${user_service.app.password-hashing.argon2.iterations:2}") int argon2Iterations,
+            @Value("${user_service.app.password-hashing.argon2.parallelism:1}") int argon2Parallelism,
+            @Value("${user_service.app.password-hashing.pbkdf2.iterations:310000}") int pbkdf2Iterations) {
+        return new PasswordEncoderSettings(algorithm, bcryptStrength, argon2MemoryKib, argon2Iterations,
+                argon2Parallelism, pbkdf2Iterations);
+    }
+
+    /**
+     * Creates the password encoder for the configured algorithm and cost.
+     * Users whose stored hash uses another encoding are rehashed on their next successful login.
+     * @return the timed password encoder
+     */
+    @Bean(name = PASSWORD_ENCODER)
+    public PasswordEncoder passwordEncoder(PasswordEncoderSettings settings, MeterRegistry meterRegistry){
+        return new TimedPasswordEncoder(settings.createEncoder(), meterRegistry);
+    }
+
+    /**
+     * The encoder injected everywhere else: runs each encode and match on the bounded password hashing pool.
+     * The pool itself, and code already running on it, use the {@link #PASSWORD_ENCODER} bean directly.
+     * @param passwordEncoder the hashing encoder
+     * @param passwordHashingExecutor the bounded password hashing pool
+     * @return the offloading password encoder
+     */
     @Bean
-    public BCryptPasswordEncoder passwordEncoder(){
-        return new BCryptPasswordEncoder();
+    @Primary
+    public PasswordEncoder offloadingPasswordEncoder(@Qualifier(PASSWORD_ENCODER) PasswordEncoder passwordEncoder,
+                                                     PasswordHashingExecutor passwordHashingExecutor) {
+        return new OffloadingPasswordEncoder(passwordEncoder, passwordHashingExecutor);
     }
 
 }
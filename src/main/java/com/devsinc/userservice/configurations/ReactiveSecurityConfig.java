@@ -0,0 +1,122 @@
+package com.devsinc.userservice.configurations;
+
+import com.devsinc.userservice.caches.CaffeineUserCache;
+import com.devsinc.userservice.caches.VerifiedCredentialCache;
+import com.devsinc.userservice.exceptions.PasswordHashingRejectedException;
+import com.devsinc.userservice.security.JwtAuthenticationWebFilter;
+import com.devsinc.userservice.security.JwtTokenProvider;
+import com.devsinc.userservice.security.LoginThrottle;
+import com.devsinc.userservice.security.LoginThrottleWebFilter;
+import com.devsinc.userservice.security.PasswordHashingExecutor;
+import com.devsinc.userservice.services.ReactiveUserService;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.authentication.ReactiveAuthenticationManager;
+import org.springframework.security.authentication.UserDetailsRepositoryReactiveAuthenticationManager;
+import org.springframework.security.config.annotation.method.configuration.EnableReactiveMethodSecurity;
+import org.springframework.security.config.annotation.web.reactive.EnableWebFluxSecurity;
+import org.springframework.security.config.web.server.SecurityWebFiltersOrder;
+import org.springframework.security.config.web.server.ServerHttpSecurity;
+import org.springframework.security.core.userdetails.ReactiveUserDetailsService;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.security.web.server.SecurityWebFilterChain;
+import org.springframework.security.web.server.context.NoOpServerSecurityContextRepository;
+import reactor.core.publisher.Mono;
+
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Security configuration of the reactive deployment mode, mirroring {@link DefaultSecurityConfig}.
+ */
+@Configuration
+@Profile("reactive")
+@EnableWebFluxSecurity
+@EnableReactiveMethodSecurity
+public class ReactiveSecurityConfig {
+
+    private final PasswordEncoder passwordEncoder;
+
+    private final ReactiveUserService userService;
+
+    private final CaffeineUserCache userCache;
+
+    private final VerifiedCredentialCache credentialCache;
+
+    private final PasswordHashingExecutor passwordHashingExecutor;
+
+    private final JwtTokenProvider jwtTokenProvider;
+
+    private final LoginThrottle loginThrottle;
+
+    public ReactiveSecurityConfig(@Qualifier(PasswordEncoderConfig.PASSWORD_ENCODER) PasswordEncoder passwordEncoder, ReactiveUserService userService, CaffeineUserCache userCache,
+                                  VerifiedCredentialCache credentialCache, PasswordHashingExecutor passwordHashingExecutor,
+                                  JwtTokenProvider jwtTokenProvider, LoginThrottle loginThrottle) {
+        this.passwordEncoder = passwordEncoder;
+        this.userService = userService;
+        this.userCache = userCache;
+        this.credentialCache = credentialCache;
+        this.passwordHashingExecutor = passwordHashingExecutor;
+        this.jwtTokenProvider = jwtTokenProvider;
+        this.loginThrottle = loginThrottle;
+    }
+
+    /**
+     * Configures the security filter chain.
+     * No security context is stored between requests: clients send a bearer token issued by /sign_in, or HTTP Basic.
+     * Registrations and logins are throttled by client IP before they reach the user service.
+     * @param http The ServerHttpSecurity object to configure.
+     * @return The configured SecurityWebFilterChain.
+     */
+    @Bean
+    public SecurityWebFilterChain securityWebFilterChain(ServerHttpSecurity http) {
+        return http.csrf(ServerHttpSecurity.CsrfSpec::disable)
+                .authorizeExchange(exchanges -> exchanges
+                        .pathMatchers("/role/**").authenticated()
+                        .pathMatchers("/user/import").authenticated()
+                        .pathMatchers("/user/search").authenticated()
+                        .pathMatchers("/user/changes").authenticated()
+                        .pathMatchers("/user/register").permitAll()
+                        .pathMatchers("/sign_in/**").permitAll()
+                        .pathMatchers("/user/**").permitAll()
+                        .anyExchange().authenticated())
+                .securityContextRepository(NoOpServerSecurityContextRepository.getInstance())
+                .addFilterBefore(new JwtAuthenticationWebFilter(jwtTokenProvider), SecurityWebFiltersOrder.HTTP_BASIC)
+                .addFilterBefore(new LoginThrottleWebFilter(loginThrottle), SecurityWebFiltersOrder.HTTP_BASIC)
+                .httpBasic(httpBasic -> httpBasic.authenticationManager(reactiveAuthenticationManager()))
+                .formLogin(ServerHttpSecurity.FormLoginSpec::disable)
+                .build();
+    }
+
+    /**
+     * Creates the ReactiveAuthenticationManager used by HTTP Basic and /sign_in.
+     * Users are served from the user cache when present, and password checks run on the password hashing scheduler.
+     * Hashes with an outdated encoding are replaced after a successful login.
+     * Checks rejected by a full password hashing queue fail with a PasswordHashingRejectedException, answered with 503,
+     * and usernames with too many failed logins, from the client IP or from every address, are rejected with 429
+     * before their user is looked up.
+     * @return The configured ReactiveAuthenticationManager.
+     */
+    @Bean
+    public ReactiveAuthenticationManager reactiveAuthenticationManager() {
+        UserDetailsRepositoryReactiveAuthenticationManager authenticationManager =
+                new UserDetailsRepositoryReactiveAuthenticationManager(cachedUserDetailsService());
+        authenticationManager.setPasswordEncoder(credentialCache.wrap(passwordEncoder));
+        authenticationManager.setScheduler(passwordHashingExecutor.scheduler());
+        authenticationManager.setUserDetailsPasswordService(userService);
+        return authentication -> Mono.deferContextual(context -> {
+            String clientIp = context.getOrDefault(LoginThrottle.CLIENT_IP, null);
+            return Mono.fromRunnable(() -> loginThrottle.checkUsername(authentication.getName(), clientIp))
+                    .then(authenticationManager.authenticate(authentication))
+                    .doOnError(BadCredentialsException.class,
+                            e -> loginThrottle.recordFailedLogin(authentication.getName(), clientIp));
+        }).onErrorMap(RejectedExecutionException.class, PasswordHashingRejectedException::new);
+    }
+
+    private ReactiveUserDetailsService cachedUserDetailsService() {
+        return username -> Mono.justOrEmpty(userCache.getUserFromCache(username))
+                .switchIfEmpty(userService.findByUsername(username).doOnNext(userCache::putUserInCache));
+    }
+}
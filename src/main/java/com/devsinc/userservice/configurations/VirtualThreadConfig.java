@@ -0,0 +1,69 @@
+package com.devsinc.userservice.configurations;
+
+import com.devsinc.userservice.security.PasswordHashingExecutor;
+import jakarta.annotation.PreDestroy;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.task.TaskExecutionAutoConfiguration;
+import org.springframework.boot.web.embedded.tomcat.TomcatProtocolHandlerCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.support.TaskExecutorAdapter;
+import org.springframework.scheduling.annotation.AsyncAnnotationBeanPostProcessor;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Runs servlet request handling, and with it every blocking Mongo call, on virtual threads instead of
+ * Tomcat's platform thread pool. Requires Java 21; startup fails with a clear message on older runtimes.
+ * Password hashing keeps running on the bounded platform threads of the {@link PasswordHashingExecutor}.
+ */
+@Configuration
+@Profile("!reactive")
+@ConditionalOnProperty(name = "user_service.app.virtual-threads.enabled", havingValue = "true")
+public class VirtualThreadConfig {
+
+    private final ExecutorService virtualThreadExecutor = newVirtualThreadPerTaskExecutor();
+
+    /**
+     * Hands every Tomcat request to a new virtual thread.
+     * @return the protocol handler customizer
+     */
+    @Bean
+    public TomcatProtocolHandlerCustomizer<?> virtualThreadProtocolHandlerCustomizer() {
+        return protocolHandler -> protocolHandler.setExecutor(virtualThreadExecutor);
+    }
+
+    /**
+     * Replaces the auto-configured application task executor, used for asynchronous requests such as
+     * the user stream and for background jobs, with virtual threads.
+     * Registered under both of its names, as the auto-configured one is, so that injecting a plain TaskExecutor
+     * still resolves to it rather than being ambiguous with the scheduler of the scheduled jobs.
+     * @return the application task executor
+     */
+    @Bean(name = { TaskExecutionAutoConfiguration.APPLICATION_TASK_EXECUTOR_BEAN_NAME,
+            AsyncAnnotationBeanPostProcessor.DEFAULT_TASK_EXECUTOR_BEAN_NAME })
+    public AsyncTaskExecutor applicationTaskExecutor() {
+        return new TaskExecutorAdapter(virtualThreadExecutor);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        virtualThreadExecutor.shutdown();
+    }
+
+    /**
+     * Looked up reflectively so that the application still compiles and runs on Java 17 with this mode disabled.
+     */
+    private static ExecutorService newVirtualThreadPerTaskExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (NoSuchMethodException e) {
+            throw new IllegalStateException("Virtual threads require Java 21 or later, running on Java " + Runtime.version(), e);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Unable to create a virtual thread executor on Java " + Runtime.version(), e);
+        }
+    }
+}
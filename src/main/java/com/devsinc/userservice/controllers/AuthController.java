@@ -0,0 +1,47 @@
+package com.devsinc.userservice.controllers;
+
+import com.devsinc.userservice.dtos.request.SignInRequest;
+import com.devsinc.userservice.dtos.response.ApplicationResponse;
+import com.devsinc.userservice.dtos.response.TokenResponse;
+import com.devsinc.userservice.services.AuthService;
+import jakarta.validation.Valid;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * Controller class for signing in.
+ * Exchanges a username and password for a bearer token.
+ */
+@RestController
+@Profile("!reactive")
+@RequestMapping("/sign_in")
+public class AuthController {
+
+    private final AuthService authService;
+
+    /**
+     * Constructs an AuthController with the specified AuthService.
+     * @param authService the service issuing tokens
+     */
+    public AuthController(AuthService authService) {
+        this.authService = authService;
+    }
+
+    /**
+     * Signs a user in.
+     * @param signInRequest the username and password
+     * @return an ApplicationResponse containing the HTTP status and the access token
+     * @throws org.springframework.security.core.AuthenticationException if the credentials are invalid
+     */
+    @PostMapping
+    public ApplicationResponse<TokenResponse> signIn(@Valid @RequestBody SignInRequest signInRequest){
+        return ApplicationResponse.<TokenResponse>builder()
+                .httpStatus(HttpStatus.OK)
+                .data(authService.signIn(signInRequest))
+                .build();
+    }
+}
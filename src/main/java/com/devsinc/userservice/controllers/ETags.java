@@ -0,0 +1,63 @@
+package com.devsinc.userservice.controllers;
+
+import com.devsinc.userservice.dtos.response.RoleResponse;
+import com.devsinc.userservice.dtos.response.UserResponse;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.List;
+
+/**
+ * Strong ETags of user and role representations, derived from the ID and version of the documents,
+ * so that conditional requests are answered without serializing the response.
+ */
+final class ETags {
+
+    private ETags() {
+    }
+
+    /**
+     * @param user the user
+     * @return the ETag of the user
+     */
+    static String of(UserResponse user) {
+        return quote(user.getId() + "." + user.getVersion());
+    }
+
+    /**
+     * @param role the role
+     * @return the ETag of the role
+     */
+    static String of(RoleResponse role) {
+        return quote(role.getId() + "." + role.getVersion());
+    }
+
+    /**
+     * The list is tagged with a SHA-256 digest of the ID and version of every role, each ID prefixed with its length
+     * so that no two lists encode alike: a 304 is only ever answered for the list the client holds.
+     * @param roles the roles, in response order
+     * @return the ETag of the list of roles, changing whenever a role is added, removed, reordered or written
+     */
+    static String of(List<RoleResponse> roles) {
+        MessageDigest digest = sha256();
+        for (RoleResponse role : roles) {
+            String id = role.getId();
+            digest.update((id.length() + ":" + id + ":" + role.getVersion() + "\n").getBytes(StandardCharsets.UTF_8));
+        }
+        return quote(roles.size() + "-" + Base64.getUrlEncoder().withoutPadding().encodeToString(digest.digest()));
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available on this runtime", e);
+        }
+    }
+
+    private static String quote(String tag) {
+        return "\"" + tag + "\"";
+    }
+}
@@ -0,0 +1,46 @@
+package com.devsinc.userservice.controllers;
+
+import com.devsinc.userservice.dtos.request.SignInRequest;
+import com.devsinc.userservice.dtos.response.ApplicationResponse;
+import com.devsinc.userservice.dtos.response.TokenResponse;
+import com.devsinc.userservice.services.ReactiveAuthService;
+import jakarta.validation.Valid;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Mono;
+
+/**
+ * Reactive counterpart of {@link AuthController}.
+ */
+@RestController
+@Profile("reactive")
+@RequestMapping("/sign_in")
+public class ReactiveAuthController {
+
+    private final ReactiveAuthService authService;
+
+    /**
+     * Constructs a ReactiveAuthController with the specified ReactiveAuthService.
+     * @param authService the service issuing tokens
+     */
+    public ReactiveAuthController(ReactiveAuthService authService) {
+        this.authService = authService;
+    }
+
+    /**
+     * Signs a user in.
+     * @param signInRequest the username and password
+     * @return an ApplicationResponse containing the HTTP status and the access token
+     */
+    @PostMapping
+    public Mono<ApplicationResponse<TokenResponse>> signIn(@Valid @RequestBody SignInRequest signInRequest){
+        return authService.signIn(signInRequest).map(token -> ApplicationResponse.<TokenResponse>builder()
+                .httpStatus(HttpStatus.OK)
+                .data(token)
+                .build());
+    }
+}
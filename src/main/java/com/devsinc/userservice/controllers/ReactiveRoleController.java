@@ -0,0 +1,130 @@
+package com.devsinc.userservice.controllers;
+
+import com.devsinc.userservice.dtos.request.CreateRoleRequest;
+import com.devsinc.userservice.dtos.request.UpdateRoleRequest;
+import com.devsinc.userservice.dtos.response.ApplicationResponse;
+import com.devsinc.userservice.dtos.response.CursorPageResponse;
+import com.devsinc.userservice.dtos.response.RoleResponse;
+import com.devsinc.userservice.dtos.response.UserResponse;
+import com.devsinc.userservice.services.ReactiveRoleService;
+import jakarta.validation.Valid;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+
+/**
+ * Reactive counterpart of {@link RoleController}, exposing the same endpoints with the reactive profile.
+ */
+@RestController
+@Profile("reactive")
+@RequestMapping("/role")
+public class ReactiveRoleController {
+
+    private final ReactiveRoleService roleService;
+
+    /**
+     * Constructs a ReactiveRoleController with the specified ReactiveRoleService.
+     * @param roleService the service for roles
+     */
+    public ReactiveRoleController(ReactiveRoleService roleService) {
+        this.roleService = roleService;
+    }
+
+    /**
+     * Retrieves all roles.
+     * The response carries an ETag of the roles, and is 304 Not Modified when it matches If-None-Match.
+     * @param exchange the current exchange, checked against the ETag
+     * @return an ApplicationResponse containing the HTTP status and a list of role responses, or empty if not modified
+     */
+    @PreAuthorize("hasAuthority('ADMIN')")
+    @GetMapping("/get-all")
+    public Mono<ApplicationResponse<List<RoleResponse>>> getAll(ServerWebExchange exchange){
+        return roleService.getAllRoles()
+                .filter(roles -> !exchange.checkNotModified(ETags.of(roles)))
+                .map(roles -> ApplicationResponse.<List<RoleResponse>>builder()
+                        .httpStatus(HttpStatus.OK)
+                        .data(roles)
+                        .build());
+    }
+
+    /**
+     * Retrieves a role by its ID.
+     * The response carries the ETag of the role, and is 304 Not Modified when it matches If-None-Match.
+     * @param id the ID of the role to retrieve
+     * @param exchange the current exchange, checked against the ETag
+     * @return an ApplicationResponse containing the HTTP status and the role response, or empty if not modified
+     */
+    @PreAuthorize("hasAuthority('ADMIN')")
+    @GetMapping("/find-by-id/{id}")
+    public Mono<ApplicationResponse<RoleResponse>> getAll(@PathVariable String id, ServerWebExchange exchange){
+        return roleService.getRole(id)
+                .filter(role -> !exchange.checkNotModified(ETags.of(role)))
+                .map(role -> response(HttpStatus.OK, role));
+    }
+
+    /**
+     * Retrieves one page of the users holding a role, ordered by ID.
+     * @param id the ID of the role
+     * @param cursor the cursor returned with the previous page, omitted for the first page
+     * @param size the page size, capped at the configured maximum
+     * @return an ApplicationResponse containing the HTTP status and the page of user responses
+     */
+    @PreAuthorize("hasAuthority('ADMIN')")
+    @GetMapping("/{id}/users")
+    public Mono<ApplicationResponse<CursorPageResponse<UserResponse>>> getUsers(@PathVariable String id,
+                                                                                @RequestParam(required = false) String cursor,
+                                                                                @RequestParam(required = false) Integer size){
+        return roleService.getRoleUsers(id, cursor, size).map(users -> ApplicationResponse.<CursorPageResponse<UserResponse>>builder()
+                .httpStatus(HttpStatus.OK)
+                .data(users)
+                .build());
+    }
+
+    /**
+     * Counts the users holding a role.
+     * @param id the ID of the role
+     * @return an ApplicationResponse containing the HTTP status and the number of users holding the role
+     */
+    @PreAuthorize("hasAuthority('ADMIN')")
+    @GetMapping("/{id}/users/count")
+    public Mono<ApplicationResponse<Long>> countUsers(@PathVariable String id){
+        return roleService.countRoleUsers(id).map(count -> ApplicationResponse.<Long>builder()
+                .httpStatus(HttpStatus.OK)
+                .data(count)
+                .build());
+    }
+
+    /**
+     * Creates a new role.
+     * @param roleRequest the request object containing the role information to be created
+     * @return an ApplicationResponse containing the HTTP status and the created role response
+     */
+    @PreAuthorize("hasAuthority('ADMIN')")
+    @PostMapping("/create")
+    public Mono<ApplicationResponse<RoleResponse>> create(@RequestBody @Valid CreateRoleRequest roleRequest){
+        return roleService.saveRole(roleRequest).map(role -> response(HttpStatus.CREATED, role));
+    }
+
+    /**
+     * Renames a role. The new name is propagated to every user holding the role.
+     * @param roleRequest the request object containing the ID and the new name of the role
+     * @return an ApplicationResponse containing the HTTP status and the updated role response
+     */
+    @PreAuthorize("hasAuthority('ADMIN')")
+    @PostMapping("/update")
+    public Mono<ApplicationResponse<RoleResponse>> update(@RequestBody @Valid UpdateRoleRequest roleRequest){
+        return roleService.updateRole(roleRequest).map(role -> response(HttpStatus.OK, role));
+    }
+
+    private ApplicationResponse<RoleResponse> response(HttpStatus httpStatus, RoleResponse roleResponse) {
+        return ApplicationResponse.<RoleResponse>builder()
+                .httpStatus(httpStatus)
+                .data(roleResponse)
+                .build();
+    }
+}
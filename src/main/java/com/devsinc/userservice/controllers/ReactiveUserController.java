@@ -0,0 +1,201 @@
+package com.devsinc.userservice.controllers;
+
+import com.devsinc.userservice.dtos.request.BatchGetUsersRequest;
+import com.devsinc.userservice.dtos.request.CreateUserRequest;
+import com.devsinc.userservice.dtos.request.UpdatePasswordRequest;
+import com.devsinc.userservice.dtos.request.UpdateUserRequest;
+import com.devsinc.userservice.dtos.request.UserSearchRequest;
+import com.devsinc.userservice.dtos.response.ApplicationResponse;
+import com.devsinc.userservice.dtos.response.BatchGetResponse;
+import com.devsinc.userservice.dtos.response.ChangeFeedResponse;
+import com.devsinc.userservice.dtos.response.CursorPageResponse;
+import com.devsinc.userservice.dtos.response.UserImportResponse;
+import com.devsinc.userservice.dtos.response.UserResponse;
+import com.devsinc.userservice.services.ReactiveUserService;
+import com.devsinc.userservice.services.UserImportService;
+import jakarta.validation.Valid;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * Reactive counterpart of {@link UserController}, exposing the same endpoints with the reactive profile.
+ */
+@RestController
+@Profile("reactive")
+@RequestMapping("/user")
+public class ReactiveUserController {
+
+    private final ReactiveUserService userService;
+
+    private final UserImportService userImportService;
+
+    public ReactiveUserController(ReactiveUserService userService, UserImportService userImportService) {
+        this.userService = userService;
+        this.userImportService = userImportService;
+    }
+
+    /**
+     * Retrieves one page of users, ordered by ID.
+     * @param cursor the cursor returned with the previous page, omitted for the first page
+     * @param size the page size, capped at the configured maximum
+     * @return an ApplicationResponse containing the HTTP status and the page of user responses
+     */
+    @GetMapping("/getAll")
+    public Mono<ApplicationResponse<CursorPageResponse<UserResponse>>> getAllUsers(@RequestParam(required = false) String cursor,
+                                                                                  @RequestParam(required = false) Integer size){
+        return userService.getAllUsers(cursor, size).map(userResponses -> ApplicationResponse.<CursorPageResponse<UserResponse>>builder()
+                .httpStatus(HttpStatus.OK)
+                .data(userResponses)
+                .build());
+    }
+
+    /**
+     * Searches users, ignoring case, by username or email prefix, first or last name prefix and role.
+     * @param searchRequest the filters, sort order (username or email, optionally followed by ",desc"), cursor and page size
+     * @return an ApplicationResponse containing the HTTP status and the page of user responses
+     */
+    @PreAuthorize("hasAuthority('ADMIN')")
+    @GetMapping("/search")
+    public Mono<ApplicationResponse<CursorPageResponse<UserResponse>>> searchUsers(UserSearchRequest searchRequest){
+        return userService.searchUsers(searchRequest).map(userResponses -> ApplicationResponse.<CursorPageResponse<UserResponse>>builder()
+                .httpStatus(HttpStatus.OK)
+                .data(userResponses)
+                .build());
+    }
+
+    /**
+     * Reads the user and role changes published since a token, oldest first, for consumers keeping a copy in sync.
+     * @param since the token returned with the previous changes, or none to read from the oldest retained change
+     * @param size the requested number of changes, or none for the default page size
+     * @return an ApplicationResponse containing the HTTP status, the changes and the token to read the next changes from
+     */
+    @PreAuthorize("hasAuthority('ADMIN')")
+    @GetMapping("/changes")
+    public Mono<ApplicationResponse<ChangeFeedResponse>> getChanges(@RequestParam(required = false) String since,
+                                                                    @RequestParam(required = false) Integer size){
+        return userService.getChanges(since, size).map(changes -> ApplicationResponse.<ChangeFeedResponse>builder()
+                .httpStatus(HttpStatus.OK)
+                .data(changes)
+                .build());
+    }
+
+    /**
+     * Streams all users as newline-delimited JSON, one user response per line, honouring client back pressure.
+     * @return the users
+     */
+    @GetMapping(value = "/getAll/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public Flux<UserResponse> streamAllUsers(){
+        return userService.streamAllUsers();
+    }
+
+    /**
+     * Retrieves a user by their ID.
+     * The response carries the ETag of the user, and is 304 Not Modified when it matches If-None-Match.
+     * @param id the ID of the user to retrieve
+     * @param exchange the current exchange, checked against the ETag
+     * @return an ApplicationResponse containing the HTTP status and the user response, or empty if not modified
+     */
+    @GetMapping("/get/{id}")
+    public Mono<ApplicationResponse<UserResponse>> findUserById(@PathVariable String id, ServerWebExchange exchange){
+        return userService.findUserById(id).filter(user -> !exchange.checkNotModified(ETags.of(user))).map(this::ok);
+    }
+
+    /**
+     * Retrieves a user by their username.
+     * The response carries the ETag of the user, and is 304 Not Modified when it matches If-None-Match.
+     * @param username the username of the user to retrieve
+     * @param exchange the current exchange, checked against the ETag
+     * @return an ApplicationResponse containing the HTTP status and the user response, or empty if not modified
+     */
+    @GetMapping("/get-by-username/{username}")
+    public Mono<ApplicationResponse<UserResponse>> findByUsername(@PathVariable String username, ServerWebExchange exchange){
+        return userService.findUserByUsername(username).filter(user -> !exchange.checkNotModified(ETags.of(user))).map(this::ok);
+    }
+
+    /**
+     * Retrieves many users by their IDs or usernames in one call.
+     * @param batchGetUsersRequest the request object holding either the IDs or the usernames of the users to retrieve
+     * @return an ApplicationResponse containing the HTTP status, the user responses keyed by the requested ID or username,
+     * and the IDs or usernames matching no user
+     */
+    @PostMapping("/batch-get")
+    public Mono<ApplicationResponse<BatchGetResponse<UserResponse>>> batchGet(@RequestBody @Valid BatchGetUsersRequest batchGetUsersRequest){
+        return userService.findUsers(batchGetUsersRequest).map(userResponses -> ApplicationResponse.<BatchGetResponse<UserResponse>>builder()
+                .httpStatus(HttpStatus.OK)
+                .data(userResponses)
+                .build());
+    }
+
+    /**
+     * Registers a new user.
+     * @param userRequest the request object containing the user information to be registered
+     * @return an ApplicationResponse containing the HTTP status and the created user response
+     */
+    @PostMapping("/register")
+    public Mono<ApplicationResponse<UserResponse>> create(@RequestBody @Valid CreateUserRequest userRequest){
+        return userService.createUser(userRequest).map(this::ok);
+    }
+
+    /**
+     * Imports users in bulk from a JSON array or newline-delimited JSON.
+     * Rows are decoded as they arrive and handed to the blocking import service on a bounded elastic thread.
+     * @param rows the decoded rows
+     * @return an ApplicationResponse containing the HTTP status and the outcome of every row
+     */
+    @PreAuthorize("hasAuthority('ADMIN')")
+    @PostMapping(value = "/import", consumes = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+    public Mono<ApplicationResponse<UserImportResponse>> importUsers(@RequestBody Flux<CreateUserRequest> rows){
+        return Mono.fromCallable(() -> userImportService.importUsers(rows.toIterable().iterator()))
+                .subscribeOn(Schedulers.boundedElastic())
+                .map(importResponse -> ApplicationResponse.<UserImportResponse>builder()
+                        .httpStatus(HttpStatus.OK)
+                        .data(importResponse)
+                        .build());
+    }
+
+    /**
+     * Updates a user.
+     * @param userRequest the request object containing the updated user information
+     * @return an ApplicationResponse containing the HTTP status and the updated user response
+     */
+    @PostMapping("/update")
+    public Mono<ApplicationResponse<UserResponse>> update(@RequestBody @Valid UpdateUserRequest userRequest){
+        return userService.updateUser(userRequest).map(this::ok);
+    }
+
+    /**
+     * Updates a user's password.
+     * @param userRequest the request object containing the updated password information
+     * @return an ApplicationResponse containing the HTTP status and the updated user response
+     */
+    @PostMapping("/update-password")
+    public Mono<ApplicationResponse<UserResponse>> updatePassword(@RequestBody @Valid UpdatePasswordRequest userRequest){
+        return userService.updatePassword(userRequest).map(this::ok);
+    }
+
+    /**
+     * Deletes a user by their ID.
+     * @param id the ID of the user to delete
+     * @return an ApplicationResponse containing the HTTP status
+     */
+    @DeleteMapping("/delete/{id}")
+    public Mono<ApplicationResponse<Object>> deleteUser(@PathVariable String id) {
+        return userService.deleteUser(id).then(Mono.fromSupplier(() -> ApplicationResponse.builder()
+                .httpStatus(HttpStatus.OK)
+                .build()));
+    }
+
+    private ApplicationResponse<UserResponse> ok(UserResponse userResponse) {
+        return ApplicationResponse.<UserResponse>builder()
+                .httpStatus(HttpStatus.OK)
+                .data(userResponse)
+                .build();
+    }
+}
@@ -1,13 +1,18 @@
 package com.devsinc.userservice.controllers;
 
 import com.devsinc.userservice.dtos.request.CreateRoleRequest;
+import com.devsinc.userservice.dtos.request.UpdateRoleRequest;
 import com.devsinc.userservice.dtos.response.ApplicationResponse;
+import com.devsinc.userservice.dtos.response.CursorPageResponse;
 import com.devsinc.userservice.dtos.response.RoleResponse;
+import com.devsinc.userservice.dtos.response.UserResponse;
 import com.devsinc.userservice.services.RoleService;
 import jakarta.validation.Valid;
+import org.springframework.context.annotation.Profile;
 import org.springframework.http.HttpStatus;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import java.util.List;
 import java.util.NoSuchElementException;
@@ -17,6 +22,7 @@ import java.util.NoSuchElementException;
  * Exposes REST endpoints for role operations.
  */
 @RestController
+@Profile("!reactive")
 @RequestMapping("/role")
 public class RoleController {
 
@@ -32,29 +38,76 @@ public class RoleController {
 
     /**
      * Retrieves all roles.
-     * @return an ApplicationResponse containing the HTTP status and a list of role responses
+     * The response carries an ETag of the roles, and is 304 Not Modified when it matches If-None-Match.
+     * @param webRequest the current request, checked against the ETag
+     * @return an ApplicationResponse containing the HTTP status and a list of role responses, or null if not modified
      */
     @PreAuthorize("hasAuthority('ADMIN')")
     @GetMapping("/get-all")
-    public ApplicationResponse<List<RoleResponse>> getAll(){
+    public ApplicationResponse<List<RoleResponse>> getAll(WebRequest webRequest){
+        List<RoleResponse> roles = roleService.getAllRoles();
+        if (webRequest.checkNotModified(ETags.of(roles))) {
+            return null;
+        }
         return ApplicationResponse.<List<RoleResponse>>builder()
                 .httpStatus(HttpStatus.OK)
-                .data(roleService.getAllRoles())
+                .data(roles)
                 .build();
     }
 
     /**
      * Retrieves a role by its ID.
+     * The response carries the ETag of the role, and is 304 Not Modified when it matches If-None-Match.
      * @param id the ID of the role to retrieve
-     * @return an ApplicationResponse containing the HTTP status and the role response
+     * @param webRequest the current request, checked against the ETag
+     * @return an ApplicationResponse containing the HTTP status and the role response, or null if not modified
      * @throws NoSuchElementException if the role with the specified ID is not found
      */
     @PreAuthorize("hasAuthority('ADMIN')")
     @GetMapping("/find-by-id/{id}")
-    public ApplicationResponse<RoleResponse> getAll(@PathVariable String id){
+    public ApplicationResponse<RoleResponse> getAll(@PathVariable String id, WebRequest webRequest){
+        RoleResponse role = roleService.getRole(id);
+        if (webRequest.checkNotModified(ETags.of(role))) {
+            return null;
+        }
         return ApplicationResponse.<RoleResponse>builder()
                 .httpStatus(HttpStatus.OK)
-                .data(roleService.getRole(id))
+                .data(role)
+                .build();
+    }
+
+    /**
+     * Retrieves one page of the users holding a role, ordered by ID.
+     * @param id the ID of the role
+     * @param cursor the cursor returned with the previous page, omitted for the first page
+     * @param size the page size, capped at the configured maximum
+     * @return an ApplicationResponse containing the HTTP status and the page of user responses
+     * @throws NoSuchElementException if the role with the specified ID is not found
+     * @throws IllegalArgumentException if the page size is not positive
+     */
+    @PreAuthorize("hasAuthority('ADMIN')")
+    @GetMapping("/{id}/users")
+    public ApplicationResponse<CursorPageResponse<UserResponse>> getUsers(@PathVariable String id,
+                                                                          @RequestParam(required = false) String cursor,
+                                                                          @RequestParam(required = false) Integer size){
+        return ApplicationResponse.<CursorPageResponse<UserResponse>>builder()
+                .httpStatus(HttpStatus.OK)
+                .data(roleService.getRoleUsers(id, cursor, size))
+                .build();
+    }
+
+    /**
+     * Counts the users holding a role.
+     * @param id the ID of the role
+     * @return an ApplicationResponse containing the HTTP status and the number of users holding the role
+     * @throws NoSuchElementException if the role with the specified ID is not found
+     */
+    @PreAuthorize("hasAuthority('ADMIN')")
+    @GetMapping("/{id}/users/count")
+    public ApplicationResponse<Long> countUsers(@PathVariable String id){
+        return ApplicationResponse.<Long>builder()
+                .httpStatus(HttpStatus.OK)
+                .data(roleService.countRoleUsers(id))
                 .build();
     }
 
@@ -71,4 +124,19 @@ public class RoleController {
                 .data(roleService.saveRole(roleRequest))
                 .build();
     }
+
+    /**
+     * Renames a role. The new name is propagated to every user holding the role.
+     * @param roleRequest the request object containing the ID and the new name of the role
+     * @return an ApplicationResponse containing the HTTP status and the updated role response
+     * @throws NoSuchElementException if the role with the specified ID is not found
+     */
+    @PreAuthorize("hasAuthority('ADMIN')")
+    @PostMapping("/update")
+    public ApplicationResponse<RoleResponse> update(@RequestBody @Valid UpdateRoleRequest roleRequest){
+        return ApplicationResponse.<RoleResponse>builder()
+                .httpStatus(HttpStatus.OK)
+                .data(roleService.updateRole(roleRequest))
+                .build();
+    }
 }
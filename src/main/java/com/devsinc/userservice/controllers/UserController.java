@@ -1,49 +1,141 @@
 package com.devsinc.userservice.controllers;
 
+import com.devsinc.userservice.dtos.request.BatchGetUsersRequest;
 import com.devsinc.userservice.dtos.request.CreateUserRequest;
 import com.devsinc.userservice.dtos.request.UpdatePasswordRequest;
 import com.devsinc.userservice.dtos.request.UpdateUserRequest;
+import com.devsinc.userservice.dtos.request.UserSearchRequest;
 import com.devsinc.userservice.dtos.response.ApplicationResponse;
+import com.devsinc.userservice.dtos.response.BatchGetResponse;
+import com.devsinc.userservice.dtos.response.ChangeFeedResponse;
+import com.devsinc.userservice.dtos.response.CursorPageResponse;
+import com.devsinc.userservice.dtos.response.UserImportResponse;
 import com.devsinc.userservice.dtos.response.UserResponse;
+import com.devsinc.userservice.services.UserImportService;
 import com.devsinc.userservice.services.UserService;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import jakarta.validation.Valid;
+import org.springframework.context.annotation.Profile;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
-import java.util.List;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
 
 @RestController
+@Profile("!reactive")
 @RequestMapping("/user")
 public class UserController {
 
+    private static final String APPLICATION_NDJSON_VALUE = "application/x-ndjson";
+
     private final UserService userService;
 
-    public UserController(UserService userService) {
+    private final UserImportService userImportService;
+
+    private final ObjectMapper objectMapper;
+
+    public UserController(UserService userService, UserImportService userImportService, ObjectMapper objectMapper) {
         this.userService = userService;
+        this.userImportService = userImportService;
+        this.objectMapper = objectMapper;
     }
 
     /**
-     * Retrieves all users.
-     * @return an ApplicationResponse containing the HTTP status and a list of user responses
+     * Retrieves one page of users, ordered by ID.
+     * @param cursor the cursor returned with the previous page, omitted for the first page
+     * @param size the page size, capped at the configured maximum
+     * @return an ApplicationResponse containing the HTTP status and the page of user responses
+     * @throws IllegalArgumentException if the page size is not positive
      */
     @GetMapping("/getAll")
-    public ApplicationResponse<List<UserResponse>> getAllUsers(){
-        List<UserResponse> userResponses = userService.getAllUsers();
-        return ApplicationResponse.<List<UserResponse>>builder()
+    public ApplicationResponse<CursorPageResponse<UserResponse>> getAllUsers(@RequestParam(required = false) String cursor,
+                                                                            @RequestParam(required = false) Integer size){
+        CursorPageResponse<UserResponse> userResponses = userService.getAllUsers(cursor, size);
+        return ApplicationResponse.<CursorPageResponse<UserResponse>>builder()
+                .httpStatus(HttpStatus.OK)
+                .data(userResponses)
+                .build();
+    }
+
+    /**
+     * Searches users, ignoring case, by username or email prefix, first or last name prefix and role.
+     * @param searchRequest the filters, sort order (username or email, optionally followed by ",desc"), cursor and page size
+     * @return an ApplicationResponse containing the HTTP status and the page of user responses
+     * @throws IllegalArgumentException if the sort order, cursor or page size is invalid
+     */
+    @PreAuthorize("hasAuthority('ADMIN')")
+    @GetMapping("/search")
+    public ApplicationResponse<CursorPageResponse<UserResponse>> searchUsers(UserSearchRequest searchRequest){
+        CursorPageResponse<UserResponse> userResponses = userService.searchUsers(searchRequest);
+        return ApplicationResponse.<CursorPageResponse<UserResponse>>builder()
                 .httpStatus(HttpStatus.OK)
                 .data(userResponses)
                 .build();
     }
 
+    /**
+     * Reads the user and role changes published since a token, oldest first, for consumers keeping a copy in sync.
+     * @param since the token returned with the previous changes, or none to read from the oldest retained change
+     * @param size the requested number of changes, or none for the default page size
+     * @return an ApplicationResponse containing the HTTP status, the changes and the token to read the next changes from
+     * @throws IllegalArgumentException if the token or page size is invalid
+     */
+    @PreAuthorize("hasAuthority('ADMIN')")
+    @GetMapping("/changes")
+    public ApplicationResponse<ChangeFeedResponse> getChanges(@RequestParam(required = false) String since,
+                                                              @RequestParam(required = false) Integer size){
+        ChangeFeedResponse changes = userService.getChanges(since, size);
+        return ApplicationResponse.<ChangeFeedResponse>builder()
+                .httpStatus(HttpStatus.OK)
+                .data(changes)
+                .build();
+    }
+
+    /**
+     * Streams all users as newline-delimited JSON, one user response per line.
+     * Rows are written as they are read from the database cursor, so the response is never held in memory.
+     * @return the streaming response body
+     */
+    @GetMapping(value = "/getAll/stream", produces = APPLICATION_NDJSON_VALUE)
+    public StreamingResponseBody streamAllUsers(){
+        return outputStream -> {
+            JsonGenerator generator = objectMapper.createGenerator(outputStream);
+            generator.setRootValueSeparator(new SerializedString("\n"));
+            userService.streamAllUsers(userResponse -> {
+                try {
+                    generator.writeObject(userResponse);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            generator.writeRaw('\n');
+            generator.flush();
+        };
+    }
+
     /**
      * Retrieves a user by their ID.
+     * The response carries the ETag of the user, and is 304 Not Modified when it matches If-None-Match.
      * @param id the ID of the user to retrieve
-     * @return an ApplicationResponse containing the HTTP status and the user response
+     * @param webRequest the current request, checked against the ETag
+     * @return an ApplicationResponse containing the HTTP status and the user response, or null if not modified
      * @throws java.util.NoSuchElementException if the user with the specified ID is not found
      */
     @GetMapping("/get/{id}")
-    public ApplicationResponse<UserResponse> findUserById(@PathVariable String id){
+    public ApplicationResponse<UserResponse> findUserById(@PathVariable String id, WebRequest webRequest){
         UserResponse userResponse = userService.findUserById(id);
+        if (webRequest.checkNotModified(ETags.of(userResponse))) {
+            return null;
+        }
         return ApplicationResponse.<UserResponse>builder()
                 .httpStatus(HttpStatus.OK)
                 .data(userResponse)
@@ -52,19 +144,41 @@ public class UserController {
 
     /**
      * Retrieves a user by their username.
+     * The response carries the ETag of the user, and is 304 Not Modified when it matches If-None-Match.
      * @param username the username of the user to retrieve
-     * @return an ApplicationResponse containing the HTTP status and the user response
+     * @param webRequest the current request, checked against the ETag
+     * @return an ApplicationResponse containing the HTTP status and the user response, or null if not modified
      * @throws java.util.NoSuchElementException if the user with the specified username is not found
      */
     @GetMapping("/get-by-username/{username}")
-    public ApplicationResponse<UserResponse> findByUsername(@PathVariable String username){
+    public ApplicationResponse<UserResponse> findByUsername(@PathVariable String username, WebRequest webRequest){
         UserResponse userResponse = userService.findUserByUsername(username);
+        if (webRequest.checkNotModified(ETags.of(userResponse))) {
+            return null;
+        }
         return ApplicationResponse.<UserResponse>builder()
                 .httpStatus(HttpStatus.OK)
                 .data(userResponse)
                 .build();
     }
 
+    /**
+     * Retrieves many users by their IDs or usernames in one call.
+     * @param batchGetUsersRequest the request object holding either the IDs or the usernames of the users to retrieve
+     * @return an ApplicationResponse containing the HTTP status, the user responses keyed by the requested ID or username,
+     * and the IDs or usernames matching no user
+     * @throws org.springframework.web.bind.MethodArgumentNotValidException if both or neither of ids and usernames are given
+     * @throws IllegalArgumentException if more users are requested than the configured maximum
+     */
+    @PostMapping("/batch-get")
+    public ApplicationResponse<BatchGetResponse<UserResponse>> batchGet(@RequestBody @Valid BatchGetUsersRequest batchGetUsersRequest){
+        BatchGetResponse<UserResponse> userResponses = userService.findUsers(batchGetUsersRequest);
+        return ApplicationResponse.<BatchGetResponse<UserResponse>>builder()
+                .httpStatus(HttpStatus.OK)
+                .data(userResponses)
+                .build();
+    }
+
     /**
      * Registers a new user.
      * @param userRequest the request object containing the user information to be registered
@@ -80,6 +194,25 @@ public class UserController {
                 .build();
     }
 
+    /**
+     * Imports users in bulk.
+     * The payload is either a JSON array or newline-delimited JSON of registration requests,
+     * and is read row by row rather than buffered whole.
+     * @param payload the request body
+     * @return an ApplicationResponse containing the HTTP status and the outcome of every row
+     * @throws IOException if the request body cannot be read
+     */
+    @PreAuthorize("hasAuthority('ADMIN')")
+    @PostMapping(value = "/import", consumes = {MediaType.APPLICATION_JSON_VALUE, APPLICATION_NDJSON_VALUE})
+    public ApplicationResponse<UserImportResponse> importUsers(InputStream payload) throws IOException {
+        try (MappingIterator<CreateUserRequest> rows = objectMapper.readerFor(CreateUserRequest.class).readValues(payload)) {
+            return ApplicationResponse.<UserImportResponse>builder()
+                    .httpStatus(HttpStatus.OK)
+                    .data(userImportService.importUsers(rows))
+                    .build();
+        }
+    }
+
     /**
      * Updates a user.
      * @param userRequest the request object containing the updated user information
@@ -0,0 +1,30 @@
+package com.devsinc.userservice.dtos.request;
+
+import jakarta.validation.constraints.AssertTrue;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.util.List;
+
+@Getter
+@Setter
+@NoArgsConstructor
+public class BatchGetUsersRequest {
+
+    /**
+     * The IDs of the users to retrieve, when looking users up by ID.
+     */
+    private List<String> ids;
+
+    /**
+     * The usernames of the users to retrieve, when looking users up by username.
+     */
+    private List<String> usernames;
+
+    @AssertTrue(message = "Exactly one of ids or usernames must be specified!")
+    public boolean isEitherIdsOrUsernames() {
+        return (ids == null) != (usernames == null);
+    }
+
+}
@@ -1,5 +1,6 @@
 package com.devsinc.userservice.dtos.request;
 
+import jakarta.validation.constraints.NotBlank;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
@@ -12,6 +13,7 @@ public class CreateRoleRequest {
     /**
      * The name of the role.
      */
+    @NotBlank(message = "Role Name must be provided!")
     private String roleName;
 
 }
@@ -0,0 +1,19 @@
+package com.devsinc.userservice.dtos.request;
+
+import jakarta.validation.constraints.NotBlank;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+@Getter
+@Setter
+@NoArgsConstructor
+public class SignInRequest {
+
+    @NotBlank(message = "Username must be provided!")
+    private String username;
+
+    @NotBlank(message = "Password must be provided!")
+    private String password;
+
+}
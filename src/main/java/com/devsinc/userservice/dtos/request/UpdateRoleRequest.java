@@ -0,0 +1,16 @@
+package com.devsinc.userservice.dtos.request;
+
+import jakarta.validation.constraints.NotEmpty;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+@Getter
+@Setter
+@NoArgsConstructor
+public class UpdateRoleRequest extends CreateRoleRequest{
+
+    @NotEmpty(message = "Role Id must be specified!")
+    private String id;
+
+}
@@ -13,4 +13,10 @@ public class UpdateUserRequest extends UserRequest{
     @NotEmpty(message = "User Id must be specified!")
     private String id;
 
+    /**
+     * The version of the user the changes are based on. When given, the update fails with 409
+     * if the user has been modified since.
+     */
+    private Long version;
+
 }
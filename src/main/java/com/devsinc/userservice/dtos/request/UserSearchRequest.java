@@ -0,0 +1,50 @@
+package com.devsinc.userservice.dtos.request;
+
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * Query parameters of GET /user/search. Text filters are case-insensitive, and all given filters must match.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+public class UserSearchRequest {
+
+    /**
+     * Start of the usernames to match.
+     */
+    private String usernamePrefix;
+
+    /**
+     * Start of the emails to match.
+     */
+    private String emailPrefix;
+
+    /**
+     * Start of the first or last names to match.
+     */
+    private String name;
+
+    /**
+     * Name of a role the users must hold.
+     */
+    private String role;
+
+    /**
+     * The sort order: username or email, optionally followed by ",desc". Defaults to username ascending.
+     */
+    private String sort;
+
+    /**
+     * The cursor returned with the previous page, omitted for the first page.
+     */
+    private String cursor;
+
+    /**
+     * The page size, capped at the configured maximum.
+     */
+    private Integer size;
+
+}
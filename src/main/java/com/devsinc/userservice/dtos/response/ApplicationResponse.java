@@ -15,4 +15,3 @@ public class ApplicationResponse<T> {
     private T data;
 
 }
-p
\ No newline at end of file
@@ -0,0 +1,55 @@
+package com.devsinc.userservice.dtos.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class BatchGetResponse<T> {
+
+    /**
+     * The items found, keyed by the requested key, in request order.
+     */
+    private Map<String, T> found;
+
+    /**
+     * The requested keys that matched no item, in request order.
+     */
+    private List<String> missing;
+
+    /**
+     * Matches the items read for a batch of keys back to the keys.
+     * @param keys the requested keys, without duplicates
+     * @param items the items read for the keys, in any order
+     * @param keyOf the function returning the key of an item
+     * @return the BatchGetResponse of the keys
+     */
+    public static <T> BatchGetResponse<T> of(Collection<String> keys, Collection<T> items, Function<T, String> keyOf) {
+        Map<String, T> itemsByKey = new HashMap<>();
+        items.forEach(item -> itemsByKey.put(keyOf.apply(item), item));
+        Map<String, T> found = new LinkedHashMap<>();
+        List<String> missing = new ArrayList<>();
+        for (String key : keys) {
+            T item = itemsByKey.get(key);
+            if (item == null) {
+                missing.add(key);
+            } else {
+                found.put(key, item);
+            }
+        }
+        return new BatchGetResponse<>(found, missing);
+    }
+
+}
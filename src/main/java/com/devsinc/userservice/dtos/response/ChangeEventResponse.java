@@ -0,0 +1,41 @@
+package com.devsinc.userservice.dtos.response;
+
+import com.devsinc.userservice.models.OutboxEventType;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.Instant;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class ChangeEventResponse {
+
+    /**
+     * The position of the change in the feed, usable as the since token to resume right after it.
+     */
+    private long sequence;
+
+    private OutboxEventType type;
+
+    /**
+     * The ID of the changed user or role.
+     */
+    private String aggregateId;
+
+    private Instant occurredAt;
+
+    /**
+     * The user as it is after the change, or as it was deleted. Null for role changes.
+     */
+    private UserResponse user;
+
+    /**
+     * The role as it is after the change. Null for user changes.
+     */
+    private RoleResponse role;
+
+}
@@ -0,0 +1,32 @@
+package com.devsinc.userservice.dtos.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.util.List;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class ChangeFeedResponse {
+
+    /**
+     * The changes published after the requested token, in feed order, which for any one user or role
+     * is the order of its changes.
+     */
+    private List<ChangeEventResponse> changes;
+
+    /**
+     * The token to pass as since on the next request. Unchanged when there are no new changes.
+     */
+    private String nextToken;
+
+    /**
+     * Whether more changes can be fetched right away with the next token.
+     */
+    private boolean hasMore;
+
+}
@@ -0,0 +1,26 @@
+package com.devsinc.userservice.dtos.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.util.List;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class CursorPageResponse<T> {
+
+    /**
+     * The items of the current page, in cursor order.
+     */
+    private List<T> items;
+
+    /**
+     * The cursor to pass to fetch the next page, or null if this is the last page.
+     */
+    private String nextCursor;
+
+}
@@ -13,4 +13,6 @@ public class RoleResponse {
 
     private String roleName;
 
+    private long version;
+
 }
@@ -0,0 +1,36 @@
+package com.devsinc.userservice.dtos.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.util.List;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class UserImportResponse {
+
+    /**
+     * The number of rows read from the payload.
+     */
+    private int total;
+
+    /**
+     * The number of users inserted.
+     */
+    private int imported;
+
+    /**
+     * The number of rows rejected.
+     */
+    private int failed;
+
+    /**
+     * The outcome of every row, in payload order.
+     */
+    private List<UserImportResult> results;
+
+}
@@ -0,0 +1,50 @@
+package com.devsinc.userservice.dtos.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.util.List;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class UserImportResult {
+
+    public enum Status {
+        IMPORTED,
+        FAILED
+    }
+
+    /**
+     * The zero based position of the row in the payload.
+     */
+    private int index;
+
+    /**
+     * The username of the row, if it could be read.
+     */
+    private String username;
+
+    /**
+     * The ID of the created user, or null if the row was rejected.
+     */
+    private String id;
+
+    private Status status;
+
+    /**
+     * The reasons the row was rejected, empty if it was imported.
+     */
+    private List<String> errors;
+
+    public static UserImportResult imported(int index, String username, String id) {
+        return new UserImportResult(index, username, id, Status.IMPORTED, List.of());
+    }
+
+    public static UserImportResult failed(int index, String username, List<String> errors) {
+        return new UserImportResult(index, username, null, Status.FAILED, errors);
+    }
+}
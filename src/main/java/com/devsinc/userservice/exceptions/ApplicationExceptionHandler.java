@@ -3,19 +3,27 @@ package com.devsinc.userservice.exceptions;
 import com.devsinc.userservice.dtos.response.ApplicationResponse;
 import com.fasterxml.jackson.databind.exc.InvalidFormatException;
 import org.springframework.beans.TypeMismatchException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.AuthenticationException;
+import org.springframework.validation.BindingResult;
 import org.springframework.validation.FieldError;
 import org.springframework.validation.ObjectError;
 import org.springframework.web.HttpMediaTypeNotSupportedException;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
 import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.ResponseStatus;
+import org.springframework.web.bind.support.WebExchangeBindException;
 import org.springframework.web.method.annotation.MethodArgumentTypeMismatchException;
 
 import java.util.ArrayList;
 import java.util.List;
 import java.util.NoSuchElementException;
 import java.util.Objects;
+import java.util.concurrent.RejectedExecutionException;
 
 @RestControllerAdvice
 public class ApplicationExceptionHandler {
@@ -32,19 +40,12 @@ public class ApplicationExceptionHandler {
 
     @ExceptionHandler(MethodArgumentNotValidException.class)
     public ApplicationResponse<ExceptionMessage> handleMethodArgumentNotValid(MethodArgumentNotValidException e){
-        ExceptionMessage exceptionMessage = new ExceptionMessage();
-        List<String> errors = new ArrayList<>();
-        for (final FieldError error : e.getBindingResult().getFieldErrors()) {
-            errors.add(error.getField() + ": " + error.getDefaultMessage());
-        }
-        for (final ObjectError error : e.getBindingResult().getGlobalErrors()) {
-            errors.add(error.getObjectName() + ": " + error.getDefaultMessage());
-        }
-        exceptionMessage.setErrors(errors);
-        return ApplicationResponse.<ExceptionMessage>builder()
-                .exceptionMessages(exceptionMessage)
-                .httpStatus(HttpStatus.BAD_REQUEST)
-                .build();
+        return bindingErrors(e.getBindingResult());
+    }
+
+    @ExceptionHandler(WebExchangeBindException.class)
+    public ApplicationResponse<ExceptionMessage> handleWebExchangeBind(WebExchangeBindException e){
+        return bindingErrors(e.getBindingResult());
     }
 
     @ExceptionHandler(TypeMismatchException.class)
@@ -95,6 +96,55 @@ public class ApplicationExceptionHandler {
                 .build();
     }
 
+    @ExceptionHandler(AuthenticationException.class)
+    public ApplicationResponse<ExceptionMessage> authenticationException(AuthenticationException e){
+        return ApplicationResponse.<ExceptionMessage>builder()
+                .httpStatus(HttpStatus.UNAUTHORIZED)
+                .exceptionMessages(new ExceptionMessage(List.of(e.getMessage())))
+                .build();
+    }
+
+    /**
+     * Writes conditional on a version that is no longer current are answered with a real 409,
+     * so that clients can reload the resource and retry.
+     */
+    @ExceptionHandler(OptimisticLockingFailureException.class)
+    @ResponseStatus(HttpStatus.CONFLICT)
+    public ApplicationResponse<ExceptionMessage> optimisticLockingFailure(OptimisticLockingFailureException e){
+        return ApplicationResponse.<ExceptionMessage>builder()
+                .httpStatus(HttpStatus.CONFLICT)
+                .exceptionMessages(new ExceptionMessage(List.of(e.getMessage())))
+                .build();
+    }
+
+    /**
+     * Rejections of the bounded password hashing pool are answered with a real 503,
+     * so that clients and load balancers back off instead of retrying immediately.
+     */
+    @ExceptionHandler({ PasswordHashingRejectedException.class, RejectedExecutionException.class })
+    @ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+    public ApplicationResponse<ExceptionMessage> rejectedExecution(RuntimeException e){
+        String error = e instanceof PasswordHashingRejectedException ? e.getMessage() : "Server is busy, please retry later";
+        return ApplicationResponse.<ExceptionMessage>builder()
+                .httpStatus(HttpStatus.SERVICE_UNAVAILABLE)
+                .exceptionMessages(new ExceptionMessage(List.of(error)))
+                .build();
+    }
+
+    /**
+     * Throttled registrations and logins are answered with a real 429 and a Retry-After header.
+     */
+    @ExceptionHandler(RateLimitExceededException.class)
+    public ResponseEntity<ApplicationResponse<ExceptionMessage>> rateLimitExceeded(RateLimitExceededException e){
+        long retryAfterSeconds = Math.max(1, (e.getRetryAfter().toMillis() + 999) / 1000);
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, Long.toString(retryAfterSeconds))
+                .body(ApplicationResponse.<ExceptionMessage>builder()
+                        .httpStatus(HttpStatus.TOO_MANY_REQUESTS)
+                        .exceptionMessages(new ExceptionMessage(List.of(e.getMessage())))
+                        .build());
+    }
+
     @ExceptionHandler({ Exception.class })
     public ApplicationResponse<ExceptionMessage> handleAll(Exception ex) {
         ExceptionMessage exceptionMessage = new ExceptionMessage(List.of(ex.getLocalizedMessage()));
@@ -103,4 +153,20 @@ public class ApplicationExceptionHandler {
                 .exceptionMessages(exceptionMessage)
                 .build();
     }
+
+    private ApplicationResponse<ExceptionMessage> bindingErrors(BindingResult bindingResult){
+        ExceptionMessage exceptionMessage = new ExceptionMessage();
+        List<String> errors = new ArrayList<>();
+        for (final FieldError error : bindingResult.getFieldErrors()) {
+            errors.add(error.getField() + ": " + error.getDefaultMessage());
+        }
+        for (final ObjectError error : bindingResult.getGlobalErrors()) {
+            errors.add(error.getObjectName() + ": " + error.getDefaultMessage());
+        }
+        exceptionMessage.setErrors(errors);
+        return ApplicationResponse.<ExceptionMessage>builder()
+                .exceptionMessages(exceptionMessage)
+                .httpStatus(HttpStatus.BAD_REQUEST)
+                .build();
+    }
 }
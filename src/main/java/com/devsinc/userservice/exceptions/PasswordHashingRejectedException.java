@@ -0,0 +1,18 @@
+package com.devsinc.userservice.exceptions;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**
+ * Thrown when the password hashing queue is full.
+ * Annotated with its status so that it is also answered with 503 when raised outside a controller,
+ * such as during reactive HTTP Basic authentication.
+ */
+@ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+public class PasswordHashingRejectedException extends RuntimeException {
+
+    public PasswordHashingRejectedException(Throwable cause) {
+        super("Too many password hashing requests, please retry later", cause);
+    }
+
+}
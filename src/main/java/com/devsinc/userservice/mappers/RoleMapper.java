@@ -4,6 +4,7 @@ import com.devsinc.userservice.dtos.request.CreateRoleRequest;
 import com.devsinc.userservice.dtos.response.RoleResponse;
 import com.devsinc.userservice.models.Role;
 import org.mapstruct.Mapper;
+import org.mapstruct.Mapping;
 import org.mapstruct.factory.Mappers;
 
 @Mapper
@@ -20,9 +21,13 @@ public interface RoleMapper {
 
     /**
      * Maps a CreateRoleRequest object to a Role object.
+     * The ID and version are assigned on insert, and the pending events set by the caller.
      * @param roleRequest The CreateRoleRequest object to be mapped.
      * @return The mapped Role object.
      */
+    @Mapping(target = "id", ignore = true)
+    @Mapping(target = "version", ignore = true)
+    @Mapping(target = "pendingEvents", ignore = true)
     Role toEntity(CreateRoleRequest roleRequest);
 
 }
@@ -1,11 +1,10 @@
 package com.devsinc.userservice.mappers;
 
 import com.devsinc.userservice.dtos.request.CreateUserRequest;
-import com.devsinc.userservice.dtos.request.UpdateUserRequest;
 import com.devsinc.userservice.dtos.response.UserResponse;
 import com.devsinc.userservice.models.User;
 import org.mapstruct.Mapper;
-import org.mapstruct.MappingTarget;
+import org.mapstruct.Mapping;
 import org.mapstruct.factory.Mappers;
 
 @Mapper
@@ -22,17 +21,20 @@ public interface UserMapper {
 
     /**
      * Maps a CreateUserRequest object to a User object.
+     * The request has no first or last name. The ID and version are assigned on insert, and the roles, active flag
+     * and pending events set by the caller.
      * @param userRequest The CreateUserRequest object to be mapped.
      * @return The mapped User object.
      */
+    @Mapping(target = "id", ignore = true)
+    @Mapping(target = "firstName", ignore = true)
+    @Mapping(target = "lastName", ignore = true)
+    @Mapping(target = "roles", ignore = true)
+    @Mapping(target = "version", ignore = true)
+    @Mapping(target = "active", ignore = true)
+    @Mapping(target = "deletedAt", ignore = true)
+    @Mapping(target = "pendingEvents", ignore = true)
+    @Mapping(target = "authorities", ignore = true)
     User toModel(CreateUserRequest userRequest);
 
-    /**
-     * Maps an UpdateUserRequest object to an existing User object.
-     * @param userRequest The UpdateUserRequest object to be mapped.
-     * @param user        The existing User object to be updated.
-     * @return The updated User object.
-     */
-    User toModel(UpdateUserRequest userRequest, @MappingTarget User user);
-
 }
@@ -0,0 +1,51 @@
+package com.devsinc.userservice.metrics;
+
+import com.mongodb.DBRef;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.bson.Document;
+import org.springframework.data.mongodb.MongoDatabaseFactory;
+import org.springframework.data.mongodb.core.convert.DefaultDbRefResolver;
+
+import java.util.List;
+
+/**
+ * DBRef resolver counting the references it loads under mongodb.dbref.resolutions, tagged by collection.
+ * User documents written before roles were embedded still hold DBRefs, each one costing a round trip on read
+ * until the embedded roles migration has rewritten them.
+ */
+public class MeteredDbRefResolver extends DefaultDbRefResolver {
+
+    private final MeterRegistry meterRegistry;
+
+    /**
+     * Constructs a MeteredDbRefResolver.
+     * @param mongoDatabaseFactory the factory references are loaded through
+     * @param meterRegistry the registry the counters are published to
+     */
+    public MeteredDbRefResolver(MongoDatabaseFactory mongoDatabaseFactory, MeterRegistry meterRegistry) {
+        super(mongoDatabaseFactory);
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public Document fetch(DBRef dbRef) {
+        resolutions(dbRef.getCollectionName()).increment();
+        return super.fetch(dbRef);
+    }
+
+    @Override
+    public List<Document> bulkFetch(List<DBRef> refs) {
+        if (!refs.isEmpty()) {
+            resolutions(refs.get(0).getCollectionName()).increment(refs.size());
+        }
+        return super.bulkFetch(refs);
+    }
+
+    private Counter resolutions(String collection) {
+        return Counter.builder("mongodb.dbref.resolutions")
+                .description("References loaded to resolve DBRefs")
+                .tag("collection", collection)
+                .register(meterRegistry);
+    }
+}
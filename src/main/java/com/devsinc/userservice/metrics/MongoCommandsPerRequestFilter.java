@@ -0,0 +1,67 @@
+package com.devsinc.userservice.metrics;
+
+import com.mongodb.event.CommandListener;
+import com.mongodb.event.CommandStartedEvent;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+
+/**
+ * Records how many Mongo commands each HTTP request sends, under http.server.requests.mongo.commands
+ * tagged by method and URI template like http.server.requests.
+ * Registered both as a servlet filter and as a Mongo command listener: the synchronous driver publishes
+ * command events on the thread running the command, which is the request thread unless the work was handed off.
+ */
+public class MongoCommandsPerRequestFilter extends OncePerRequestFilter implements CommandListener {
+
+    private static final ThreadLocal<int[]> COMMANDS = new ThreadLocal<>();
+
+    private final MeterRegistry meterRegistry;
+
+    /**
+     * Constructs a MongoCommandsPerRequestFilter.
+     * @param meterRegistry the registry the summaries are published to
+     */
+    public MongoCommandsPerRequestFilter(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public void commandStarted(CommandStartedEvent event) {
+        int[] commands = COMMANDS.get();
+        if (commands != null) {
+            commands[0]++;
+        }
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        int[] commands = new int[1];
+        COMMANDS.set(commands);
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            COMMANDS.remove();
+            DistributionSummary.builder("http.server.requests.mongo.commands")
+                    .description("Mongo commands sent while handling a request")
+                    .baseUnit("commands")
+                    .tag("method", request.getMethod())
+                    .tag("uri", uri(request))
+                    .register(meterRegistry)
+                    .record(commands[0]);
+        }
+    }
+
+    private static String uri(HttpServletRequest request) {
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        return pattern != null ? pattern.toString() : "UNKNOWN";
+    }
+}
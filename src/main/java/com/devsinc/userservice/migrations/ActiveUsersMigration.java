@@ -0,0 +1,106 @@
+package com.devsinc.userservice.migrations;
+
+import com.devsinc.userservice.models.User;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.IndexInfo;
+import org.springframework.data.mongodb.core.index.IndexOperations;
+import org.springframework.data.mongodb.core.index.MongoPersistentEntityIndexResolver;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Upgrade of the users written before soft deletion: marks them as active, so the partial unique indexes on username
+ * and email cover them, then replaces the unique indexes on every user with the indexes declared on {@link User}.
+ * The replaced indexes have the key patterns of the *_lookup indexes, which the server refuses to create alongside them,
+ * so the upgrade runs synchronously while the application context is created, before the index initializer runs and
+ * before any request is served. Once done, it is one empty read and one listing of the indexes per startup.
+ * Documents are processed in batches ordered by _id, each batch being one read and one unordered bulk write.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "user_service.app.migrations.active-users.enabled", havingValue = "true", matchIfMissing = true)
+public class ActiveUsersMigration implements InitializingBean {
+
+    /**
+     * The unique indexes on username and email before soft deletion, over every user.
+     */
+    private static final Set<String> REPLACED_INDEXES = Set.of("username", "email");
+
+    private final MongoTemplate mongoTemplate;
+
+    private final int batchSize;
+
+    public ActiveUsersMigration(MongoTemplate mongoTemplate,
+                                @Value("${user_service.app.migrations.active-users.batch-size:500}") int batchSize) {
+        this.mongoTemplate = mongoTemplate;
+        this.batchSize = batchSize;
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        migrate();
+    }
+
+    /**
+     * Marks every user neither deleted nor marked yet as active, then drops the replaced indexes, if any are left,
+     * and creates their replacements right away, so uniqueness holds even when the index initializer is disabled.
+     * @return the number of marked user documents
+     */
+    public long migrate() {
+        String collection = mongoTemplate.getCollectionName(User.class);
+        long migrated = 0;
+        Object lastId = null;
+        while (true) {
+            Criteria criteria = unmarked();
+            if (lastId != null) {
+                criteria = criteria.and("_id").gt(lastId);
+            }
+            Query batchQuery = Query.query(criteria).with(Sort.by("_id")).limit(batchSize);
+            batchQuery.fields().include("_id");
+            List<Document> batch = mongoTemplate.find(batchQuery, Document.class, collection);
+            if (batch.isEmpty()) {
+                break;
+            }
+            BulkOperations bulkOperations = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, User.class);
+            for (Document user : batch) {
+                // Only touch users that were not deleted in the meantime.
+                bulkOperations.updateOne(Query.query(unmarked().and("_id").is(user.get("_id"))), Update.update("active", true));
+            }
+            migrated += bulkOperations.execute().getModifiedCount();
+            lastId = batch.get(batch.size() - 1).get("_id");
+            log.info("Active users migration marked {} user documents so far", migrated);
+        }
+        IndexOperations indexOperations = mongoTemplate.indexOps(User.class);
+        boolean replaced = false;
+        for (IndexInfo index : indexOperations.getIndexInfo()) {
+            if (REPLACED_INDEXES.contains(index.getName())) {
+                indexOperations.dropIndex(index.getName());
+                replaced = true;
+                log.info("Active users migration dropped the {} index", index.getName());
+            }
+        }
+        if (replaced) {
+            new MongoPersistentEntityIndexResolver(mongoTemplate.getConverter().getMappingContext())
+                    .resolveIndexFor(User.class)
+                    .forEach(index -> log.info("Active users migration ensured the {} index", indexOperations.ensureIndex(index)));
+        }
+        log.info("Active users migration finished, {} user documents marked", migrated);
+        return migrated;
+    }
+
+    private static Criteria unmarked() {
+        return Criteria.where("active").exists(false).and("deletedAt").is(null);
+    }
+}
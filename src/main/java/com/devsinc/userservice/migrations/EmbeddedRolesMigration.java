@@ -0,0 +1,119 @@
+package com.devsinc.userservice.migrations;
+
+import com.devsinc.userservice.caches.RoleCatalog;
+import com.devsinc.userservice.caches.RoleMemberCounts;
+import com.devsinc.userservice.models.RoleRef;
+import com.devsinc.userservice.models.User;
+import com.mongodb.DBRef;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Backfill job rewriting user documents whose roles are still stored as DBRefs
+ * into the embedded role reference format.
+ * Documents are processed in batches ordered by _id, each batch being one read and one unordered bulk write.
+ * Legacy documents stay readable while the job runs, their DBRefs are simply resolved on load.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "user_service.app.migrations.embed-roles.enabled", havingValue = "true")
+public class EmbeddedRolesMigration {
+
+    private static final String LEGACY_ROLES = "roles.$ref";
+
+    private final MongoTemplate mongoTemplate;
+
+    private final RoleCatalog roleCatalog;
+
+    private final RoleMemberCounts memberCounts;
+
+    private final TaskExecutor taskExecutor;
+
+    private final int batchSize;
+
+    public EmbeddedRolesMigration(MongoTemplate mongoTemplate, RoleCatalog roleCatalog, RoleMemberCounts memberCounts,
+                                  TaskExecutor taskExecutor,
+                                  @Value("${user_service.app.migrations.embed-roles.batch-size:500}") int batchSize) {
+        this.mongoTemplate = mongoTemplate;
+        this.roleCatalog = roleCatalog;
+        this.memberCounts = memberCounts;
+        this.taskExecutor = taskExecutor;
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Starts the backfill in the background once the application is ready.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        taskExecutor.execute(this::migrate);
+    }
+
+    /**
+     * Rewrites every user document that still references its roles through DBRefs.
+     * Rewritten users only then count as members of their roles, so cached member counts are dropped afterwards.
+     * @return the number of rewritten user documents
+     */
+    public long migrate() {
+        String collection = mongoTemplate.getCollectionName(User.class);
+        long migrated = 0;
+        Object lastId = null;
+        while (true) {
+            Criteria criteria = Criteria.where(LEGACY_ROLES).exists(true);
+            if (lastId != null) {
+                criteria = criteria.and("_id").gt(lastId);
+            }
+            Query batchQuery = Query.query(criteria).with(Sort.by("_id")).limit(batchSize);
+            batchQuery.fields().include("roles");
+            List<Document> batch = mongoTemplate.find(batchQuery, Document.class, collection);
+            if (batch.isEmpty()) {
+                break;
+            }
+            BulkOperations bulkOperations = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, User.class);
+            for (Document user : batch) {
+                // Only touch documents that were not rewritten by a concurrent update in the meantime.
+                Query userQuery = Query.query(Criteria.where("_id").is(user.get("_id")).and(LEGACY_ROLES).exists(true));
+                bulkOperations.updateOne(userQuery, Update.update("roles", toRoleRefs(user)));
+            }
+            migrated += bulkOperations.execute().getModifiedCount();
+            lastId = batch.get(batch.size() - 1).get("_id");
+            log.info("Embedded roles migration rewrote {} user documents so far", migrated);
+        }
+        log.info("Embedded roles migration finished, {} user documents rewritten", migrated);
+        if (migrated > 0) {
+            memberCounts.invalidateAll();
+        }
+        return migrated;
+    }
+
+    private List<RoleRef> toRoleRefs(Document user) {
+        List<RoleRef> roleRefs = new ArrayList<>();
+        for (Object role : user.getList("roles", Object.class)) {
+            if (role instanceof DBRef dbRef) {
+                String roleId = String.valueOf(dbRef.getId());
+                roleCatalog.findById(roleId).map(RoleRef::of).ifPresentOrElse(
+                        roleRefs::add,
+                        () -> log.warn("Dropping reference to missing role {} from user {}", roleId, user.get("_id"))
+                );
+            } else if (role instanceof Document embedded) {
+                roleRefs.add(new RoleRef(embedded.getString("_id"), embedded.getString("roleName")));
+            }
+        }
+        return roleRefs;
+    }
+}
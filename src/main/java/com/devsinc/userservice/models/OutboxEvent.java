@@ -0,0 +1,60 @@
+package com.devsinc.userservice.models;
+
+import com.devsinc.userservice.dtos.response.RoleResponse;
+import com.devsinc.userservice.dtos.response.UserResponse;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.Instant;
+
+/**
+ * A published change to a user or role, moved to the outbox by the outbox relay from the {@link PendingEvent}s
+ * of the document it changed. Events of one user or role are published in the order of its changes,
+ * so consumers can apply them as they come; events of different users and roles are ordered by publication only.
+ * The outbox_sequence index serves the change feed, reading events by sequence. Events expire after seven days.
+ */
+@Document(collection = "outbox")
+@CompoundIndex(name = "outbox_sequence", def = "{ 'sequence': 1, '_id': 1 }")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class OutboxEvent {
+
+    @Id
+    private String id;
+
+    private OutboxEventType type;
+
+    /**
+     * The ID of the changed user or role.
+     */
+    private String aggregateId;
+
+    private Instant occurredAt;
+
+    /**
+     * The user as it is after the change, or as it was deleted. Null for role events.
+     */
+    private UserResponse user;
+
+    /**
+     * The role as it is after the change. Null for user events.
+     */
+    private RoleResponse role;
+
+    /**
+     * The position of the event in the change feed, assigned when the event is published.
+     */
+    private Long sequence;
+
+    @Indexed(name = "outbox_expiry", expireAfter = "7d")
+    private Instant publishedAt;
+
+}
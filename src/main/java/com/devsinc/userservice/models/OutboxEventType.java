@@ -0,0 +1,20 @@
+package com.devsinc.userservice.models;
+
+/**
+ * The kinds of change recorded in the outbox.
+ */
+public enum OutboxEventType {
+
+    USER_CREATED,
+
+    USER_UPDATED,
+
+    USER_PASSWORD_CHANGED,
+
+    USER_DELETED,
+
+    ROLE_CREATED,
+
+    ROLE_UPDATED
+
+}
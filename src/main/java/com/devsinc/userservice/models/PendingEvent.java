@@ -0,0 +1,44 @@
+package com.devsinc.userservice.models;
+
+import com.devsinc.userservice.dtos.response.RoleResponse;
+import com.devsinc.userservice.dtos.response.UserResponse;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import org.springframework.data.annotation.Id;
+
+import java.time.Instant;
+
+/**
+ * A change to a user or role not yet published, embedded in the document it changed by the same write as the change,
+ * so the change and its event are stored atomically. The outbox relay moves it to the outbox as an {@link OutboxEvent}.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class PendingEvent {
+
+    /**
+     * Generated with the change, and kept as the ID of the published event so a move is never applied twice.
+     */
+    @Id
+    private String id;
+
+    private OutboxEventType type;
+
+    private Instant occurredAt;
+
+    /**
+     * The user as it is after the change. Null for role events and deletions,
+     * whose payload is the tombstone the relay reads.
+     */
+    private UserResponse user;
+
+    /**
+     * The role as it is after the change. Null for user events.
+     */
+    private RoleResponse role;
+
+}
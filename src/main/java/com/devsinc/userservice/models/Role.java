@@ -5,9 +5,18 @@ import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.Document;
 
+import java.util.List;
+
+/**
+ * The partial pending_events index holds only roles with events not yet moved to the outbox, which the relay reads.
+ */
 @Document(collection = "roles")
+@CompoundIndex(name = "pending_events", def = "{ 'pendingEvents._id': 1 }",
+        partialFilter = "{ 'pendingEvents._id': { '$exists': true } }")
 @Getter
 @Setter
 @NoArgsConstructor
@@ -17,6 +26,17 @@ public class Role {
     @Id
     private String id;
 
+    @Indexed(unique = true)
     private String roleName;
 
+    /**
+     * Incremented on every write of the role, and used as the ETag of its representations.
+     */
+    private long version;
+
+    /**
+     * The changes of the role not yet published, written by the same insert or update as the change.
+     */
+    private List<PendingEvent> pendingEvents;
+
 }
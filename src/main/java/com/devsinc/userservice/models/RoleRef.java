@@ -0,0 +1,32 @@
+package com.devsinc.userservice.models;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * A role embedded in a user document.
+ * Carries the role name alongside the role ID, so authorities can be built
+ * without dereferencing the roles collection.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class RoleRef {
+
+    private String id;
+
+    private String roleName;
+
+    /**
+     * Creates an embedded reference to the given role.
+     * @param role the role to reference
+     * @return the embedded role reference
+     */
+    public static RoleRef of(Role role) {
+        return new RoleRef(role.getId(), role.getRoleName());
+    }
+
+}
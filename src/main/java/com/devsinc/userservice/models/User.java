@@ -5,45 +5,106 @@ import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
 import org.springframework.data.annotation.Id;
-import org.springframework.data.mongodb.core.annotation.Collation;
-import org.springframework.data.mongodb.core.mapping.DBRef;
+import org.springframework.data.annotation.Version;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.CompoundIndexes;
+import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.Document;
 import org.springframework.data.mongodb.core.mapping.MongoId;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
 
+import java.time.Instant;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
 
+/**
+ * Searches run with the case-insensitive {@link #SEARCH_COLLATION}, and are served by the compound *_search indexes,
+ * which share it: each ends with _id so that keyset pagination on (sort field, _id) is a single index range.
+ * The multikey role_members index serves the members of a role, by ID of the embedded role references, paged on _id.
+ * Deleted users are kept as tombstones, with {@link #deletedAt} set, until purged; the repository queries exclude them.
+ * Their lookups by username and email do not imply the filter of the partial unique indexes, so the *_lookup indexes serve them.
+ * The partial pending_events index holds only users with events not yet moved to the outbox, which the relay reads.
+ */
 @Document(collection = "user")
+@CompoundIndexes({
+        @CompoundIndex(name = "username_search", def = "{ 'username': 1, '_id': 1 }", collation = User.SEARCH_COLLATION),
+        @CompoundIndex(name = "email_search", def = "{ 'email': 1, '_id': 1 }", collation = User.SEARCH_COLLATION),
+        @CompoundIndex(name = "first_name_search", def = "{ 'firstName': 1, '_id': 1 }", collation = User.SEARCH_COLLATION),
+        @CompoundIndex(name = "last_name_search", def = "{ 'lastName': 1, '_id': 1 }", collation = User.SEARCH_COLLATION),
+        @CompoundIndex(name = "role_search", def = "{ 'roles.roleName': 1, 'username': 1, '_id': 1 }", collation = User.SEARCH_COLLATION),
+        @CompoundIndex(name = "username_lookup", def = "{ 'username': 1 }"),
+        @CompoundIndex(name = "email_lookup", def = "{ 'email': 1 }"),
+        @CompoundIndex(name = "role_members", def = "{ 'roles._id': 1, '_id': 1 }"),
+        @CompoundIndex(name = "pending_events", def = "{ 'pendingEvents._id': 1 }",
+                partialFilter = "{ 'pendingEvents._id': { '$exists': true } }")
+})
 @Getter
 @Setter
 @AllArgsConstructor
 @NoArgsConstructor
 public class User implements UserDetails {
 
+    /**
+     * The unique indexes on username and email hold active users only, so those of a deleted user can be registered again.
+     */
+    public static final String USERNAME_INDEX = "active_username";
+
+    public static final String EMAIL_INDEX = "active_email";
+
+    public static final String ACTIVE_USERS = "{ 'active': true }";
+
+    public static final String SEARCH_COLLATION = "{ 'locale': 'en', 'strength': 2 }";
+
     @Id
     private String id;
 
+    @Indexed(name = USERNAME_INDEX, unique = true, partialFilter = ACTIVE_USERS)
     private String username;
 
     private String firstName;
 
     private String lastName;
 
+    @Indexed(name = EMAIL_INDEX, unique = true, partialFilter = ACTIVE_USERS)
     private String email;
 
     private String password;
 
-    @DBRef
-    private List<Role> roles;
+    private List<RoleRef> roles;
+
+    /**
+     * Incremented on every write of the user, used for optimistic locking and as the ETag of its representations.
+     * Missing from documents written before it was introduced, which read as version zero.
+     */
+    @Version
+    private long version;
+
+    /**
+     * True from the creation of the user until its deletion, which unsets it.
+     * Missing from users written before soft deletion until the active users migration backfills it.
+     */
+    private Boolean active;
+
+    /**
+     * When the user was deleted, or null while it is not. Tombstoned users keep their username and email until purged,
+     * without holding them.
+     * Only tombstones are in the sparse index, which the purge reads them from in deletion order.
+     */
+    @Indexed(name = "deleted_users", sparse = true)
+    private Instant deletedAt;
+
+    /**
+     * The changes of the user not yet published, written by the same insert or update as the change.
+     */
+    private List<PendingEvent> pendingEvents;
 
     @Override
     public Collection<? extends GrantedAuthority> getAuthorities() {
         List<GrantedAuthority> authorities = new ArrayList<>();
-        for (Role role : roles) {
+        for (RoleRef role : roles) {
             authorities.add(new SimpleGrantedAuthority(role.getRoleName()));
         }
         return authorities;
@@ -0,0 +1,17 @@
+package com.devsinc.userservice.repositories;
+
+import com.devsinc.userservice.dtos.response.ChangeEventResponse;
+import com.devsinc.userservice.models.OutboxEvent;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.mongodb.repository.MongoRepository;
+
+import java.util.List;
+
+/**
+ * Methods returning ChangeEventResponse are DTO projections, reading only the fields ChangeEventResponse declares.
+ */
+public interface OutboxEventRepository extends MongoRepository<OutboxEvent, String> {
+
+    List<ChangeEventResponse> findBySequenceGreaterThanOrderBySequenceAsc(long sequence, Pageable pageable);
+
+}
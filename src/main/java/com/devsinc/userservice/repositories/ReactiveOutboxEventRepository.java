@@ -0,0 +1,16 @@
+package com.devsinc.userservice.repositories;
+
+import com.devsinc.userservice.dtos.response.ChangeEventResponse;
+import com.devsinc.userservice.models.OutboxEvent;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.mongodb.repository.ReactiveMongoRepository;
+import reactor.core.publisher.Flux;
+
+/**
+ * Methods returning ChangeEventResponse are DTO projections, reading only the fields ChangeEventResponse declares.
+ */
+public interface ReactiveOutboxEventRepository extends ReactiveMongoRepository<OutboxEvent, String> {
+
+    Flux<ChangeEventResponse> findBySequenceGreaterThanOrderBySequenceAsc(long sequence, Pageable pageable);
+
+}
@@ -0,0 +1,11 @@
+package com.devsinc.userservice.repositories;
+
+import com.devsinc.userservice.models.Role;
+import org.springframework.data.mongodb.repository.ReactiveMongoRepository;
+import reactor.core.publisher.Mono;
+
+public interface ReactiveRoleRepository extends ReactiveMongoRepository<Role, String> {
+
+    Mono<Role> findByRoleName(String roleName);
+
+}
@@ -0,0 +1,50 @@
+package com.devsinc.userservice.repositories;
+
+import com.devsinc.userservice.dtos.response.UserResponse;
+import com.devsinc.userservice.models.User;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.mongodb.repository.Meta;
+import org.springframework.data.mongodb.repository.Query;
+import org.springframework.data.mongodb.repository.ReactiveMongoRepository;
+import org.springframework.data.mongodb.repository.Update;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.Collection;
+
+/**
+ * Methods returning UserResponse are DTO projections, reading only the fields UserResponse declares.
+ * Every query excludes deleted users, which are kept as tombstones until purged.
+ */
+public interface ReactiveUserRepository extends ReactiveMongoRepository<User, String> {
+
+    Mono<User> findByIdAndDeletedAtIsNull(String id);
+
+    Mono<User> findByUsernameAndDeletedAtIsNull(String username);
+
+    Mono<UserResponse> findResponseByIdAndDeletedAtIsNull(String id);
+
+    Mono<UserResponse> findResponseByUsernameAndDeletedAtIsNull(String username);
+
+    Flux<UserResponse> findResponsesByIdInAndDeletedAtIsNull(Collection<String> ids);
+
+    Flux<UserResponse> findResponsesByUsernameInAndDeletedAtIsNull(Collection<String> usernames);
+
+    Flux<UserResponse> findAllByDeletedAtIsNullOrderByIdAsc(Pageable pageable);
+
+    Flux<UserResponse> findByIdGreaterThanAndDeletedAtIsNullOrderByIdAsc(String id, Pageable pageable);
+
+    Flux<UserResponse> findByRolesIdAndDeletedAtIsNullOrderByIdAsc(String roleId, Pageable pageable);
+
+    Flux<UserResponse> findByRolesIdAndIdGreaterThanAndDeletedAtIsNullOrderByIdAsc(String roleId, String id, Pageable pageable);
+
+    Mono<Long> countByRolesIdAndDeletedAtIsNull(String roleId);
+
+    @Meta(cursorBatchSize = 500)
+    Flux<UserResponse> streamAllByDeletedAtIsNullOrderByIdAsc();
+
+    @Query("{ '_id': ?0, 'password': ?1, 'deletedAt': null }")
+    @Update("{ '$set': { 'password': ?2 }, '$inc': { 'version': 1 } }")
+    Mono<Long> replacePassword(String id, String currentPassword, String newPassword);
+
+}
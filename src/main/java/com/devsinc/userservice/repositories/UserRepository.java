@@ -1,14 +1,53 @@
 package com.devsinc.userservice.repositories;
 
+import com.devsinc.userservice.dtos.response.UserResponse;
 import com.devsinc.userservice.models.User;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.mongodb.repository.Meta;
 import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.data.mongodb.repository.Query;
+import org.springframework.data.mongodb.repository.Update;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
+/**
+ * Methods returning UserResponse are DTO projections, reading only the fields UserResponse declares.
+ * Every query excludes deleted users, which are kept as tombstones until purged.
+ */
 public interface UserRepository extends MongoRepository<User, String> {
 
-    Optional<User> findByUsername(String username);
+    Optional<User> findByIdAndDeletedAtIsNull(String id);
 
-    Optional<User> findByEmail(String email);
+    Optional<User> findByUsernameAndDeletedAtIsNull(String username);
+
+    Optional<User> findByEmailAndDeletedAtIsNull(String email);
+
+    Optional<UserResponse> findResponseByIdAndDeletedAtIsNull(String id);
+
+    Optional<UserResponse> findResponseByUsernameAndDeletedAtIsNull(String username);
+
+    List<UserResponse> findResponsesByIdInAndDeletedAtIsNull(Collection<String> ids);
+
+    List<UserResponse> findResponsesByUsernameInAndDeletedAtIsNull(Collection<String> usernames);
+
+    List<UserResponse> findAllByDeletedAtIsNullOrderByIdAsc(Pageable pageable);
+
+    List<UserResponse> findByIdGreaterThanAndDeletedAtIsNullOrderByIdAsc(String id, Pageable pageable);
+
+    List<UserResponse> findByRolesIdAndDeletedAtIsNullOrderByIdAsc(String roleId, Pageable pageable);
+
+    List<UserResponse> findByRolesIdAndIdGreaterThanAndDeletedAtIsNullOrderByIdAsc(String roleId, String id, Pageable pageable);
+
+    long countByRolesIdAndDeletedAtIsNull(String roleId);
+
+    @Meta(cursorBatchSize = 500)
+    Stream<UserResponse> streamAllByDeletedAtIsNullOrderByIdAsc();
+
+    @Query("{ '_id': ?0, 'password': ?1, 'deletedAt': null }")
+    @Update("{ '$set': { 'password': ?2 }, '$inc': { 'version': 1 } }")
+    long replacePassword(String id, String currentPassword, String newPassword);
 
 }
@@ -0,0 +1,105 @@
+package com.devsinc.userservice.security;
+
+import com.devsinc.userservice.models.RoleRef;
+import com.devsinc.userservice.models.User;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Issues and validates HS256 signed access tokens.
+ * A token carries the username, the user ID and the role names, so validating it needs neither the database nor BCrypt.
+ * Role changes therefore only take effect once the user signs in again or the token expires.
+ */
+@Slf4j
+@Component
+public class JwtTokenProvider {
+
+    static final String USER_ID_CLAIM = "uid";
+
+    static final String ROLES_CLAIM = "roles";
+
+    private static final int RECOMMENDED_KEY_LENGTH = 32;
+
+    private final byte[] signingKey;
+
+    private final long expirationMs;
+
+    /**
+     * Constructs a JwtTokenProvider.
+     * @param jwtSecret the secret the tokens are signed with
+     * @param expirationMs how long an issued token stays valid, in milliseconds
+     */
+    public JwtTokenProvider(@Value("${user_service.app.jwtSecret}") String jwtSecret,
+                            @Value("${user_service.app.jwtExpirationMs:3600000}") long expirationMs) {
+        this.signingKey = jwtSecret.getBytes(StandardCharsets.UTF_8);
+        this.expirationMs = expirationMs;
+        if (signingKey.length < RECOMMENDED_KEY_LENGTH) {
+            log.warn("user_service.app.jwtSecret is shorter than {} bytes, configure a longer secret outside development",
+                    RECOMMENDED_KEY_LENGTH);
+        }
+    }
+
+    /**
+     * Issues a token for an authenticated user.
+     * @param user the authenticated user
+     * @return the compact, signed token
+     */
+    public String generateToken(User user) {
+        List<String> roleNames = new ArrayList<>();
+        for (RoleRef role : user.getRoles()) {
+            roleNames.add(role.getRoleName());
+        }
+        Date issuedAt = new Date();
+        return Jwts.builder()
+                .setSubject(user.getUsername())
+                .claim(USER_ID_CLAIM, user.getId())
+                .claim(ROLES_CLAIM, roleNames)
+                .setIssuedAt(issuedAt)
+                .setExpiration(new Date(issuedAt.getTime() + expirationMs))
+                .signWith(SignatureAlgorithm.HS256, signingKey)
+                .compact();
+    }
+
+    /**
+     * Validates a token and builds the authentication it represents from its claims.
+     * @param token the compact token
+     * @return an authenticated token whose principal is the username
+     * @throws JwtException if the token is malformed, has an invalid signature or has expired
+     */
+    public Authentication getAuthentication(String token) {
+        Claims claims = Jwts.parser()
+                .setSigningKey(signingKey)
+                .parseClaimsJws(token)
+                .getBody();
+        Collection<GrantedAuthority> authorities = new ArrayList<>();
+        Object roles = claims.get(ROLES_CLAIM);
+        if (roles instanceof Collection<?> roleNames) {
+            for (Object roleName : roleNames) {
+                authorities.add(new SimpleGrantedAuthority(String.valueOf(roleName)));
+            }
+        }
+        return new UsernamePasswordAuthenticationToken(claims.getSubject(), token, authorities);
+    }
+
+    /**
+     * @return how long an issued token stays valid, in milliseconds
+     */
+    public long getExpirationMs() {
+        return expirationMs;
+    }
+}
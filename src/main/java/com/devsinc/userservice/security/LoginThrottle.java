@@ -0,0 +1,155 @@
+package com.devsinc.userservice.security;
+
+import com.devsinc.userservice.exceptions.RateLimitExceededException;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Throttles the requests that make the service hash or verify a password: registrations, /sign_in and HTTP Basic.
+ * Registrations and /sign_in requests take a token from the bucket of their client IP, and so does every failed
+ * HTTP Basic login, so that authenticated API traffic is never throttled while guessing passwords from one address is.
+ * Every failed login also takes a token from the bucket of its username and client IP, and from the looser bucket of
+ * its username alone. Guessing passwords for an account from one address is throttled by the first, without locking
+ * the user out of other addresses; guesses spread over many addresses add up in the second, which bounds them per
+ * account and only locks the account out once they far exceed the allowance of one address.
+ * Throttled requests fail with a RateLimitExceededException, answered with 429, before any user is looked up.
+ */
+@Component
+public class LoginThrottle {
+
+    /**
+     * The key of the client IP in the Reactor context of throttled reactive requests.
+     */
+    public static final String CLIENT_IP = LoginThrottle.class.getName() + ".CLIENT_IP";
+
+    private static final String BASIC_PREFIX = "Basic ";
+
+    private final boolean enabled;
+
+    private final TokenBucketRateLimiter clientIpLimiter;
+
+    private final TokenBucketRateLimiter usernameClientIpLimiter;
+
+    private final TokenBucketRateLimiter usernameLimiter;
+
+    /**
+     * Constructs a LoginThrottle.
+     * @param meterRegistry the registry the limiter decisions are published to
+     * @param enabled whether requests are throttled at all
+     * @param stripes the number of buckets of each limiter
+     * @param clientIpCapacity the burst of registrations, /sign_in requests and failed HTTP Basic logins allowed per client IP
+     * @param clientIpRefillPerSecond the sustained rate of registrations, /sign_in requests and failed HTTP Basic logins
+     * allowed per client IP
+     * @param usernameClientIpCapacity the burst of failed logins allowed per username and client IP
+     * @param usernameClientIpRefillPerSecond the sustained rate of failed logins allowed per username and client IP
+     * @param usernameCapacity the burst of failed logins allowed per username, from any client IP
+     * @param usernameRefillPerSecond the sustained rate of failed logins allowed per username, from any client IP
+     */
+    public LoginThrottle(MeterRegistry meterRegistry,
+                         @Value("${user_service.app.rate-limits.enabled:true}") boolean enabled,
+                         @Value("${user_service.app.rate-limits.stripes:16384}") int stripes,
+                         @Value("${user_service.app.rate-limits.client-ip.capacity:20}") int clientIpCapacity,
+                         @Value("${user_service.app.rate-limits.client-ip.refill-per-second:10}") double clientIpRefillPerSecond,
+                         @Value("${user_service.app.rate-limits.failed-logins.capacity:5}") int usernameClientIpCapacity,
+                         @Value("${user_service.app.rate-limits.failed-logins.refill-per-second:0.1}") double usernameClientIpRefillPerSecond,
+                         @Value("${user_service.app.rate-limits.failed-logins-per-username.capacity:25}") int usernameCapacity,
+                         @Value("${user_service.app.rate-limits.failed-logins-per-username.refill-per-second:0.2}") double usernameRefillPerSecond) {
+        this.enabled = enabled;
+        this.clientIpLimiter = new TokenBucketRateLimiter("client-ip", clientIpCapacity, clientIpRefillPerSecond, stripes, meterRegistry);
+        this.usernameClientIpLimiter = new TokenBucketRateLimiter("username-client-ip", usernameClientIpCapacity,
+                usernameClientIpRefillPerSecond, stripes, meterRegistry);
+        this.usernameLimiter = new TokenBucketRateLimiter("username", usernameCapacity, usernameRefillPerSecond, stripes, meterRegistry);
+    }
+
+    /**
+     * Checks whether every request of this kind is charged to its client IP: registrations and /sign_in.
+     * @param method the HTTP method of the request
+     * @param path the path of the request within the application
+     * @return true if the request is charged to its client IP
+     */
+    public boolean appliesTo(String method, String path) {
+        return enabled && "POST".equals(method) && ("/user/register".equals(path) || path.startsWith("/sign_in"));
+    }
+
+    /**
+     * Checks whether a request sends HTTP Basic credentials, which are charged to its client IP only if they fail.
+     * @param authorization the Authorization header of the request, or null
+     * @return true if the request authenticates with HTTP Basic
+     */
+    public boolean authenticatesWithBasic(String authorization) {
+        return enabled && authorization != null && authorization.startsWith(BASIC_PREFIX);
+    }
+
+    /**
+     * Takes a token from the bucket of the client IP.
+     * @param clientIp the address of the client
+     * @throws RateLimitExceededException if the client has no token left
+     */
+    public void checkClient(String clientIp) {
+        if (enabled && !clientIpLimiter.tryAcquire(clientIp)) {
+            throw new RateLimitExceededException("Too many requests from this client, please retry later",
+                    clientIpLimiter.refillInterval());
+        }
+    }
+
+    /**
+     * Checks that the client IP has failed HTTP Basic logins left, without taking a token.
+     * @param clientIp the address of the client
+     * @throws RateLimitExceededException if the client has no token left
+     */
+    public void checkFailedLoginsFromClient(String clientIp) {
+        if (enabled && clientIpLimiter.isExhausted(clientIp)) {
+            throw new RateLimitExceededException("Too many requests from this client, please retry later",
+                    clientIpLimiter.refillInterval());
+        }
+    }
+
+    /**
+     * Records a failed HTTP Basic login from the client IP.
+     * @param clientIp the address of the client
+     */
+    public void recordFailedLoginFromClient(String clientIp) {
+        if (enabled) {
+            clientIpLimiter.charge(clientIp);
+        }
+    }
+
+    /**
+     * Checks that the username has failed logins left, both from the client IP and from any address,
+     * before its user is looked up and its password verified.
+     * @param username the username being authenticated
+     * @param clientIp the address of the client, or null if unknown
+     * @throws RateLimitExceededException if the username has no failed login left from the client IP or at all
+     */
+    public void checkUsername(String username, String clientIp) {
+        if (!enabled || username == null) {
+            return;
+        }
+        if (usernameClientIpLimiter.isExhausted(usernameClientIpKey(username, clientIp))) {
+            throw new RateLimitExceededException("Too many failed logins for this user, please retry later",
+                    usernameClientIpLimiter.refillInterval());
+        }
+        if (usernameLimiter.isExhausted(username)) {
+            throw new RateLimitExceededException("Too many failed logins for this user, please retry later",
+                    usernameLimiter.refillInterval());
+        }
+    }
+
+    /**
+     * Records a failed login of the username from the client IP.
+     * @param username the username that failed to authenticate
+     * @param clientIp the address of the client, or null if unknown
+     */
+    public void recordFailedLogin(String username, String clientIp) {
+        if (enabled && username != null) {
+            usernameClientIpLimiter.charge(usernameClientIpKey(username, clientIp));
+            usernameLimiter.charge(username);
+        }
+    }
+
+    private static String usernameClientIpKey(String username, String clientIp) {
+        return clientIp == null ? username : username + '|' + clientIp;
+    }
+
+}
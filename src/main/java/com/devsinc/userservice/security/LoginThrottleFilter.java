@@ -0,0 +1,51 @@
+package com.devsinc.userservice.security;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+/**
+ * Applies the client IP limit of the {@link LoginThrottle}: registrations and /sign_in requests are charged
+ * to their client IP up front, and HTTP Basic requests only once they fail to authenticate.
+ * The client IP is the remote address of the request, which reflects X-Forwarded-For only when
+ * server.forward-headers-strategy is configured for a trusted proxy.
+ */
+public class LoginThrottleFilter extends OncePerRequestFilter {
+
+    private final LoginThrottle loginThrottle;
+
+    /**
+     * Constructs a LoginThrottleFilter.
+     * @param loginThrottle the throttle to apply
+     */
+    public LoginThrottleFilter(LoginThrottle loginThrottle) {
+        this.loginThrottle = loginThrottle;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !loginThrottle.appliesTo(request.getMethod(), request.getServletPath())
+                && !loginThrottle.authenticatesWithBasic(request.getHeader(HttpHeaders.AUTHORIZATION));
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        String clientIp = request.getRemoteAddr();
+        if (loginThrottle.appliesTo(request.getMethod(), request.getServletPath())) {
+            loginThrottle.checkClient(clientIp);
+            filterChain.doFilter(request, response);
+            return;
+        }
+        loginThrottle.checkFailedLoginsFromClient(clientIp);
+        filterChain.doFilter(request, response);
+        if (response.getStatus() == HttpServletResponse.SC_UNAUTHORIZED) {
+            loginThrottle.recordFailedLoginFromClient(clientIp);
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package com.devsinc.userservice.security;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.publisher.Mono;
+import reactor.util.context.Context;
+
+import java.net.InetSocketAddress;
+
+/**
+ * Reactive counterpart of {@link LoginThrottleFilter}.
+ * The client IP of throttled requests is also put in the Reactor context under {@link LoginThrottle#CLIENT_IP},
+ * where the ReactiveAuthenticationManager keys failed logins with it.
+ */
+public class LoginThrottleWebFilter implements WebFilter {
+
+    private final LoginThrottle loginThrottle;
+
+    /**
+     * Constructs a LoginThrottleWebFilter.
+     * @param loginThrottle the throttle to apply
+     */
+    public LoginThrottleWebFilter(LoginThrottle loginThrottle) {
+        this.loginThrottle = loginThrottle;
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
+        ServerHttpRequest request = exchange.getRequest();
+        boolean charged = loginThrottle.appliesTo(request.getMethod().name(),
+                request.getPath().pathWithinApplication().value());
+        if (!charged && !loginThrottle.authenticatesWithBasic(request.getHeaders().getFirst(HttpHeaders.AUTHORIZATION))) {
+            return chain.filter(exchange);
+        }
+        InetSocketAddress remoteAddress = request.getRemoteAddress();
+        String clientIp = remoteAddress == null ? "unknown" : remoteAddress.getAddress().getHostAddress();
+        if (charged) {
+            return Mono.fromRunnable(() -> loginThrottle.checkClient(clientIp))
+                    .then(chain.filter(exchange))
+                    .contextWrite(Context.of(LoginThrottle.CLIENT_IP, clientIp));
+        }
+        return Mono.fromRunnable(() -> loginThrottle.checkFailedLoginsFromClient(clientIp))
+                .then(chain.filter(exchange))
+                .doOnSuccess(done -> {
+                    if (exchange.getResponse().getStatusCode() == HttpStatus.UNAUTHORIZED) {
+                        loginThrottle.recordFailedLoginFromClient(clientIp);
+                    }
+                })
+                .contextWrite(Context.of(LoginThrottle.CLIENT_IP, clientIp));
+    }
+}
@@ -0,0 +1,42 @@
+package com.devsinc.userservice.security;
+
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+/**
+ * Password encoder running every encode and match on the password hashing pool, blocking the caller until it is done.
+ * Request threads only wait for their own hash, and fail fast with a PasswordHashingRejectedException when the
+ * pool's queue is full, so a burst of registrations or logins cannot occupy every request thread.
+ * With virtual threads it also keeps BCrypt off the carrier threads, which would otherwise starve every other
+ * virtual thread.
+ */
+public class OffloadingPasswordEncoder implements PasswordEncoder {
+
+    private final PasswordEncoder passwordEncoder;
+
+    private final PasswordHashingExecutor passwordHashingExecutor;
+
+    /**
+     * Constructs an OffloadingPasswordEncoder.
+     * @param passwordEncoder the encoder doing the actual work
+     * @param passwordHashingExecutor the pool the work is run on
+     */
+    public OffloadingPasswordEncoder(PasswordEncoder passwordEncoder, PasswordHashingExecutor passwordHashingExecutor) {
+        this.passwordEncoder = passwordEncoder;
+        this.passwordHashingExecutor = passwordHashingExecutor;
+    }
+
+    @Override
+    public String encode(CharSequence rawPassword) {
+        return passwordHashingExecutor.call(() -> passwordEncoder.encode(rawPassword));
+    }
+
+    @Override
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        return passwordHashingExecutor.call(() -> passwordEncoder.matches(rawPassword, encodedPassword));
+    }
+
+    @Override
+    public boolean upgradeEncoding(String encodedPassword) {
+        return passwordEncoder.upgradeEncoding(encodedPassword);
+    }
+}
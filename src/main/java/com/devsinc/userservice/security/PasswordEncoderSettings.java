@@ -0,0 +1,55 @@
+package com.devsinc.userservice.security;
+
+import org.springframework.security.crypto.argon2.Argon2PasswordEncoder;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.DelegatingPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.security.crypto.password.Pbkdf2PasswordEncoder;
+
+import java.util.Map;
+
+/**
+ * Password hashing algorithm and cost.
+ * New hashes are written with the configured algorithm and prefixed with its id, such as {bcrypt}.
+ * Hashes with another id, or BCrypt and Argon2 hashes with a lower cost, report that their encoding should be upgraded.
+ * Unprefixed hashes, written before the prefix was introduced, are BCrypt.
+ * @param algorithm the id of the algorithm new passwords are hashed with: bcrypt, argon2 or pbkdf2
+ * @param bcryptStrength the BCrypt log rounds
+ * @param argon2MemoryKib the Argon2 memory cost in KiB
+ * @param argon2Iterations the Argon2 number of passes
+ * @param argon2Parallelism the Argon2 number of lanes
+ * @param pbkdf2Iterations the PBKDF2-HMAC-SHA256 iteration count
+ */
+public record PasswordEncoderSettings(String algorithm, int bcryptStrength, int argon2MemoryKib, int argon2Iterations,
+                                      int argon2Parallelism, int pbkdf2Iterations) {
+
+    public static final String BCRYPT = "bcrypt";
+
+    public static final String ARGON2 = "argon2";
+
+    public static final String PBKDF2 = "pbkdf2";
+
+    private static final int SALT_LENGTH = 16;
+
+    private static final int HASH_LENGTH = 32;
+
+    /**
+     * Creates the encoder hashing with the configured algorithm and verifying any supported one.
+     * @return the delegating password encoder
+     * @throws IllegalArgumentException if the algorithm is not supported
+     */
+    public DelegatingPasswordEncoder createEncoder() {
+        Map<String, PasswordEncoder> encoders = Map.of(
+                BCRYPT, new BCryptPasswordEncoder(bcryptStrength),
+                ARGON2, new Argon2PasswordEncoder(SALT_LENGTH, HASH_LENGTH, argon2Parallelism, argon2MemoryKib, argon2Iterations),
+                PBKDF2, new Pbkdf2PasswordEncoder("", SALT_LENGTH, pbkdf2Iterations,
+                        Pbkdf2PasswordEncoder.SecretKeyFactoryAlgorithm.PBKDF2WithHmacSHA256));
+        if (!encoders.containsKey(algorithm)) {
+            throw new IllegalArgumentException("Unsupported password hashing algorithm: " + algorithm
+                    + ", expected one of " + encoders.keySet());
+        }
+        DelegatingPasswordEncoder passwordEncoder = new DelegatingPasswordEncoder(algorithm, encoders);
+        passwordEncoder.setDefaultPasswordEncoderForMatches(encoders.get(BCRYPT));
+        return passwordEncoder;
+    }
+}
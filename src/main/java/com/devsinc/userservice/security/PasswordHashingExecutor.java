@@ -0,0 +1,137 @@
+package com.devsinc.userservice.security;
+
+import com.devsinc.userservice.configurations.PasswordEncoderConfig;
+import com.devsinc.userservice.exceptions.PasswordHashingRejectedException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Component;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Dedicated thread pool for every password hash and verification.
+ * Hashing is CPU bound, so the pool defaults to one thread per available core and is kept
+ * separate from the request threads and the application task executor.
+ * Its queue is bounded: when it is full, tasks are rejected immediately instead of piling up,
+ * which keeps a burst of registrations or logins from tying up every request thread.
+ * Pool, queue and task timings are published as executor metrics named password-hashing,
+ * and rejections as password.hashing.rejected.
+ */
+@Component
+public class PasswordHashingExecutor {
+
+    private final PasswordEncoder passwordEncoder;
+
+    private final int poolSize;
+
+    private final ExecutorService executorService;
+
+    private final Scheduler scheduler;
+
+    /**
+     * Constructs a PasswordHashingExecutor.
+     * @param passwordEncoder the encoder used for every password
+     * @param meterRegistry the registry the executor metrics are published to
+     * @param threads the number of hashing threads, or zero for one per available core
+     * @param queueCapacity the number of tasks that may wait for a hashing thread
+     */
+    public PasswordHashingExecutor(@Qualifier(PasswordEncoderConfig.PASSWORD_ENCODER) PasswordEncoder passwordEncoder,
+                                   MeterRegistry meterRegistry,
+                                   @Value("${user_service.app.password-hashing.threads:0}") int threads,
+                                   @Value("${user_service.app.password-hashing.queue-capacity:64}") int queueCapacity) {
+        this.passwordEncoder = passwordEncoder;
+        this.poolSize = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        AtomicInteger counter = new AtomicInteger();
+        ThreadFactory threadFactory = runnable -> {
+            Thread thread = new Thread(runnable, "password-hashing-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+        Counter rejected = Counter.builder("password.hashing.rejected")
+                .description("Password hashing tasks rejected because the queue was full")
+                .register(meterRegistry);
+        ThreadPoolExecutor threadPoolExecutor = new ThreadPoolExecutor(poolSize, poolSize, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), threadFactory, (task, executor) -> {
+                    rejected.increment();
+                    throw new RejectedExecutionException("Password hashing queue is full");
+                });
+        this.executorService = ExecutorServiceMetrics.monitor(meterRegistry, threadPoolExecutor, "password-hashing");
+        this.scheduler = Schedulers.fromExecutorService(executorService, "password-hashing");
+    }
+
+    /**
+     * Encodes a list of raw passwords in parallel.
+     * The list is split into one task per hashing thread, so a batch takes at most that many queue slots.
+     * A task the queue rejects is run by the caller, so bulk imports slow down rather than fail.
+     * @param rawPasswords the raw passwords
+     * @return the encoded passwords, in the same order as the raw passwords
+     */
+    public List<String> encodeAll(List<String> rawPasswords) {
+        int tasks = Math.min(poolSize, rawPasswords.size());
+        List<CompletableFuture<List<String>>> encoded = new ArrayList<>(tasks);
+        for (int i = 0; i < tasks; i++) {
+            List<String> slice = rawPasswords.subList(i * rawPasswords.size() / tasks, (i + 1) * rawPasswords.size() / tasks);
+            Supplier<List<String>> task = () -> slice.stream().map(passwordEncoder::encode).toList();
+            try {
+                encoded.add(CompletableFuture.supplyAsync(task, executorService));
+            } catch (RejectedExecutionException e) {
+                encoded.add(CompletableFuture.completedFuture(task.get()));
+            }
+        }
+        return encoded.stream().flatMap(slice -> slice.join().stream()).toList();
+    }
+
+    /**
+     * Runs a hashing task on the pool and waits for its result.
+     * @param task the task to run
+     * @return the result of the task
+     * @throws PasswordHashingRejectedException if the queue is full
+     */
+    public <T> T call(Supplier<T> task) {
+        CompletableFuture<T> result;
+        try {
+            result = CompletableFuture.supplyAsync(task, executorService);
+        } catch (RejectedExecutionException e) {
+            throw new PasswordHashingRejectedException(e);
+        }
+        try {
+            return result.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Tasks the queue rejects fail with a RejectedExecutionException.
+     * @return a scheduler running on the hashing threads, so the reactive stack never hashes on an event loop
+     */
+    public Scheduler scheduler() {
+        return scheduler;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executorService.shutdownNow();
+    }
+}
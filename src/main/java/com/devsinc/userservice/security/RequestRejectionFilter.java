@@ -0,0 +1,41 @@
+package com.devsinc.userservice.security;
+
+import com.devsinc.userservice.exceptions.PasswordHashingRejectedException;
+import com.devsinc.userservice.exceptions.RateLimitExceededException;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerExceptionResolver;
+
+import java.io.IOException;
+
+/**
+ * Hands password hashing rejections and throttled logins raised by the security filters, before any controller
+ * is reached, to the application's exception handler, so they get the same 503 or 429 response as a rejected /sign_in.
+ */
+public class RequestRejectionFilter extends OncePerRequestFilter {
+
+    private final HandlerExceptionResolver handlerExceptionResolver;
+
+    /**
+     * Constructs a RequestRejectionFilter.
+     * @param handlerExceptionResolver the resolver applying the controller advice
+     */
+    public RequestRejectionFilter(HandlerExceptionResolver handlerExceptionResolver) {
+        this.handlerExceptionResolver = handlerExceptionResolver;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        try {
+            filterChain.doFilter(request, response);
+        } catch (PasswordHashingRejectedException | RateLimitExceededException e) {
+            if (handlerExceptionResolver.resolveException(request, response, null, e) == null) {
+                throw e;
+            }
+        }
+    }
+}
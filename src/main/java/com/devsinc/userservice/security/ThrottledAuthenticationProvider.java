@@ -0,0 +1,59 @@
+package com.devsinc.userservice.security;
+
+import org.springframework.security.authentication.AuthenticationProvider;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.AuthenticationException;
+import org.springframework.security.web.authentication.WebAuthenticationDetails;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+/**
+ * Applies the failed login limit of the {@link LoginThrottle} around another AuthenticationProvider,
+ * so that a username throttled, for the client IP or from every address, is rejected before its user is looked up
+ * and its password verified.
+ * The client IP is read from the details of HTTP Basic authentications, or from the current request otherwise.
+ */
+public class ThrottledAuthenticationProvider implements AuthenticationProvider {
+
+    private final AuthenticationProvider delegate;
+
+    private final LoginThrottle loginThrottle;
+
+    /**
+     * Constructs a ThrottledAuthenticationProvider.
+     * @param delegate the provider authenticating the requests that are not throttled
+     * @param loginThrottle the throttle to apply
+     */
+    public ThrottledAuthenticationProvider(AuthenticationProvider delegate, LoginThrottle loginThrottle) {
+        this.delegate = delegate;
+        this.loginThrottle = loginThrottle;
+    }
+
+    @Override
+    public Authentication authenticate(Authentication authentication) throws AuthenticationException {
+        String username = authentication.getName();
+        String clientIp = clientIp(authentication);
+        loginThrottle.checkUsername(username, clientIp);
+        try {
+            return delegate.authenticate(authentication);
+        } catch (BadCredentialsException e) {
+            loginThrottle.recordFailedLogin(username, clientIp);
+            throw e;
+        }
+    }
+
+    @Override
+    public boolean supports(Class<?> authentication) {
+        return delegate.supports(authentication);
+    }
+
+    private static String clientIp(Authentication authentication) {
+        if (authentication.getDetails() instanceof WebAuthenticationDetails details) {
+            return details.getRemoteAddress();
+        }
+        return RequestContextHolder.getRequestAttributes() instanceof ServletRequestAttributes attributes
+                ? attributes.getRequest().getRemoteAddr()
+                : null;
+    }
+}
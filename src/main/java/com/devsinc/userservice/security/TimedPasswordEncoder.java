@@ -0,0 +1,51 @@
+package com.devsinc.userservice.security;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+/**
+ * Password encoder timing every encode and match of the encoder it wraps, under password.encoder tagged by operation.
+ * Wraps the hashing encoder itself, so cache hits and time spent queueing for the hashing pool are not included.
+ */
+public class TimedPasswordEncoder implements PasswordEncoder {
+
+    private final PasswordEncoder passwordEncoder;
+
+    private final Timer encodeTimer;
+
+    private final Timer matchesTimer;
+
+    /**
+     * Constructs a TimedPasswordEncoder.
+     * @param passwordEncoder the encoder doing the actual work
+     * @param meterRegistry the registry the timers are published to
+     */
+    public TimedPasswordEncoder(PasswordEncoder passwordEncoder, MeterRegistry meterRegistry) {
+        this.passwordEncoder = passwordEncoder;
+        this.encodeTimer = timer(meterRegistry, "encode");
+        this.matchesTimer = timer(meterRegistry, "matches");
+    }
+
+    @Override
+    public String encode(CharSequence rawPassword) {
+        return encodeTimer.record(() -> passwordEncoder.encode(rawPassword));
+    }
+
+    @Override
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        return matchesTimer.record(() -> passwordEncoder.matches(rawPassword, encodedPassword));
+    }
+
+    @Override
+    public boolean upgradeEncoding(String encodedPassword) {
+        return passwordEncoder.upgradeEncoding(encodedPassword);
+    }
+
+    private static Timer timer(MeterRegistry meterRegistry, String operation) {
+        return Timer.builder("password.encoder")
+                .description("Time taken to hash or verify a password")
+                .tag("operation", operation)
+                .register(meterRegistry);
+    }
+}
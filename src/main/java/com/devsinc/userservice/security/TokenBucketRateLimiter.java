@@ -0,0 +1,145 @@
+package com.devsinc.userservice.security;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Token bucket rate limiter over a fixed array of buckets, so memory stays bounded whatever the number of keys.
+ * Keys are hashed with a per-process seed onto the buckets; keys sharing a bucket share its limit,
+ * which makes the limiter stricter, never more lenient.
+ * Each bucket is a single long holding the time at which it will be full again, the generic cell rate
+ * formulation of a token bucket, so acquiring a token is one compare-and-set without any lock.
+ * Decisions are published as rate.limiter.decisions, tagged by limiter and result.
+ */
+public class TokenBucketRateLimiter {
+
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    private final AtomicLongArray buckets;
+
+    private final int mask;
+
+    private final long seed = new SecureRandom().nextLong();
+
+    private final long origin = System.nanoTime();
+
+    private final long intervalNanos;
+
+    private final long burstNanos;
+
+    private final Counter allowed;
+
+    private final Counter rejected;
+
+    /**
+     * Constructs a TokenBucketRateLimiter.
+     * @param name the name of the limiter, used as the limiter tag of its metrics
+     * @param capacity the number of tokens a full bucket holds, i.e. the largest burst allowed
+     * @param refillPerSecond the number of tokens added to a bucket per second
+     * @param stripes the number of buckets, rounded up to a power of two
+     * @param meterRegistry the registry the decisions are published to
+     */
+    public TokenBucketRateLimiter(String name, int capacity, double refillPerSecond, int stripes, MeterRegistry meterRegistry) {
+        if (capacity < 1 || refillPerSecond <= 0 || stripes < 1) {
+            throw new IllegalArgumentException("Rate limiter " + name + " needs a positive capacity, refill rate and stripe count");
+        }
+        int size = stripes == 1 ? 1 : Integer.highestOneBit(stripes - 1) << 1;
+        this.buckets = new AtomicLongArray(size);
+        this.mask = size - 1;
+        this.intervalNanos = (long) (TimeUnit.SECONDS.toNanos(1) / refillPerSecond);
+        this.burstNanos = intervalNanos * capacity;
+        this.allowed = decisions(meterRegistry, name, "allowed");
+        this.rejected = decisions(meterRegistry, name, "rejected");
+    }
+
+    /**
+     * Takes a token from the bucket of the key if one is left.
+     * @param key the key to limit
+     * @return true if the request is allowed
+     */
+    public boolean tryAcquire(String key) {
+        return record(acquire(index(key)));
+    }
+
+    /**
+     * Checks whether the bucket of the key has a token left, without taking it.
+     * @param key the key to limit
+     * @return true if the bucket is empty
+     */
+    public boolean isExhausted(String key) {
+        long now = now();
+        long next = Math.max(buckets.get(index(key)), now) + intervalNanos;
+        return !record(next - now <= burstNanos);
+    }
+
+    /**
+     * Takes a token from the bucket of the key if one is left, without recording a decision.
+     * @param key the key to charge
+     */
+    public void charge(String key) {
+        acquire(index(key));
+    }
+
+    /**
+     * @return how long it takes for one token to be added to a bucket
+     */
+    public Duration refillInterval() {
+        return Duration.ofNanos(intervalNanos);
+    }
+
+    /**
+     * @return the number of buckets, the stripe count rounded up to a power of two
+     */
+    int stripes() {
+        return buckets.length();
+    }
+
+    private boolean acquire(int index) {
+        long now = now();
+        while (true) {
+            long full = buckets.get(index);
+            long next = Math.max(full, now) + intervalNanos;
+            if (next - now > burstNanos) {
+                return false;
+            }
+            if (buckets.compareAndSet(index, full, next)) {
+                return true;
+            }
+        }
+    }
+
+    private boolean record(boolean allow) {
+        (allow ? allowed : rejected).increment();
+        return allow;
+    }
+
+    private long now() {
+        return System.nanoTime() - origin;
+    }
+
+    /**
+     * Seeded FNV-1a, so that which keys collide cannot be predicted from outside the process.
+     */
+    private int index(String key) {
+        long hash = seed;
+        for (int i = 0; i < key.length(); i++) {
+            hash ^= key.charAt(i);
+            hash *= FNV_PRIME;
+        }
+        hash ^= hash >>> 32;
+        return (int) hash & mask;
+    }
+
+    private static Counter decisions(MeterRegistry meterRegistry, String name, String result) {
+        return Counter.builder("rate.limiter.decisions")
+                .description("Requests allowed or rejected by a rate limiter")
+                .tag("limiter", name)
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+}
@@ -0,0 +1,18 @@
+package com.devsinc.userservice.services;
+
+import com.devsinc.userservice.dtos.request.SignInRequest;
+import com.devsinc.userservice.dtos.response.TokenResponse;
+import org.springframework.security.core.AuthenticationException;
+import org.springframework.stereotype.Service;
+
+@Service
+public interface AuthService {
+
+    /**
+     * Verifies the credentials of a user and issues an access token.
+     * @param signInRequest the username and password
+     * @return the access token
+     * @throws AuthenticationException if the credentials are invalid
+     */
+    TokenResponse signIn(SignInRequest signInRequest);
+}
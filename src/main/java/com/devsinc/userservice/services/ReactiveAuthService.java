@@ -0,0 +1,16 @@
+package com.devsinc.userservice.services;
+
+import com.devsinc.userservice.dtos.request.SignInRequest;
+import com.devsinc.userservice.dtos.response.TokenResponse;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+
+/**
+ * Non-blocking counterpart of {@link AuthService}, used by the reactive deployment mode.
+ */
+@Service
+public interface ReactiveAuthService {
+
+    Mono<TokenResponse> signIn(SignInRequest signInRequest);
+
+}
@@ -0,0 +1,31 @@
+package com.devsinc.userservice.services;
+
+import com.devsinc.userservice.dtos.request.CreateRoleRequest;
+import com.devsinc.userservice.dtos.request.UpdateRoleRequest;
+import com.devsinc.userservice.dtos.response.CursorPageResponse;
+import com.devsinc.userservice.dtos.response.RoleResponse;
+import com.devsinc.userservice.dtos.response.UserResponse;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+
+/**
+ * Non-blocking counterpart of {@link RoleService}, used by the reactive deployment mode.
+ */
+@Service
+public interface ReactiveRoleService {
+
+    Mono<RoleResponse> saveRole(CreateRoleRequest roleRequest);
+
+    Mono<RoleResponse> updateRole(UpdateRoleRequest roleRequest);
+
+    Mono<RoleResponse> getRole(String id);
+
+    Mono<List<RoleResponse>> getAllRoles();
+
+    Mono<CursorPageResponse<UserResponse>> getRoleUsers(String id, String cursor, Integer size);
+
+    Mono<Long> countRoleUsers(String id);
+
+}
@@ -0,0 +1,46 @@
+package com.devsinc.userservice.services;
+
+import com.devsinc.userservice.dtos.request.BatchGetUsersRequest;
+import com.devsinc.userservice.dtos.request.CreateUserRequest;
+import com.devsinc.userservice.dtos.request.UpdatePasswordRequest;
+import com.devsinc.userservice.dtos.request.UpdateUserRequest;
+import com.devsinc.userservice.dtos.request.UserSearchRequest;
+import com.devsinc.userservice.dtos.response.BatchGetResponse;
+import com.devsinc.userservice.dtos.response.ChangeFeedResponse;
+import com.devsinc.userservice.dtos.response.CursorPageResponse;
+import com.devsinc.userservice.dtos.response.UserResponse;
+import org.springframework.security.core.userdetails.ReactiveUserDetailsPasswordService;
+import org.springframework.security.core.userdetails.ReactiveUserDetailsService;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Non-blocking counterpart of {@link UserService}, used by the reactive deployment mode.
+ */
+@Service
+public interface ReactiveUserService extends ReactiveUserDetailsService, ReactiveUserDetailsPasswordService {
+
+    Mono<CursorPageResponse<UserResponse>> getAllUsers(String cursor, Integer size);
+
+    Flux<UserResponse> streamAllUsers();
+
+    Mono<ChangeFeedResponse> getChanges(String since, Integer size);
+
+    Mono<UserResponse> findUserById(String id);
+
+    Mono<UserResponse> findUserByUsername(String username);
+
+    Mono<CursorPageResponse<UserResponse>> searchUsers(UserSearchRequest searchRequest);
+
+    Mono<BatchGetResponse<UserResponse>> findUsers(BatchGetUsersRequest batchGetUsersRequest);
+
+    Mono<UserResponse> createUser(CreateUserRequest userRequest);
+
+    Mono<UserResponse> updateUser(UpdateUserRequest userRequest);
+
+    Mono<UserResponse> updatePassword(UpdatePasswordRequest updatePasswordRequest);
+
+    Mono<Void> deleteUser(String id);
+
+}
@@ -1,7 +1,10 @@
 package com.devsinc.userservice.services;
 
 import com.devsinc.userservice.dtos.request.CreateRoleRequest;
+import com.devsinc.userservice.dtos.request.UpdateRoleRequest;
+import com.devsinc.userservice.dtos.response.CursorPageResponse;
 import com.devsinc.userservice.dtos.response.RoleResponse;
+import com.devsinc.userservice.dtos.response.UserResponse;
 
 import java.util.List;
 
@@ -9,8 +12,14 @@ public interface RoleService {
 
     RoleResponse saveRole(CreateRoleRequest roleRequest);
 
+    RoleResponse updateRole(UpdateRoleRequest roleRequest);
+
     RoleResponse getRole(String id);
 
     List<RoleResponse> getAllRoles();
 
+    CursorPageResponse<UserResponse> getRoleUsers(String id, String cursor, Integer size);
+
+    long countRoleUsers(String id);
+
 }
@@ -0,0 +1,19 @@
+package com.devsinc.userservice.services;
+
+import com.devsinc.userservice.dtos.request.CreateUserRequest;
+import com.devsinc.userservice.dtos.response.UserImportResponse;
+import org.springframework.stereotype.Service;
+
+import java.util.Iterator;
+
+@Service
+public interface UserImportService {
+
+    /**
+     * Imports users in batches.
+     * @param rows the users to create, read lazily in payload order
+     * @return the outcome of every row
+     */
+    UserImportResponse importUsers(Iterator<CreateUserRequest> rows);
+
+}
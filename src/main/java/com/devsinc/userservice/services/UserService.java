@@ -1,23 +1,37 @@
 package com.devsinc.userservice.services;
 
+import com.devsinc.userservice.dtos.request.BatchGetUsersRequest;
 import com.devsinc.userservice.dtos.request.CreateUserRequest;
 import com.devsinc.userservice.dtos.request.UpdatePasswordRequest;
 import com.devsinc.userservice.dtos.request.UpdateUserRequest;
+import com.devsinc.userservice.dtos.request.UserSearchRequest;
+import com.devsinc.userservice.dtos.response.BatchGetResponse;
+import com.devsinc.userservice.dtos.response.ChangeFeedResponse;
+import com.devsinc.userservice.dtos.response.CursorPageResponse;
 import com.devsinc.userservice.dtos.response.UserResponse;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.stereotype.Service;
 
-import java.util.List;
+import java.util.function.Consumer;
 
 @Service
-public interface UserService extends UserDetailsService {
+public interface UserService extends UserDetailsService, UserDetailsPasswordService {
 
-    List<UserResponse> getAllUsers();
+    CursorPageResponse<UserResponse> getAllUsers(String cursor, Integer size);
+
+    void streamAllUsers(Consumer<UserResponse> consumer);
+
+    ChangeFeedResponse getChanges(String since, Integer size);
 
     UserResponse findUserById(String id);
 
     UserResponse findUserByUsername(String username);
 
+    CursorPageResponse<UserResponse> searchUsers(UserSearchRequest searchRequest);
+
+    BatchGetResponse<UserResponse> findUsers(BatchGetUsersRequest batchGetUsersRequest);
+
     UserResponse createUser(CreateUserRequest userRequest);
 
     UserResponse updateUser(UpdateUserRequest userRequest);
@@ -0,0 +1,46 @@
+package com.devsinc.userservice.services.impl;
+
+import com.devsinc.userservice.dtos.request.SignInRequest;
+import com.devsinc.userservice.dtos.response.TokenResponse;
+import com.devsinc.userservice.models.User;
+import com.devsinc.userservice.security.JwtTokenProvider;
+import com.devsinc.userservice.services.AuthService;
+import io.micrometer.core.annotation.Timed;
+import org.springframework.context.annotation.Profile;
+import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.stereotype.Service;
+
+import java.util.concurrent.TimeUnit;
+
+@Service
+@Timed("service.invocations")
+@Profile("!reactive")
+public class AuthServiceImpl implements AuthService {
+
+    private static final String TOKEN_TYPE = "Bearer";
+
+    private final AuthenticationManager authenticationManager;
+
+    private final JwtTokenProvider jwtTokenProvider;
+
+    public AuthServiceImpl(AuthenticationManager authenticationManager, JwtTokenProvider jwtTokenProvider) {
+        this.authenticationManager = authenticationManager;
+        this.jwtTokenProvider = jwtTokenProvider;
+    }
+
+    /**
+     * Verifies the credentials of a user and issues an access token.
+     * This is the only place BCrypt runs for token clients; subsequent requests are authenticated from the token alone.
+     * @param signInRequest the username and password
+     * @return the access token
+     */
+    @Override
+    public TokenResponse signIn(SignInRequest signInRequest) {
+        Authentication authentication = authenticationManager.authenticate(
+                new UsernamePasswordAuthenticationToken(signInRequest.getUsername(), signInRequest.getPassword()));
+        String token = jwtTokenProvider.generateToken((User) authentication.getPrincipal());
+        return new TokenResponse(token, TOKEN_TYPE, TimeUnit.MILLISECONDS.toSeconds(jwtTokenProvider.getExpirationMs()));
+    }
+}
@@ -0,0 +1,48 @@
+package com.devsinc.userservice.services.impl;
+
+import com.devsinc.userservice.dtos.response.ChangeEventResponse;
+import com.devsinc.userservice.dtos.response.ChangeFeedResponse;
+
+import java.util.List;
+
+/**
+ * Reads and writes the tokens of the change feed, which are the sequence of the last change a client has seen.
+ */
+final class ChangeFeeds {
+
+    private ChangeFeeds() {
+    }
+
+    /**
+     * @param token the token returned with the previous changes, or null or blank to read from the oldest retained change
+     * @return the sequence the changes to read come after
+     * @throws IllegalArgumentException if the token is invalid
+     */
+    static long since(String token) {
+        if (token == null || token.isBlank()) {
+            return 0;
+        }
+        try {
+            long since = Long.parseLong(token.trim());
+            if (since >= 0) {
+                return since;
+            }
+        } catch (NumberFormatException e) {
+            // Reported below.
+        }
+        throw new IllegalArgumentException("Invalid change token: " + token);
+    }
+
+    /**
+     * @param changes the changes read, one more than the page size if there are more
+     * @param pageSize the size of the page
+     * @param since the sequence the changes come after
+     * @return the page of changes, with the token to read the next changes from
+     */
+    static ChangeFeedResponse page(List<ChangeEventResponse> changes, int pageSize, long since) {
+        boolean hasMore = changes.size() > pageSize;
+        List<ChangeEventResponse> items = hasMore ? changes.subList(0, pageSize) : changes;
+        long next = items.isEmpty() ? since : items.get(items.size() - 1).getSequence();
+        return new ChangeFeedResponse(items, String.valueOf(next), hasMore);
+    }
+}
@@ -0,0 +1,106 @@
+package com.devsinc.userservice.services.impl;
+
+import com.devsinc.userservice.models.User;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Hard-deletes users once they have been deleted for longer than the grace period.
+ * Each run removes at most one batch, so the batch size and the interval between runs bound the rate of deletes,
+ * however many users were deleted at once. Only the instance holding the purge lease deletes, so running more
+ * instances does not raise that rate.
+ */
+@Component
+@ConditionalOnProperty(name = "user_service.app.users.purge.enabled", havingValue = "true", matchIfMissing = true)
+public class DeletedUserPurge {
+
+    static final String PURGE_COLLECTION = "user_purge";
+
+    private static final String PURGE_ID = "purge";
+
+    private final MongoTemplate mongoTemplate;
+
+    private final String owner = UUID.randomUUID().toString();
+
+    private final Duration gracePeriod;
+
+    private final int batchSize;
+
+    private final Duration leaseDuration;
+
+    private final Counter purged;
+
+    /**
+     * Constructs a DeletedUserPurge.
+     * @param mongoTemplate the template the deleted users are read and removed with
+     * @param meterRegistry the registry the purge metrics are published to
+     * @param gracePeriod how long a deleted user is kept before being purged
+     * @param batchSize the most users removed by one run
+     * @param leaseDuration how long the purge lease is held without being renewed by a run
+     */
+    public DeletedUserPurge(MongoTemplate mongoTemplate, MeterRegistry meterRegistry,
+                            @Value("${user_service.app.users.purge.grace-period:1h}") Duration gracePeriod,
+                            @Value("${user_service.app.users.purge.batch-size:100}") int batchSize,
+                            @Value("${user_service.app.users.purge.lease-duration:30s}") Duration leaseDuration) {
+        this.mongoTemplate = mongoTemplate;
+        this.gracePeriod = gracePeriod;
+        this.batchSize = batchSize;
+        this.leaseDuration = leaseDuration;
+        this.purged = Counter.builder("users.purged")
+                .description("Deleted users removed for good")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Removes one batch of the users deleted longest ago, if any is past the grace period
+     * and this instance holds or can take the purge lease. Instances without the lease read nothing.
+     * @return the number of removed users
+     */
+    @Scheduled(fixedDelayString = "${user_service.app.users.purge.interval:1000}")
+    public long purge() {
+        if (!acquireLease()) {
+            return 0;
+        }
+        Instant cutoff = Instant.now().minus(gracePeriod);
+        List<String> ids = mongoTemplate.find(DeletedUsers.purgeable(cutoff, batchSize), User.class).stream()
+                .map(User::getId)
+                .toList();
+        if (ids.isEmpty()) {
+            return 0;
+        }
+        // Still conditional on the deletion time, in case a user was restored since it was read.
+        long removed = mongoTemplate.remove(DeletedUsers.purgeable(ids, cutoff), User.class).getDeletedCount();
+        purged.increment(removed);
+        return removed;
+    }
+
+    private boolean acquireLease() {
+        Instant now = Instant.now();
+        Query lease = Query.query(Criteria.where("_id").is(PURGE_ID)
+                .orOperator(Criteria.where("owner").is(owner), Criteria.where("leaseExpiresAt").lt(now)));
+        Update take = Update.update("owner", owner).set("leaseExpiresAt", now.plus(leaseDuration));
+        try {
+            return mongoTemplate.findAndModify(lease, take, FindAndModifyOptions.options().upsert(true).returnNew(true),
+                    Document.class, PURGE_COLLECTION) != null;
+        } catch (DuplicateKeyException e) {
+            // The lease is held by another instance.
+            return false;
+        }
+    }
+}
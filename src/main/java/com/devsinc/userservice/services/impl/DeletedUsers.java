@@ -0,0 +1,73 @@
+package com.devsinc.userservice.services.impl;
+
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.time.Instant;
+import java.util.Collection;
+
+/**
+ * Builds the queries and updates of soft deletion.
+ * A deleted user is kept as a tombstone, with deletedAt set, until the purge removes it.
+ */
+final class DeletedUsers {
+
+    private static final String DELETED_AT = "deletedAt";
+
+    /**
+     * Missing once the pending events of a user are all published, whether the list is empty or was never written.
+     */
+    private static final String FIRST_PENDING_EVENT = OutboxEvents.PENDING_EVENTS + ".0";
+
+    private DeletedUsers() {
+    }
+
+    /**
+     * @return the criteria matching users that are not deleted.
+     * Users written before soft deletion have no deletedAt field, and match.
+     */
+    static Criteria notDeleted() {
+        return Criteria.where(DELETED_AT).is(null);
+    }
+
+    /**
+     * @param id the ID of the user
+     * @return the query matching the user with the given ID unless it is deleted
+     */
+    static Query notDeleted(String id) {
+        return Query.query(Criteria.where("_id").is(id).andOperator(notDeleted()));
+    }
+
+    /**
+     * @param deletedAt when the user is deleted
+     * @return the update tombstoning a user, releasing its username and email, and incrementing its version
+     */
+    static Update tombstone(Instant deletedAt) {
+        return Update.update(DELETED_AT, deletedAt).unset("active").inc("version", 1);
+    }
+
+    /**
+     * @param cutoff the latest deletion time to purge
+     * @param batchSize the most users to read
+     * @return the query of the IDs of the users deleted longest ago, before the cutoff, served by the deleted_users index.
+     * Users whose deletion is not published yet are kept, as the relay publishes their tombstone.
+     */
+    static Query purgeable(Instant cutoff, int batchSize) {
+        Query query = Query.query(Criteria.where(DELETED_AT).lt(cutoff).and(FIRST_PENDING_EVENT).exists(false))
+                .with(Sort.by(DELETED_AT))
+                .limit(batchSize);
+        query.fields().include("_id");
+        return query;
+    }
+
+    /**
+     * @param ids the IDs of users read as purgeable
+     * @param cutoff the cutoff they were read with
+     * @return the query matching those of the users still deleted before the cutoff
+     */
+    static Query purgeable(Collection<String> ids, Instant cutoff) {
+        return Query.query(Criteria.where("_id").in(ids).and(DELETED_AT).lt(cutoff).and(FIRST_PENDING_EVENT).exists(false));
+    }
+}
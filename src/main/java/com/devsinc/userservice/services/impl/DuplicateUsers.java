@@ -0,0 +1,55 @@
+package com.devsinc.userservice.services.impl;
+
+import com.devsinc.userservice.dtos.request.UserRequest;
+import com.devsinc.userservice.models.User;
+
+import java.util.List;
+
+/**
+ * Translates duplicate key errors raised by the unique user indexes into the messages returned to clients.
+ */
+final class DuplicateUsers {
+
+    /**
+     * The unique email indexes, after and before the active users migration replaces them.
+     */
+    private static final List<String> EMAIL_INDEXES = List.of(User.EMAIL_INDEX, "email");
+
+    private DuplicateUsers() {
+    }
+
+    /**
+     * Describes which unique field of a user clashed with an existing user.
+     * @param errorMessage the message of the duplicate key error
+     * @param user the user that could not be written
+     * @return the message to return to the client
+     */
+    static String describe(String errorMessage, User user) {
+        return describe(errorMessage, user.getUsername(), user.getEmail());
+    }
+
+    /**
+     * @param errorMessage the message of the duplicate key error
+     * @param user the user that could not be written
+     * @return the exception to throw in place of the duplicate key error
+     */
+    static IllegalStateException alreadyRegistered(String errorMessage, User user) {
+        return new IllegalStateException(describe(errorMessage, user));
+    }
+
+    /**
+     * @param errorMessage the message of the duplicate key error
+     * @param userRequest the requested username and email that could not be written
+     * @return the exception to throw in place of the duplicate key error
+     */
+    static IllegalStateException alreadyRegistered(String errorMessage, UserRequest userRequest) {
+        return new IllegalStateException(describe(errorMessage, userRequest.getUsername(), userRequest.getEmail()));
+    }
+
+    private static String describe(String errorMessage, String username, String email) {
+        if (errorMessage != null && EMAIL_INDEXES.stream().anyMatch(index -> errorMessage.contains("index: " + index + " "))) {
+            return "User with email: " + email + " already registered";
+        }
+        return "User with username: " + username + " already registered";
+    }
+}
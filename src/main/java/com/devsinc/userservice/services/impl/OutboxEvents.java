@@ -0,0 +1,125 @@
+package com.devsinc.userservice.services.impl;
+
+import com.devsinc.userservice.dtos.request.UpdateUserRequest;
+import com.devsinc.userservice.dtos.response.RoleResponse;
+import com.devsinc.userservice.dtos.response.UserResponse;
+import com.devsinc.userservice.mappers.RoleMapper;
+import com.devsinc.userservice.mappers.UserMapper;
+import com.devsinc.userservice.models.OutboxEvent;
+import com.devsinc.userservice.models.OutboxEventType;
+import com.devsinc.userservice.models.PendingEvent;
+import com.devsinc.userservice.models.Role;
+import com.devsinc.userservice.models.User;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Builds the events describing user and role changes, recorded as pending events in the changed document
+ * by the write making the change. Updates are conditional on the version read, so the state after them,
+ * carried by their events, is known before they are written.
+ */
+final class OutboxEvents {
+
+    static final String PENDING_EVENTS = "pendingEvents";
+
+    private OutboxEvents() {
+    }
+
+    /**
+     * @param user the user about to be inserted
+     * @return the user at its first version, the one the template gives inserted users and bulk inserts keep,
+     * with its creation recorded
+     */
+    static User created(User user) {
+        user.setVersion(1);
+        user.setPendingEvents(List.of(userEvent(OutboxEventType.USER_CREATED, UserMapper.MAPPER.toResponse(user))));
+        return user;
+    }
+
+    /**
+     * @param role the role about to be inserted
+     * @return the role with its creation recorded
+     */
+    static Role created(Role role) {
+        role.setPendingEvents(List.of(roleEvent(OutboxEventType.ROLE_CREATED, RoleMapper.MAPPER.toResponse(role))));
+        return role;
+    }
+
+    /**
+     * @param user the user as it was read
+     * @param userRequest the update applied to it
+     */
+    static PendingEvent userUpdated(User user, UpdateUserRequest userRequest) {
+        UserResponse updated = UserMapper.MAPPER.toResponse(user);
+        updated.setUsername(userRequest.getUsername());
+        updated.setEmail(userRequest.getEmail());
+        updated.setVersion(user.getVersion() + 1);
+        return userEvent(OutboxEventType.USER_UPDATED, updated);
+    }
+
+    /**
+     * @param user the user as it was read
+     */
+    static PendingEvent passwordChanged(User user) {
+        UserResponse updated = UserMapper.MAPPER.toResponse(user);
+        updated.setVersion(user.getVersion() + 1);
+        return userEvent(OutboxEventType.USER_PASSWORD_CHANGED, updated);
+    }
+
+    /**
+     * A deletion carries no payload: the relay publishes the tombstone, which the purge keeps until it has.
+     */
+    static PendingEvent userDeleted() {
+        return userEvent(OutboxEventType.USER_DELETED, null);
+    }
+
+    /**
+     * @param role the role as it was read
+     * @param roleName the name it is given
+     */
+    static PendingEvent roleRenamed(Role role, String roleName) {
+        RoleResponse updated = RoleMapper.MAPPER.toResponse(role);
+        updated.setRoleName(roleName);
+        updated.setVersion(role.getVersion() + 1);
+        return roleEvent(OutboxEventType.ROLE_UPDATED, updated);
+    }
+
+    /**
+     * @param update the update making a change
+     * @param event the event describing the change
+     * @return the update, also appending the event to the pending events of the document
+     */
+    static Update record(Update update, PendingEvent event) {
+        return update.push(PENDING_EVENTS, event);
+    }
+
+    /**
+     * @param user the user, as read by the relay, the event is pending in
+     * @param event the pending event
+     * @return the event to publish
+     */
+    static OutboxEvent published(User user, PendingEvent event) {
+        UserResponse payload = event.getUser() == null ? UserMapper.MAPPER.toResponse(user) : event.getUser();
+        return new OutboxEvent(event.getId(), event.getType(), user.getId(), event.getOccurredAt(), payload, null, null, null);
+    }
+
+    /**
+     * @param role the role, as read by the relay, the event is pending in
+     * @param event the pending event
+     * @return the event to publish
+     */
+    static OutboxEvent published(Role role, PendingEvent event) {
+        return new OutboxEvent(event.getId(), event.getType(), role.getId(), event.getOccurredAt(), null, event.getRole(), null, null);
+    }
+
+    private static PendingEvent userEvent(OutboxEventType type, UserResponse user) {
+        return new PendingEvent(UUID.randomUUID().toString(), type, Instant.now(), user, null);
+    }
+
+    private static PendingEvent roleEvent(OutboxEventType type, RoleResponse role) {
+        return new PendingEvent(UUID.randomUUID().toString(), type, Instant.now(), null, role);
+    }
+}
@@ -0,0 +1,192 @@
+package com.devsinc.userservice.services.impl;
+
+import com.devsinc.userservice.models.OutboxEvent;
+import com.devsinc.userservice.models.PendingEvent;
+import com.devsinc.userservice.models.Role;
+import com.devsinc.userservice.models.User;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Function;
+
+/**
+ * Publishes the pending events of users and roles to the change feed in batches: each event is given a sequence number,
+ * written to the outbox and then pulled from the document it was pending in. The events of a document are published
+ * in the order they were recorded, and a later change of the document is only read once the earlier ones were moved,
+ * so the sequence numbers of the events of one user or role follow the order of its changes.
+ * Only the instance holding the relay lease publishes, so sequence numbers are handed out by a single writer.
+ * Sequence numbers are reserved with a write conditional on still holding the lease, so an instance that lost it
+ * stops publishing at its next batch. Events are written to the outbox by ID, so an event moved again after
+ * a failure between its write and its pull keeps its first sequence number.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "user_service.app.outbox.relay.enabled", havingValue = "true", matchIfMissing = true)
+public class OutboxRelay {
+
+    static final String RELAY_COLLECTION = "outbox_relay";
+
+    private static final String RELAY_ID = "relay";
+
+    private final MongoTemplate mongoTemplate;
+
+    private final String owner = UUID.randomUUID().toString();
+
+    private final int batchSize;
+
+    private final Duration leaseDuration;
+
+    private final Counter published;
+
+    private final Timer lag;
+
+    /**
+     * Constructs an OutboxRelay.
+     * @param mongoTemplate the template the pending events are read and moved with
+     * @param meterRegistry the registry the relay metrics are published to
+     * @param batchSize the most users, and the most roles, whose events are published with one sequence reservation
+     * @param leaseDuration how long the relay lease is held without being renewed by a batch
+     */
+    public OutboxRelay(MongoTemplate mongoTemplate, MeterRegistry meterRegistry,
+                       @Value("${user_service.app.outbox.relay.batch-size:500}") int batchSize,
+                       @Value("${user_service.app.outbox.relay.lease-duration:30s}") Duration leaseDuration) {
+        this.mongoTemplate = mongoTemplate;
+        this.batchSize = batchSize;
+        this.leaseDuration = leaseDuration;
+        this.published = Counter.builder("outbox.events.published").register(meterRegistry);
+        this.lag = Timer.builder("outbox.relay.lag")
+                .description("Time from an outbox event being written to it being published")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Publishes every pending event, batch by batch, if this instance holds or can take the relay lease.
+     * @return the number of published events
+     */
+    @Scheduled(fixedDelayString = "${user_service.app.outbox.relay.interval:500}")
+    public long relay() {
+        if (!acquireLease()) {
+            return 0;
+        }
+        long total = 0;
+        while (true) {
+            List<User> users = mongoTemplate.find(pending(), User.class);
+            List<Role> roles = mongoTemplate.find(pending(), Role.class);
+            int relayed = publishBatch(users, roles);
+            total += relayed;
+            if (relayed == 0 || (users.size() < batchSize && roles.size() < batchSize)) {
+                return total;
+            }
+        }
+    }
+
+    private boolean acquireLease() {
+        Instant now = Instant.now();
+        Query lease = Query.query(Criteria.where("_id").is(RELAY_ID)
+                .orOperator(Criteria.where("owner").is(owner), Criteria.where("leaseExpiresAt").lt(now)));
+        Update take = Update.update("owner", owner)
+                .set("leaseExpiresAt", now.plus(leaseDuration))
+                .setOnInsert("sequence", 0L);
+        try {
+            return mongoTemplate.findAndModify(lease, take, FindAndModifyOptions.options().upsert(true).returnNew(true),
+                    Document.class, RELAY_COLLECTION) != null;
+        } catch (DuplicateKeyException e) {
+            // The lease is held by another instance.
+            return false;
+        }
+    }
+
+    /**
+     * @return the query of the documents with pending events, served by their partial pending_events indexes
+     */
+    private Query pending() {
+        return Query.query(Criteria.where(OutboxEvents.PENDING_EVENTS + "._id").exists(true)).limit(batchSize);
+    }
+
+    /**
+     * @return the number of events published, zero if there were none or the lease was lost
+     */
+    private int publishBatch(List<User> users, List<Role> roles) {
+        List<OutboxEvent> events = new ArrayList<>();
+        for (User user : users) {
+            for (PendingEvent event : user.getPendingEvents()) {
+                events.add(OutboxEvents.published(user, event));
+            }
+        }
+        for (Role role : roles) {
+            for (PendingEvent event : role.getPendingEvents()) {
+                events.add(OutboxEvents.published(role, event));
+            }
+        }
+        if (events.isEmpty()) {
+            return 0;
+        }
+        Instant now = Instant.now();
+        Document relay = mongoTemplate.findAndModify(
+                Query.query(Criteria.where("_id").is(RELAY_ID).and("owner").is(owner)),
+                new Update().inc("sequence", (long) events.size()).set("leaseExpiresAt", now.plus(leaseDuration)),
+                FindAndModifyOptions.options().returnNew(true),
+                Document.class, RELAY_COLLECTION);
+        if (relay == null) {
+            log.info("Outbox relay lease lost, leaving pending events to its new holder");
+            return 0;
+        }
+        long sequence = relay.get("sequence", Number.class).longValue() - events.size();
+        // Ordered, so the change feed never sees an event before one with a lower sequence number.
+        BulkOperations outbox = mongoTemplate.bulkOps(BulkOperations.BulkMode.ORDERED, OutboxEvent.class);
+        for (OutboxEvent event : events) {
+            event.setSequence(++sequence);
+            event.setPublishedAt(now);
+            Document document = new Document();
+            mongoTemplate.getConverter().write(event, document);
+            document.remove("_id");
+            outbox.upsert(Query.query(Criteria.where("_id").is(event.getId())), Update.fromDocument(new Document("$setOnInsert", document)));
+        }
+        outbox.execute();
+        pull(users, User::getId, User::getPendingEvents, User.class);
+        pull(roles, Role::getId, Role::getPendingEvents, Role.class);
+        published.increment(events.size());
+        for (OutboxEvent event : events) {
+            if (event.getOccurredAt() != null) {
+                lag.record(Duration.between(event.getOccurredAt(), now));
+            }
+        }
+        return events.size();
+    }
+
+    /**
+     * Pulls the published events from the documents they were pending in, leaving any recorded since they were read.
+     */
+    private <T> void pull(List<T> documents, Function<T, String> id, Function<T, List<PendingEvent>> pendingEvents,
+                          Class<T> entityClass) {
+        if (documents.isEmpty()) {
+            return;
+        }
+        BulkOperations bulkOperations = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, entityClass);
+        for (T document : documents) {
+            List<String> eventIds = pendingEvents.apply(document).stream().map(PendingEvent::getId).toList();
+            bulkOperations.updateOne(Query.query(Criteria.where("_id").is(id.apply(document))),
+                    new Update().pull(OutboxEvents.PENDING_EVENTS, new Document("_id", new Document("$in", eventIds))));
+        }
+        bulkOperations.execute();
+    }
+}
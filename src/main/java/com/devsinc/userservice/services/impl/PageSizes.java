@@ -0,0 +1,33 @@
+package com.devsinc.userservice.services.impl;
+
+/**
+ * The default and maximum page sizes of the paged user, role member, search and change feed reads.
+ */
+final class PageSizes {
+
+    private final int defaultPageSize;
+
+    private final int maxPageSize;
+
+    /**
+     * @param defaultPageSize the size of a page when no size is requested
+     * @param maxPageSize the largest page, which larger requested sizes are capped at
+     */
+    PageSizes(int defaultPageSize, int maxPageSize) {
+        this.defaultPageSize = defaultPageSize;
+        this.maxPageSize = maxPageSize;
+    }
+
+    /**
+     * @param size the requested page size, or null for the default size
+     * @return the size of the page to read
+     * @throws IllegalArgumentException if the requested size is not positive
+     */
+    int of(Integer size) {
+        int pageSize = size == null ? defaultPageSize : size;
+        if (pageSize < 1) {
+            throw new IllegalArgumentException("Page size must be greater than zero");
+        }
+        return Math.min(pageSize, maxPageSize);
+    }
+}
@@ -0,0 +1,43 @@
+package com.devsinc.userservice.services.impl;
+
+import com.devsinc.userservice.dtos.request.SignInRequest;
+import com.devsinc.userservice.dtos.response.TokenResponse;
+import com.devsinc.userservice.models.User;
+import com.devsinc.userservice.security.JwtTokenProvider;
+import com.devsinc.userservice.services.ReactiveAuthService;
+import org.springframework.context.annotation.Profile;
+import org.springframework.security.authentication.ReactiveAuthenticationManager;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+
+import java.util.concurrent.TimeUnit;
+
+@Service
+@Profile("reactive")
+public class ReactiveAuthServiceImpl implements ReactiveAuthService {
+
+    private static final String TOKEN_TYPE = "Bearer";
+
+    private final ReactiveAuthenticationManager authenticationManager;
+
+    private final JwtTokenProvider jwtTokenProvider;
+
+    public ReactiveAuthServiceImpl(ReactiveAuthenticationManager authenticationManager, JwtTokenProvider jwtTokenProvider) {
+        this.authenticationManager = authenticationManager;
+        this.jwtTokenProvider = jwtTokenProvider;
+    }
+
+    /**
+     * Verifies the credentials of a user and issues an access token.
+     * @param signInRequest the username and password
+     * @return Mono of the access token, failing with an AuthenticationException if the credentials are invalid
+     */
+    @Override
+    public Mono<TokenResponse> signIn(SignInRequest signInRequest) {
+        return authenticationManager.authenticate(
+                        new UsernamePasswordAuthenticationToken(signInRequest.getUsername(), signInRequest.getPassword()))
+                .map(authentication -> new TokenResponse(jwtTokenProvider.generateToken((User) authentication.getPrincipal()),
+                        TOKEN_TYPE, TimeUnit.MILLISECONDS.toSeconds(jwtTokenProvider.getExpirationMs())));
+    }
+}
@@ -0,0 +1,181 @@
+package com.devsinc.userservice.services.impl;
+
+import com.devsinc.userservice.caches.RoleCatalog;
+import com.devsinc.userservice.caches.RoleMemberCounts;
+import com.devsinc.userservice.dtos.request.CreateRoleRequest;
+import com.devsinc.userservice.dtos.request.UpdateRoleRequest;
+import com.devsinc.userservice.dtos.response.CursorPageResponse;
+import com.devsinc.userservice.dtos.response.RoleResponse;
+import com.devsinc.userservice.dtos.response.UserResponse;
+import com.devsinc.userservice.mappers.RoleMapper;
+import com.devsinc.userservice.models.Role;
+import com.devsinc.userservice.models.User;
+import com.devsinc.userservice.repositories.ReactiveRoleRepository;
+import com.devsinc.userservice.repositories.ReactiveUserRepository;
+import com.devsinc.userservice.services.ReactiveRoleService;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.UUID;
+
+/**
+ * Non-blocking implementation of the role operations, active with the reactive profile.
+ * The role catalog is refreshed from roles loaded through the reactive repository.
+ */
+@Service
+@Profile("reactive")
+public class ReactiveRoleServiceImpl implements ReactiveRoleService {
+
+    private final ReactiveRoleRepository roleRepository;
+
+    private final RoleCatalog roleCatalog;
+
+    private final ReactiveMongoTemplate mongoTemplate;
+
+    private final ReactiveUserRepository userRepository;
+
+    private final RoleMemberCounts memberCounts;
+
+    private final PageSizes pageSizes;
+
+    /**
+     * Constructs a ReactiveRoleServiceImpl.
+     * @param roleRepository the reactive repository for roles
+     * @param roleCatalog the in-memory catalog of roles
+     * @param mongoTemplate the template roles are renamed with, and their new names propagated to user documents with
+     * @param userRepository the reactive repository the members of a role are read from
+     * @param memberCounts the cache of the number of users holding each role
+     * @param defaultPageSize the number of members in a page when no size is requested
+     * @param maxPageSize the most members in a page
+     */
+    public ReactiveRoleServiceImpl(ReactiveRoleRepository roleRepository, RoleCatalog roleCatalog,
+                                   ReactiveMongoTemplate mongoTemplate, ReactiveUserRepository userRepository,
+                                   RoleMemberCounts memberCounts,
+                                   @Value("${user_service.app.users.default-page-size:50}") int defaultPageSize,
+                                   @Value("${user_service.app.users.max-page-size:500}") int maxPageSize) {
+        this.roleRepository = roleRepository;
+        this.roleCatalog = roleCatalog;
+        this.mongoTemplate = mongoTemplate;
+        this.userRepository = userRepository;
+        this.memberCounts = memberCounts;
+        this.pageSizes = new PageSizes(defaultPageSize, maxPageSize);
+    }
+
+    /**
+     * Saves a new role together with its pending event and refreshes the role catalog.
+     * @param roleRequest the request object containing the role information to be saved
+     * @return Mono of the created role, failing with IllegalStateException if a role with the requested name already exists
+     */
+    @Override
+    public Mono<RoleResponse> saveRole(CreateRoleRequest roleRequest) {
+        Role roleToBeSaved = RoleMapper.MAPPER.toEntity(roleRequest);
+        roleToBeSaved.setId(UUID.randomUUID().toString());
+        return roleRepository.insert(OutboxEvents.created(roleToBeSaved))
+                .onErrorMap(DuplicateKeyException.class, e -> roleAlreadyExists(roleRequest.getRoleName()))
+                .flatMap(savedRole -> refreshCatalog().thenReturn(savedRole))
+                .map(RoleMapper.MAPPER::toResponse);
+    }
+
+    /**
+     * Renames a role with a single update conditional on the version read, which also records its pending event,
+     * propagates the new name to every user embedding it
+     * and refreshes the role catalog.
+     * @param roleRequest the request object containing the ID and the new name of the role
+     * @return Mono of the updated role, failing with NoSuchElementException if the role with the specified ID is not found,
+     * with IllegalStateException if another role already has the requested name,
+     * or with OptimisticLockingFailureException if the role was modified since it was read
+     */
+    @Override
+    public Mono<RoleResponse> updateRole(UpdateRoleRequest roleRequest) {
+        return roleRepository.findById(roleRequest.getId())
+                .switchIfEmpty(Mono.error(() -> new NoSuchElementException("Unable to find role with id: " + roleRequest.getId())))
+                .flatMap(roleToBeUpdated -> mongoTemplate.findAndModify(VersionedRoleUpdates.atVersion(roleToBeUpdated),
+                                VersionedRoleUpdates.rename(roleToBeUpdated, roleRequest.getRoleName()), VersionedUserUpdates.RETURN_NEW, Role.class)
+                        .onErrorMap(DuplicateKeyException.class, e -> roleAlreadyExists(roleRequest.getRoleName()))
+                        .switchIfEmpty(Mono.error(() -> VersionedRoleUpdates.conflict(roleRequest.getId()))))
+                .flatMap(savedRole -> mongoTemplate.updateMulti(
+                        Query.query(Criteria.where("roles.id").is(savedRole.getId())),
+                        new Update().set("roles.$.roleName", savedRole.getRoleName()),
+                        User.class
+                ).then(refreshCatalog()).thenReturn(savedRole))
+                .map(RoleMapper.MAPPER::toResponse);
+    }
+
+    /**
+     * Retrieves a role by its ID, from the role catalog when present.
+     * @param id the ID of the role to retrieve
+     * @return Mono of the role, failing with NoSuchElementException if the role with the specified ID is not found
+     */
+    @Override
+    public Mono<RoleResponse> getRole(String id) {
+        return findRole(id).map(RoleMapper.MAPPER::toResponse);
+    }
+
+    /**
+     * Retrieves all roles.
+     * @return Mono of all role responses
+     */
+    @Override
+    public Mono<List<RoleResponse>> getAllRoles() {
+        return roleRepository.findAll().map(RoleMapper.MAPPER::toResponse).collectList();
+    }
+
+    /**
+     * Retrieves one page of the users holding a role, ordered by ID, using keyset pagination on _id.
+     * @param id the ID of the role
+     * @param cursor the ID of the last user of the previous page, or null for the first page
+     * @param size the requested page size, capped at the configured maximum, or null for the default size
+     * @return Mono of the users of the page and the cursor of the next page, failing with NoSuchElementException
+     * if the role with the specified ID is not found, or with IllegalArgumentException if the requested page size is not positive
+     */
+    @Override
+    public Mono<CursorPageResponse<UserResponse>> getRoleUsers(String id, String cursor, Integer size) {
+        return Mono.fromCallable(() -> pageSizes.of(size)).flatMap(pageSize -> {
+            PageRequest pageRequest = PageRequest.ofSize(pageSize + 1);
+            Flux<UserResponse> users = cursor == null || cursor.isBlank()
+                    ? userRepository.findByRolesIdAndDeletedAtIsNullOrderByIdAsc(id, pageRequest)
+                    : userRepository.findByRolesIdAndIdGreaterThanAndDeletedAtIsNullOrderByIdAsc(id, cursor, pageRequest);
+            return findRole(id).then(users.collectList()).map(page -> {
+                boolean hasNext = page.size() > pageSize;
+                List<UserResponse> items = hasNext ? page.subList(0, pageSize) : page;
+                return new CursorPageResponse<>(items, hasNext ? items.get(items.size() - 1).getId() : null);
+            });
+        });
+    }
+
+    /**
+     * Counts the users holding a role, from the member count cache when present.
+     * @param id the ID of the role
+     * @return Mono of the number of users holding the role, failing with NoSuchElementException if the role with the specified ID is not found
+     */
+    @Override
+    public Mono<Long> countRoleUsers(String id) {
+        return findRole(id).then(Mono.defer(() -> Mono.justOrEmpty(memberCounts.getIfPresent(id)))
+                .switchIfEmpty(userRepository.countByRolesIdAndDeletedAtIsNull(id).doOnNext(count -> memberCounts.put(id, count))));
+    }
+
+    private Mono<Role> findRole(String id) {
+        return Mono.justOrEmpty(roleCatalog.findCachedById(id))
+                .switchIfEmpty(roleRepository.findById(id).map(roleCatalog::put))
+                .switchIfEmpty(Mono.error(() -> new NoSuchElementException("Unable to find role with id: " + id)));
+    }
+
+    private Mono<Void> refreshCatalog() {
+        return roleRepository.findAll().collectList().doOnNext(roleCatalog::replace).then();
+    }
+
+    private IllegalStateException roleAlreadyExists(String roleName) {
+        return new IllegalStateException("Role with roleName: " + roleName + " already exists");
+    }
+}
@@ -0,0 +1,365 @@
+package com.devsinc.userservice.services.impl;
+
+import com.devsinc.userservice.caches.RoleCatalog;
+import com.devsinc.userservice.caches.RoleMemberCounts;
+import com.devsinc.userservice.caches.VerifiedCredentialCache;
+import com.devsinc.userservice.configurations.PasswordEncoderConfig;
+import com.devsinc.userservice.dtos.request.BatchGetUsersRequest;
+import com.devsinc.userservice.dtos.request.CreateUserRequest;
+import com.devsinc.userservice.dtos.request.UpdatePasswordRequest;
+import com.devsinc.userservice.dtos.request.UpdateUserRequest;
+import com.devsinc.userservice.dtos.request.UserSearchRequest;
+import com.devsinc.userservice.dtos.response.BatchGetResponse;
+import com.devsinc.userservice.dtos.response.ChangeFeedResponse;
+import com.devsinc.userservice.dtos.response.CursorPageResponse;
+import com.devsinc.userservice.dtos.response.UserResponse;
+import com.devsinc.userservice.mappers.UserMapper;
+import com.devsinc.userservice.models.RoleRef;
+import com.devsinc.userservice.models.User;
+import com.devsinc.userservice.repositories.ReactiveOutboxEventRepository;
+import com.devsinc.userservice.repositories.ReactiveRoleRepository;
+import com.devsinc.userservice.repositories.ReactiveUserRepository;
+import com.devsinc.userservice.security.PasswordHashingExecutor;
+import com.devsinc.userservice.services.ReactiveUserService;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.security.core.userdetails.UserCache;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+
+import java.time.Instant;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Non-blocking implementation of the user operations, active with the reactive profile.
+ * Mongo is accessed through reactive repositories and BCrypt runs on the password hashing scheduler,
+ * so no event loop thread ever blocks.
+ */
+@Service
+@Profile("reactive")
+public class ReactiveUserServiceImpl implements ReactiveUserService {
+
+    private final ReactiveUserRepository userRepository;
+
+    private final ReactiveRoleRepository roleRepository;
+
+    private final ReactiveMongoTemplate mongoTemplate;
+
+    private final ReactiveOutboxEventRepository outboxEventRepository;
+
+    private final RoleCatalog roleCatalog;
+
+    private final RoleMemberCounts memberCounts;
+
+    private final PasswordEncoder passwordEncoder;
+
+    private final Scheduler passwordScheduler;
+
+    private final UserCache userCache;
+
+    private final VerifiedCredentialCache credentialCache;
+
+    private final PageSizes pageSizes;
+
+    private final int maxBatchSize;
+
+    public ReactiveUserServiceImpl(ReactiveUserRepository userRepository, ReactiveRoleRepository roleRepository,
+                                   ReactiveMongoTemplate mongoTemplate,
+                                   ReactiveOutboxEventRepository outboxEventRepository,
+                                   RoleCatalog roleCatalog, RoleMemberCounts memberCounts,
+                                   @Qualifier(PasswordEncoderConfig.PASSWORD_ENCODER) PasswordEncoder passwordEncoder,
+                                   PasswordHashingExecutor passwordHashingExecutor, UserCache userCache,
+                                   VerifiedCredentialCache credentialCache,
+                                   @Value("${user_service.app.users.default-page-size:50}") int defaultPageSize,
+                                   @Value("${user_service.app.users.max-page-size:500}") int maxPageSize,
+                                   @Value("${user_service.app.users.max-batch-size:500}") int maxBatchSize) {
+        this.userRepository = userRepository;
+        this.roleRepository = roleRepository;
+        this.mongoTemplate = mongoTemplate;
+        this.outboxEventRepository = outboxEventRepository;
+        this.roleCatalog = roleCatalog;
+        this.memberCounts = memberCounts;
+        this.passwordEncoder = passwordEncoder;
+        this.passwordScheduler = passwordHashingExecutor.scheduler();
+        this.userCache = userCache;
+        this.credentialCache = credentialCache;
+        this.pageSizes = new PageSizes(defaultPageSize, maxPageSize);
+        this.maxBatchSize = maxBatchSize;
+    }
+
+    /**
+     * Get one page of users, ordered by ID, using keyset pagination on _id.
+     * @param cursor The ID of the last user of the previous page, or null for the first page.
+     * @param size The requested page size, capped at the configured maximum. Null for the default size.
+     * @return Mono of the CursorPageResponse holding the users of the page and the cursor of the next page.
+     */
+    @Override
+    public Mono<CursorPageResponse<UserResponse>> getAllUsers(String cursor, Integer size) {
+        return Mono.fromCallable(() -> pageSizes.of(size)).flatMap(pageSize -> {
+            PageRequest pageRequest = PageRequest.ofSize(pageSize + 1);
+            Flux<UserResponse> users = cursor == null || cursor.isBlank()
+                    ? userRepository.findAllByDeletedAtIsNullOrderByIdAsc(pageRequest)
+                    : userRepository.findByIdGreaterThanAndDeletedAtIsNullOrderByIdAsc(cursor, pageRequest);
+            return users.collectList().map(page -> {
+                boolean hasNext = page.size() > pageSize;
+                List<UserResponse> items = hasNext ? page.subList(0, pageSize) : page;
+                return new CursorPageResponse<>(items, hasNext ? items.get(items.size() - 1).getId() : null);
+            });
+        });
+    }
+
+    /**
+     * Search users by username or email prefix, first or last name prefix and role, ignoring case,
+     * with keyset pagination on the sort field.
+     * @param searchRequest The filters, sort order, cursor and page size of the search.
+     * @return Mono of the CursorPageResponse holding the users of the page and the cursor of the next page,
+     * failing with IllegalArgumentException if the sort order, cursor or page size is invalid.
+     */
+    @Override
+    public Mono<CursorPageResponse<UserResponse>> searchUsers(UserSearchRequest searchRequest) {
+        return Mono.fromCallable(() -> pageSizes.of(searchRequest.getSize()))
+                .flatMap(pageSize -> Mono.fromCallable(() -> new UserSearchQuery(searchRequest))
+                        .flatMap(searchQuery -> mongoTemplate.query(User.class).as(UserResponse.class)
+                                .matching(searchQuery.query(pageSize))
+                                .all()
+                                .collectList()
+                                .map(users -> searchQuery.page(users, pageSize))));
+    }
+
+    /**
+     * Get the user and role changes published since the given token, in feed order.
+     * @param since The token returned with the previous changes, or null to read from the oldest retained change.
+     * @param size The requested number of changes, capped at the configured maximum page size. Null for the default size.
+     * @return Mono of the ChangeFeedResponse holding the changes and the token to read the next changes from,
+     * failing with IllegalArgumentException if the token is invalid or the requested size is not positive.
+     */
+    @Override
+    public Mono<ChangeFeedResponse> getChanges(String since, Integer size) {
+        return Mono.fromCallable(() -> pageSizes.of(size))
+                .flatMap(pageSize -> Mono.fromCallable(() -> ChangeFeeds.since(since))
+                        .flatMap(after -> outboxEventRepository.findBySequenceGreaterThanOrderBySequenceAsc(after,
+                                        PageRequest.ofSize(pageSize + 1))
+                                .collectList()
+                                .map(changes -> ChangeFeeds.page(changes, pageSize, after))));
+    }
+
+    /**
+     * Stream all users, ordered by ID, as they are read from the database cursor.
+     * @return Flux of every user, honouring downstream demand.
+     */
+    @Override
+    public Flux<UserResponse> streamAllUsers() {
+        return userRepository.streamAllByDeletedAtIsNullOrderByIdAsc();
+    }
+
+    /**
+     * Find a user by ID.
+     * @param id The ID of the user to find.
+     * @return Mono of the found user, failing with NoSuchElementException if no user with the given ID is found.
+     */
+    @Override
+    public Mono<UserResponse> findUserById(String id) {
+        return userRepository.findResponseByIdAndDeletedAtIsNull(id)
+                .switchIfEmpty(Mono.error(() -> new NoSuchElementException("Unable to find user with id: " + id)));
+    }
+
+    /**
+     * Find a user by username.
+     * @param username The username of the user to find.
+     * @return Mono of the found user, failing with NoSuchElementException if no user with the given username is found.
+     */
+    @Override
+    public Mono<UserResponse> findUserByUsername(String username) {
+        return userRepository.findResponseByUsernameAndDeletedAtIsNull(username)
+                .switchIfEmpty(Mono.error(() -> new NoSuchElementException("Unable to find user with username: " + username)));
+    }
+
+    /**
+     * Find many users by ID or by username with a single $in query.
+     * @param batchGetUsersRequest The BatchGetUsersRequest holding either the IDs or the usernames to find.
+     * @return Mono of the found users keyed by the requested ID or username, with the keys matching no user,
+     * failing with IllegalArgumentException if more users are requested than the configured maximum.
+     */
+    @Override
+    public Mono<BatchGetResponse<UserResponse>> findUsers(BatchGetUsersRequest batchGetUsersRequest) {
+        boolean byId = batchGetUsersRequest.getIds() != null;
+        Set<String> keys = new LinkedHashSet<>(byId ? batchGetUsersRequest.getIds() : batchGetUsersRequest.getUsernames());
+        keys.remove(null);
+        if (keys.size() > maxBatchSize) {
+            return Mono.error(new IllegalArgumentException("At most " + maxBatchSize + " users can be requested at once"));
+        }
+        if (keys.isEmpty()) {
+            return Mono.just(BatchGetResponse.of(keys, List.of(), UserResponse::getId));
+        }
+        Flux<UserResponse> users = byId ? userRepository.findResponsesByIdInAndDeletedAtIsNull(keys) : userRepository.findResponsesByUsernameInAndDeletedAtIsNull(keys);
+        return users.collectList().map(found -> BatchGetResponse.of(keys, found,
+                byId ? UserResponse::getId : UserResponse::getUsername));
+    }
+
+    /**
+     * Create a new user with a single insert, relying on the unique indexes for username and email,
+     * record its pending event in the same write and count it as a member of its roles.
+     * @param userRequest The CreateUserRequest object containing the user details.
+     * @return Mono of the created user, failing with IllegalStateException if the username or email is taken,
+     * or with NoSuchElementException if a role with a given roleName does not exist.
+     */
+    @Override
+    public Mono<UserResponse> createUser(CreateUserRequest userRequest) {
+        User userToBeCreated = UserMapper.MAPPER.toModel(userRequest);
+        userToBeCreated.setId(UUID.randomUUID().toString());
+        userToBeCreated.setActive(true);
+        Mono<List<RoleRef>> roles = Flux.fromIterable(userRequest.getRoleNames())
+                .concatMap(this::findRoleByRoleName)
+                .collectList();
+        Mono<String> encodedPassword = Mono.fromCallable(() -> passwordEncoder.encode(userRequest.getPassword()))
+                .subscribeOn(passwordScheduler);
+        return roles.zipWith(encodedPassword)
+                .flatMap(rolesAndPassword -> {
+                    userToBeCreated.setRoles(rolesAndPassword.getT1());
+                    userToBeCreated.setPassword(rolesAndPassword.getT2());
+                    return userRepository.insert(OutboxEvents.created(userToBeCreated));
+                })
+                .onErrorMap(DuplicateKeyException.class, e -> DuplicateUsers.alreadyRegistered(e.getMessage(), userToBeCreated))
+                .doOnNext(createdUser -> memberCounts.added(createdUser.getRoles()))
+                .map(UserMapper.MAPPER::toResponse);
+    }
+
+    /**
+     * Update an existing user, record its pending event in the same write and evict it from the user cache.
+     * Only the changed fields are written, with a single update conditional on the version read.
+     * @param userRequest The UpdateUserRequest object containing the updated user details.
+     * @return Mono of the updated user, failing with NoSuchElementException if no user with the given ID is found,
+     * with IllegalStateException if the new username or email belongs to another user,
+     * or with OptimisticLockingFailureException if the user was modified since it was read, or is not at the requested version.
+     */
+    @Override
+    public Mono<UserResponse> updateUser(UpdateUserRequest userRequest) {
+        return findById(userRequest.getId())
+                .flatMap(userToBeUpdated -> {
+                    Update changes = VersionedUserUpdates.changes(userToBeUpdated, userRequest);
+                    if (changes == null) {
+                        return Mono.just(userToBeUpdated);
+                    }
+                    return mongoTemplate.findAndModify(VersionedUserUpdates.atVersion(userToBeUpdated),
+                                    OutboxEvents.record(changes, OutboxEvents.userUpdated(userToBeUpdated, userRequest)),
+                                    VersionedUserUpdates.RETURN_NEW, User.class)
+                            .onErrorMap(DuplicateKeyException.class, e -> DuplicateUsers.alreadyRegistered(e.getMessage(), userRequest))
+                            .switchIfEmpty(Mono.error(() -> VersionedUserUpdates.conflict(userRequest.getId())))
+                            .doOnNext(updatedUser -> {
+                                userCache.removeUserFromCache(userToBeUpdated.getUsername());
+                                userCache.removeUserFromCache(updatedUser.getUsername());
+                            });
+                })
+                .map(UserMapper.MAPPER::toResponse);
+    }
+
+    /**
+     * Update the password of a user, record its pending event in the same write
+     * and evict it from the user and credential caches.
+     * @param updatePasswordRequest The UpdatePasswordRequest object containing the user ID and new password.
+     * @return Mono of the updated user, failing with NoSuchElementException if no user with the given ID is found,
+     * with IllegalArgumentException if the provided current password is incorrect,
+     * or with OptimisticLockingFailureException if the user was modified while its password was being checked.
+     */
+    @Override
+    public Mono<UserResponse> updatePassword(UpdatePasswordRequest updatePasswordRequest) {
+        return findById(updatePasswordRequest.getId())
+                .publishOn(passwordScheduler)
+                .flatMap(userToBeUpdated -> {
+                    if (!passwordEncoder.matches(updatePasswordRequest.getCurrentPassword(), userToBeUpdated.getPassword())) {
+                        return Mono.error(new IllegalArgumentException("Incorrect Password"));
+                    }
+                    Update password = VersionedUserUpdates.password(passwordEncoder.encode(updatePasswordRequest.getNewPassword()));
+                    return mongoTemplate.findAndModify(VersionedUserUpdates.atVersion(userToBeUpdated),
+                                    OutboxEvents.record(password, OutboxEvents.passwordChanged(userToBeUpdated)),
+                                    VersionedUserUpdates.RETURN_NEW, User.class)
+                            .switchIfEmpty(Mono.error(() -> VersionedUserUpdates.conflict(updatePasswordRequest.getId())))
+                            .doOnNext(updatedUser -> {
+                                userCache.removeUserFromCache(updatedUser.getUsername());
+                                credentialCache.invalidate(userToBeUpdated.getPassword());
+                            });
+                })
+                .map(UserMapper.MAPPER::toResponse);
+    }
+
+    /**
+     * Delete a user by ID, record its pending event in the same write, evict it from the user and credential caches
+     * and stop counting it as a member of its roles.
+     * The user is tombstoned with a single update conditional on it not being deleted yet, and purged later.
+     * @param id The ID of the user to delete.
+     * @return Mono completing once deleted, failing with NoSuchElementException if no user with the given ID is found,
+     * or it is already deleted.
+     */
+    @Override
+    public Mono<Void> deleteUser(String id) {
+        return mongoTemplate.findAndModify(DeletedUsers.notDeleted(id),
+                        OutboxEvents.record(DeletedUsers.tombstone(Instant.now()), OutboxEvents.userDeleted()),
+                        VersionedUserUpdates.RETURN_NEW, User.class)
+                .switchIfEmpty(Mono.error(() -> new NoSuchElementException("Unable to find user with id: " + id)))
+                .doOnNext(deletedUser -> {
+                    userCache.removeUserFromCache(deletedUser.getUsername());
+                    credentialCache.invalidate(deletedUser.getPassword());
+                    memberCounts.removed(deletedUser.getRoles());
+                })
+                .then();
+    }
+
+    /**
+     * Find a user by username for authentication.
+     * @param username The username of the user to load.
+     * @return Mono of the user, empty if no user with the given username exists.
+     */
+    @Override
+    public Mono<UserDetails> findByUsername(String username) {
+        return userRepository.findByUsernameAndDeletedAtIsNull(username).cast(UserDetails.class);
+    }
+
+    /**
+     * Replace the password hash of a user who just logged in with an outdated encoding,
+     * and evict it from the user and credential caches.
+     * The hash is only replaced if it is still the one the user logged in with, so a concurrent password change wins.
+     * @param user The authenticated user, holding the outdated hash.
+     * @param newPassword The password of the user, encoded with the current encoding.
+     * @return Mono of the user holding the new hash, or unchanged if its password was changed in the meantime.
+     */
+    @Override
+    public Mono<UserDetails> updatePassword(UserDetails user, String newPassword) {
+        User userToBeUpdated = (User) user;
+        String previousPassword = userToBeUpdated.getPassword();
+        return userRepository.replacePassword(userToBeUpdated.getId(), previousPassword, newPassword).map(replaced -> {
+            if (replaced == 0) {
+                return user;
+            }
+            userCache.removeUserFromCache(userToBeUpdated.getUsername());
+            credentialCache.invalidate(previousPassword);
+            userToBeUpdated.setPassword(newPassword);
+            userToBeUpdated.setVersion(userToBeUpdated.getVersion() + 1);
+            return userToBeUpdated;
+        });
+    }
+
+    private Mono<User> findById(String id) {
+        return userRepository.findByIdAndDeletedAtIsNull(id)
+                .switchIfEmpty(Mono.error(() -> new NoSuchElementException("Unable to find user with id: " + id)));
+    }
+
+    private Mono<RoleRef> findRoleByRoleName(String roleName) {
+        return Mono.justOrEmpty(roleCatalog.findCachedByRoleName(roleName))
+                .switchIfEmpty(roleRepository.findByRoleName(roleName).map(roleCatalog::put))
+                .switchIfEmpty(Mono.error(() -> new NoSuchElementException("No role with roleName: " + roleName + " exists")))
+                .map(RoleRef::of);
+    }
+}
@@ -1,11 +1,28 @@
 package com.devsinc.userservice.services.impl;
 
+import com.devsinc.userservice.caches.RoleCatalog;
+import com.devsinc.userservice.caches.RoleMemberCounts;
 import com.devsinc.userservice.dtos.request.CreateRoleRequest;
+import com.devsinc.userservice.dtos.request.UpdateRoleRequest;
+import com.devsinc.userservice.dtos.response.CursorPageResponse;
 import com.devsinc.userservice.dtos.response.RoleResponse;
+import com.devsinc.userservice.dtos.response.UserResponse;
 import com.devsinc.userservice.mappers.RoleMapper;
 import com.devsinc.userservice.models.Role;
+import com.devsinc.userservice.models.User;
 import com.devsinc.userservice.repositories.RoleRepository;
+import com.devsinc.userservice.repositories.UserRepository;
 import com.devsinc.userservice.services.RoleService;
+import io.micrometer.core.annotation.Timed;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
 import org.springframework.stereotype.Service;
 
 import java.util.List;
@@ -17,39 +34,107 @@ import java.util.UUID;
  * Provides methods for managing roles.
  */
 @Service
+@Timed("service.invocations")
+@Profile("!reactive")
 public class RoleServiceImpl implements RoleService {
 
     private final RoleRepository roleRepository;
 
+    private final RoleCatalog roleCatalog;
+
+    private final MongoTemplate mongoTemplate;
+
+    private final UserRepository userRepository;
+
+    private final RoleMemberCounts memberCounts;
+
+    private final PageSizes pageSizes;
+
     /**
-     * Constructs a RoleServiceImpl with the specified RoleRepository.
+     * Constructs a RoleServiceImpl.
      * @param roleRepository the repository for roles
+     * @param roleCatalog the in-memory catalog of roles
+     * @param mongoTemplate the template roles are renamed with, and their new names propagated to user documents with
+     * @param userRepository the repository the members of a role are read from
+     * @param memberCounts the cache of the number of users holding each role
+     * @param defaultPageSize the number of members in a page when no size is requested
+     * @param maxPageSize the most members in a page
      */
-    public RoleServiceImpl(RoleRepository roleRepository) {
+    public RoleServiceImpl(RoleRepository roleRepository, RoleCatalog roleCatalog, MongoTemplate mongoTemplate,
+                           UserRepository userRepository, RoleMemberCounts memberCounts,
+                           @Value("${user_service.app.users.default-page-size:50}") int defaultPageSize,
+                           @Value("${user_service.app.users.max-page-size:500}") int maxPageSize) {
         this.roleRepository = roleRepository;
+        this.roleCatalog = roleCatalog;
+        this.mongoTemplate = mongoTemplate;
+        this.userRepository = userRepository;
+        this.memberCounts = memberCounts;
+        this.pageSizes = new PageSizes(defaultPageSize, maxPageSize);
     }
 
     /**
-     * Saves a new role.
+     * Saves a new role together with its pending event and refreshes the role catalog.
      * @param roleRequest the request object containing the role information to be saved
      * @return the created role response
+     * @throws IllegalStateException if a role with the requested name already exists
      */
     @Override
     public RoleResponse saveRole(CreateRoleRequest roleRequest) {
         Role roleToBeSaved = RoleMapper.MAPPER.toEntity(roleRequest);
         roleToBeSaved.setId(UUID.randomUUID().toString());
-        return RoleMapper.MAPPER.toResponse(roleRepository.save(roleToBeSaved));
+        Role savedRole;
+        try {
+            savedRole = roleRepository.insert(OutboxEvents.created(roleToBeSaved));
+        } catch (DuplicateKeyException e) {
+            throw roleAlreadyExists(roleRequest.getRoleName());
+        }
+        roleCatalog.refresh();
+        return RoleMapper.MAPPER.toResponse(savedRole);
     }
 
     /**
-     * Retrieves a role by its ID.
+     * Renames a role with a single update conditional on the version read, which also records its pending event,
+     * propagates the new name to every user embedding it
+     * and refreshes the role catalog.
+     * @param roleRequest the request object containing the ID and the new name of the role
+     * @return the updated role response
+     * @throws NoSuchElementException if the role with the specified ID is not found
+     * @throws IllegalStateException if another role already has the requested name
+     * @throws OptimisticLockingFailureException if the role was modified since it was read
+     */
+    @Override
+    public RoleResponse updateRole(UpdateRoleRequest roleRequest) {
+        Role roleToBeUpdated = roleRepository.findById(roleRequest.getId()).orElseThrow(
+                () -> new NoSuchElementException("Unable to find role with id: " + roleRequest.getId())
+        );
+        Role savedRole;
+        try {
+            savedRole = mongoTemplate.findAndModify(VersionedRoleUpdates.atVersion(roleToBeUpdated),
+                    VersionedRoleUpdates.rename(roleToBeUpdated, roleRequest.getRoleName()), VersionedUserUpdates.RETURN_NEW, Role.class);
+        } catch (DuplicateKeyException e) {
+            throw roleAlreadyExists(roleRequest.getRoleName());
+        }
+        if (savedRole == null) {
+            throw VersionedRoleUpdates.conflict(roleRequest.getId());
+        }
+        mongoTemplate.updateMulti(
+                Query.query(Criteria.where("roles.id").is(savedRole.getId())),
+                new Update().set("roles.$.roleName", savedRole.getRoleName()),
+                User.class
+        );
+        roleCatalog.refresh();
+        return RoleMapper.MAPPER.toResponse(savedRole);
+    }
+
+    /**
+     * Retrieves a role by its ID from the role catalog.
      * @param id the ID of the role to retrieve
      * @return the retrieved role response
      * @throws NoSuchElementException if the role with the specified ID is not found
      */
     @Override
     public RoleResponse getRole(String id) {
-        Role byId = roleRepository.findById(id).orElseThrow(
+        Role byId = roleCatalog.findById(id).orElseThrow(
                 () -> new NoSuchElementException("Unable to find role with id: " + id)
         );
         return RoleMapper.MAPPER.toResponse(byId);
@@ -63,4 +148,49 @@ public class RoleServiceImpl implements RoleService {
     public List<RoleResponse> getAllRoles() {
         return roleRepository.findAll().stream().map(RoleMapper.MAPPER::toResponse).toList();
     }
+
+    /**
+     * Retrieves one page of the users holding a role, ordered by ID.
+     * Served by the role_members index, with keyset pagination on _id.
+     * @param id the ID of the role
+     * @param cursor the ID of the last user of the previous page, or null for the first page
+     * @param size the requested page size, capped at the configured maximum, or null for the default size
+     * @return the users of the page and the cursor of the next page
+     * @throws NoSuchElementException if the role with the specified ID is not found
+     * @throws IllegalArgumentException if the requested page size is not positive
+     */
+    @Override
+    public CursorPageResponse<UserResponse> getRoleUsers(String id, String cursor, Integer size) {
+        int pageSize = pageSizes.of(size);
+        requireRole(id);
+        PageRequest pageRequest = PageRequest.ofSize(pageSize + 1);
+        List<UserResponse> users = cursor == null || cursor.isBlank()
+                ? userRepository.findByRolesIdAndDeletedAtIsNullOrderByIdAsc(id, pageRequest)
+                : userRepository.findByRolesIdAndIdGreaterThanAndDeletedAtIsNullOrderByIdAsc(id, cursor, pageRequest);
+        boolean hasNext = users.size() > pageSize;
+        List<UserResponse> items = hasNext ? users.subList(0, pageSize) : users;
+        return new CursorPageResponse<>(items, hasNext ? items.get(items.size() - 1).getId() : null);
+    }
+
+    /**
+     * Counts the users holding a role, from the member count cache when present.
+     * @param id the ID of the role
+     * @return the number of users holding the role
+     * @throws NoSuchElementException if the role with the specified ID is not found
+     */
+    @Override
+    public long countRoleUsers(String id) {
+        requireRole(id);
+        return memberCounts.get(id, userRepository::countByRolesIdAndDeletedAtIsNull);
+    }
+
+    private void requireRole(String id) {
+        if (roleCatalog.findById(id).isEmpty()) {
+            throw new NoSuchElementException("Unable to find role with id: " + id);
+        }
+    }
+
+    private IllegalStateException roleAlreadyExists(String roleName) {
+        return new IllegalStateException("Role with roleName: " + roleName + " already exists");
+    }
 }
@@ -0,0 +1,260 @@
+package com.devsinc.userservice.services.impl;
+
+import com.devsinc.userservice.caches.RoleCatalog;
+import com.devsinc.userservice.caches.RoleMemberCounts;
+import com.devsinc.userservice.dtos.request.CreateUserRequest;
+import com.devsinc.userservice.dtos.response.UserImportResponse;
+import com.devsinc.userservice.dtos.response.UserImportResult;
+import com.devsinc.userservice.mappers.UserMapper;
+import com.devsinc.userservice.models.RoleRef;
+import com.devsinc.userservice.models.User;
+import com.devsinc.userservice.security.PasswordHashingExecutor;
+import com.devsinc.userservice.services.UserImportService;
+import com.mongodb.bulk.BulkWriteError;
+import io.micrometer.core.annotation.Timed;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+
+/**
+ * Bulk user import.
+ * Rows are processed in batches: each batch is validated in memory, checked for existing usernames and emails
+ * with a single $in query, hashed in parallel and written with one unordered bulk insert.
+ * Every imported user is inserted with its creation event pending in it, so no user is stored without its event.
+ */
+@Slf4j
+@Service
+@Timed("service.invocations")
+public class UserImportServiceImpl implements UserImportService {
+
+    private static final int DUPLICATE_KEY_ERROR_CODE = 11000;
+
+    private final MongoTemplate mongoTemplate;
+
+    private final RoleCatalog roleCatalog;
+
+    private final RoleMemberCounts memberCounts;
+
+    private final PasswordHashingExecutor passwordHashingExecutor;
+
+    private final Validator validator;
+
+    private final int batchSize;
+
+    private final int maxRows;
+
+    public UserImportServiceImpl(MongoTemplate mongoTemplate, RoleCatalog roleCatalog, RoleMemberCounts memberCounts,
+                                 PasswordHashingExecutor passwordHashingExecutor, Validator validator,
+                                 @Value("${user_service.app.imports.batch-size:1000}") int batchSize,
+                                 @Value("${user_service.app.imports.max-rows:100000}") int maxRows) {
+        this.mongoTemplate = mongoTemplate;
+        this.roleCatalog = roleCatalog;
+        this.memberCounts = memberCounts;
+        this.passwordHashingExecutor = passwordHashingExecutor;
+        this.validator = validator;
+        this.batchSize = batchSize;
+        this.maxRows = maxRows;
+    }
+
+    /**
+     * Import users in batches.
+     * Rows failing validation, naming an unknown role, or whose username or email is already taken,
+     * either in the database or by an earlier row of the payload, are rejected without affecting the others.
+     * Reading stops at the first malformed row or once the configured maximum number of rows is reached;
+     * the batches written before that are kept.
+     * @param rows The users to create, read lazily in payload order.
+     * @return UserImportResponse holding the outcome of every row.
+     */
+    @Override
+    public UserImportResponse importUsers(Iterator<CreateUserRequest> rows) {
+        List<UserImportResult> allResults = new ArrayList<>();
+        Set<String> claimedUsernames = new HashSet<>();
+        Set<String> claimedEmails = new HashSet<>();
+        List<CreateUserRequest> batch = new ArrayList<>(batchSize);
+        int index = 0;
+        while (true) {
+            CreateUserRequest row;
+            try {
+                if (!rows.hasNext()) {
+                    break;
+                }
+                row = rows.next();
+            } catch (RuntimeException e) {
+                flush(batch, index - batch.size(), allResults, claimedUsernames, claimedEmails);
+                allResults.add(UserImportResult.failed(index, null, List.of("Malformed row: " + e.getMessage())));
+                break;
+            }
+            if (index == maxRows) {
+                flush(batch, index - batch.size(), allResults, claimedUsernames, claimedEmails);
+                allResults.add(UserImportResult.failed(index, null, List.of("Import is limited to " + maxRows + " rows")));
+                break;
+            }
+            batch.add(row);
+            index++;
+            if (batch.size() == batchSize) {
+                flush(batch, index - batch.size(), allResults, claimedUsernames, claimedEmails);
+            }
+        }
+        flush(batch, index - batch.size(), allResults, claimedUsernames, claimedEmails);
+        int imported = (int) allResults.stream().filter(result -> result.getStatus() == UserImportResult.Status.IMPORTED).count();
+        log.info("Imported {} of {} users", imported, allResults.size());
+        return new UserImportResponse(allResults.size(), imported, allResults.size() - imported, allResults);
+    }
+
+    private void flush(List<CreateUserRequest> batch, int firstIndex, List<UserImportResult> allResults,
+                       Set<String> claimedUsernames, Set<String> claimedEmails) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        UserImportResult[] results = new UserImportResult[batch.size()];
+        List<List<RoleRef>> roles = new ArrayList<>(batch.size());
+        Set<String> usernames = new HashSet<>();
+        Set<String> emails = new HashSet<>();
+        for (int i = 0; i < batch.size(); i++) {
+            CreateUserRequest row = batch.get(i);
+            List<String> errors = validate(row);
+            List<RoleRef> rowRoles = errors.isEmpty() ? resolveRoles(row, errors) : null;
+            roles.add(rowRoles);
+            if (!errors.isEmpty()) {
+                results[i] = UserImportResult.failed(firstIndex + i, row == null ? null : row.getUsername(), errors);
+                continue;
+            }
+            usernames.add(row.getUsername());
+            emails.add(row.getEmail());
+        }
+        // Names are claimed for the rest of the payload once their row is inserted, and meanwhile only held within the batch.
+        Set<String> batchUsernames = new HashSet<>();
+        Set<String> batchEmails = new HashSet<>();
+
+        Set<String> existingUsernames = new HashSet<>();
+        Set<String> existingEmails = new HashSet<>();
+        if (!usernames.isEmpty()) {
+            Query query = new Query(new Criteria().andOperator(DeletedUsers.notDeleted(),
+                    new Criteria().orOperator(where("username").in(usernames), where("email").in(emails))));
+            query.fields().include("username", "email");
+            for (User existing : mongoTemplate.find(query, User.class)) {
+                existingUsernames.add(existing.getUsername());
+                existingEmails.add(existing.getEmail());
+            }
+        }
+
+        List<User> users = new ArrayList<>();
+        List<Integer> positions = new ArrayList<>();
+        List<String> rawPasswords = new ArrayList<>();
+        for (int i = 0; i < batch.size(); i++) {
+            if (results[i] != null) {
+                continue;
+            }
+            CreateUserRequest row = batch.get(i);
+            List<String> errors = new ArrayList<>();
+            if (existingUsernames.contains(row.getUsername()) || claimedUsernames.contains(row.getUsername())
+                    || batchUsernames.contains(row.getUsername())) {
+                errors.add("User with username: " + row.getUsername() + " already registered");
+            }
+            if (existingEmails.contains(row.getEmail()) || claimedEmails.contains(row.getEmail())
+                    || batchEmails.contains(row.getEmail())) {
+                errors.add("User with email: " + row.getEmail() + " already registered");
+            }
+            if (!errors.isEmpty()) {
+                results[i] = UserImportResult.failed(firstIndex + i, row.getUsername(), errors);
+                continue;
+            }
+            batchUsernames.add(row.getUsername());
+            batchEmails.add(row.getEmail());
+            User user = UserMapper.MAPPER.toModel(row);
+            user.setId(UUID.randomUUID().toString());
+            user.setActive(true);
+            user.setRoles(roles.get(i));
+            users.add(OutboxEvents.created(user));
+            positions.add(i);
+            rawPasswords.add(row.getPassword());
+        }
+
+        if (!users.isEmpty()) {
+            List<String> encodedPasswords = passwordHashingExecutor.encodeAll(rawPasswords);
+            for (int i = 0; i < users.size(); i++) {
+                users.get(i).setPassword(encodedPasswords.get(i));
+            }
+            Map<Integer, String> writeErrors = insert(users);
+            for (int i = 0; i < users.size(); i++) {
+                int position = positions.get(i);
+                User user = users.get(i);
+                String writeError = writeErrors.get(i);
+                if (writeError == null) {
+                    claimedUsernames.add(user.getUsername());
+                    claimedEmails.add(user.getEmail());
+                    memberCounts.added(user.getRoles());
+                }
+                results[position] = writeError == null
+                        ? UserImportResult.imported(firstIndex + position, user.getUsername(), user.getId())
+                        : UserImportResult.failed(firstIndex + position, user.getUsername(), List.of(writeError));
+            }
+        }
+        allResults.addAll(List.of(results));
+        batch.clear();
+    }
+
+    private List<String> validate(CreateUserRequest row) {
+        List<String> errors = new ArrayList<>();
+        if (row == null) {
+            errors.add("Row must not be null");
+            return errors;
+        }
+        for (ConstraintViolation<CreateUserRequest> violation : validator.validate(row)) {
+            errors.add(violation.getPropertyPath() + ": " + violation.getMessage());
+        }
+        return errors;
+    }
+
+    private List<RoleRef> resolveRoles(CreateUserRequest row, List<String> errors) {
+        List<RoleRef> roles = new ArrayList<>();
+        for (String roleName : row.getRoleNames()) {
+            Optional<RoleRef> role = roleCatalog.findByRoleName(roleName).map(RoleRef::of);
+            if (role.isPresent()) {
+                roles.add(role.get());
+            } else {
+                errors.add("No role with roleName: " + roleName + " exists");
+            }
+        }
+        return roles;
+    }
+
+    /**
+     * Inserts users with a single unordered bulk write, so one failing document does not stop the others.
+     * Users registered concurrently since the $in check are rejected by the unique indexes.
+     * @return the write error messages, keyed by position in the given list
+     */
+    private Map<Integer, String> insert(List<User> users) {
+        Map<Integer, String> writeErrors = new HashMap<>();
+        try {
+            mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, User.class).insert(users).execute();
+        } catch (BulkOperationException e) {
+            for (BulkWriteError error : e.getErrors()) {
+                String message = error.getCode() == DUPLICATE_KEY_ERROR_CODE
+                        ? DuplicateUsers.describe(error.getMessage(), users.get(error.getIndex()))
+                        : error.getMessage();
+                writeErrors.put(error.getIndex(), message);
+            }
+        }
+        return writeErrors;
+    }
+}
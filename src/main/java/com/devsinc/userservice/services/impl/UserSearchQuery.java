@@ -0,0 +1,140 @@
+package com.devsinc.userservice.services.impl;
+
+import com.devsinc.userservice.dtos.request.UserSearchRequest;
+import com.devsinc.userservice.dtos.response.CursorPageResponse;
+import com.devsinc.userservice.dtos.response.UserResponse;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.query.Collation;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.util.StringUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Translates a UserSearchRequest into a query served by the *_search indexes of User.
+ * Prefixes become case-insensitive index ranges rather than regular expressions, which cannot use a collation.
+ * Pages are keyset paginated on (sort field, _id); the cursor holds the sort field, and the sort value
+ * and ID of the last user of the previous page.
+ */
+final class UserSearchQuery {
+
+    /**
+     * The collation of the search indexes: English, ignoring case but not accents.
+     */
+    static final Collation COLLATION = Collation.of("en").strength(Collation.ComparisonLevel.secondary());
+
+    /**
+     * Sorts after every other character in the ICU root collation, so it bounds a prefix range.
+     */
+    private static final char HIGHEST = '\uFFFF';
+
+    private static final String CURSOR_SEPARATOR = "\n";
+
+    private final UserSearchRequest searchRequest;
+
+    private final String sortField;
+
+    private final Sort.Direction direction;
+
+    private final Function<UserResponse, String> sortValue;
+
+    /**
+     * @param searchRequest the search to run
+     * @throws IllegalArgumentException if the sort order is not supported
+     */
+    UserSearchQuery(UserSearchRequest searchRequest) {
+        this.searchRequest = searchRequest;
+        String[] sort = StringUtils.hasText(searchRequest.getSort()) ? searchRequest.getSort().split(",", 2) : new String[] { "username" };
+        this.sortField = sort[0].trim();
+        this.sortValue = switch (sortField) {
+            case "username" -> UserResponse::getUsername;
+            case "email" -> UserResponse::getEmail;
+            default -> throw new IllegalArgumentException("Users can only be sorted by username or email");
+        };
+        this.direction = sort.length == 1 ? Sort.Direction.ASC : Sort.Direction.fromOptionalString(sort[1].trim())
+                .orElseThrow(() -> new IllegalArgumentException("Sort direction must be asc or desc"));
+    }
+
+    /**
+     * @param pageSize the size of the page
+     * @return the query of the page, fetching one extra user to tell whether there is a next page
+     * @throws IllegalArgumentException if the cursor is invalid or belongs to another sort order
+     */
+    Query query(int pageSize) {
+        List<Criteria> criteria = new ArrayList<>();
+        criteria.add(DeletedUsers.notDeleted());
+        if (StringUtils.hasText(searchRequest.getUsernamePrefix())) {
+            criteria.add(prefix("username", searchRequest.getUsernamePrefix()));
+        }
+        if (StringUtils.hasText(searchRequest.getEmailPrefix())) {
+            criteria.add(prefix("email", searchRequest.getEmailPrefix()));
+        }
+        if (StringUtils.hasText(searchRequest.getName())) {
+            criteria.add(new Criteria().orOperator(prefix("firstName", searchRequest.getName()),
+                    prefix("lastName", searchRequest.getName())));
+        }
+        if (StringUtils.hasText(searchRequest.getRole())) {
+            criteria.add(Criteria.where("roles.roleName").is(searchRequest.getRole()));
+        }
+        if (StringUtils.hasText(searchRequest.getCursor())) {
+            criteria.add(after(searchRequest.getCursor()));
+        }
+        return new Query(new Criteria().andOperator(criteria)).with(Sort.by(direction, sortField, "_id"))
+                .limit(pageSize + 1)
+                .collation(COLLATION);
+    }
+
+    /**
+     * @param users the users read by the query of the page
+     * @param pageSize the size of the page
+     * @return the page, with the cursor of the next page if there is one
+     */
+    CursorPageResponse<UserResponse> page(List<UserResponse> users, int pageSize) {
+        boolean hasNext = users.size() > pageSize;
+        List<UserResponse> items = hasNext ? users.subList(0, pageSize) : users;
+        String nextCursor = hasNext ? cursor(items.get(items.size() - 1)) : null;
+        return new CursorPageResponse<>(items, nextCursor);
+    }
+
+    private Criteria prefix(String field, String prefix) {
+        return Criteria.where(field).gte(prefix).lt(prefix + HIGHEST);
+    }
+
+    /**
+     * Users after the cursor: a range on the sort field, excluding the users sorting equal to the last one
+     * up to its ID, so the index bounds stay on the sort field.
+     */
+    private Criteria after(String cursor) {
+        String[] parts;
+        try {
+            parts = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8).split(CURSOR_SEPARATOR, 3);
+        } catch (IllegalArgumentException e) {
+            throw invalidCursor();
+        }
+        if (parts.length != 3 || !parts[0].equals(sortField)) {
+            throw invalidCursor();
+        }
+        String value = parts[1];
+        String id = parts[2];
+        boolean ascending = direction.isAscending();
+        Criteria range = ascending ? Criteria.where(sortField).gte(value) : Criteria.where(sortField).lte(value);
+        Criteria upToLast = ascending
+                ? Criteria.where(sortField).is(value).and("_id").lte(id)
+                : Criteria.where(sortField).is(value).and("_id").gte(id);
+        return new Criteria().andOperator(range, new Criteria().norOperator(upToLast));
+    }
+
+    private String cursor(UserResponse last) {
+        String cursor = sortField + CURSOR_SEPARATOR + sortValue.apply(last) + CURSOR_SEPARATOR + last.getId();
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(cursor.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static IllegalArgumentException invalidCursor() {
+        return new IllegalArgumentException("Invalid cursor for this sort order");
+    }
+}
@@ -1,48 +1,160 @@
 package com.devsinc.userservice.services.impl;
 
+import com.devsinc.userservice.caches.RoleCatalog;
+import com.devsinc.userservice.caches.RoleMemberCounts;
+import com.devsinc.userservice.caches.VerifiedCredentialCache;
+import com.devsinc.userservice.dtos.request.BatchGetUsersRequest;
 import com.devsinc.userservice.dtos.request.CreateUserRequest;
 import com.devsinc.userservice.dtos.request.UpdatePasswordRequest;
 import com.devsinc.userservice.dtos.request.UpdateUserRequest;
+import com.devsinc.userservice.dtos.request.UserSearchRequest;
+import com.devsinc.userservice.dtos.response.BatchGetResponse;
+import com.devsinc.userservice.dtos.response.ChangeEventResponse;
+import com.devsinc.userservice.dtos.response.ChangeFeedResponse;
+import com.devsinc.userservice.dtos.response.CursorPageResponse;
 import com.devsinc.userservice.dtos.response.UserResponse;
 import com.devsinc.userservice.mappers.UserMapper;
-import com.devsinc.userservice.models.Role;
+import com.devsinc.userservice.models.RoleRef;
 import com.devsinc.userservice.models.User;
-import com.devsinc.userservice.repositories.RoleRepository;
+import com.devsinc.userservice.repositories.OutboxEventRepository;
 import com.devsinc.userservice.repositories.UserRepository;
 import com.devsinc.userservice.services.UserService;
+import io.micrometer.core.annotation.Timed;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.security.core.userdetails.UserCache;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 
+import java.time.Instant;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.NoSuchElementException;
+import java.util.Set;
 import java.util.UUID;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 
 @Service
+@Timed("service.invocations")
+@Profile("!reactive")
 public class UserServiceImpl implements UserService {
 
     private final UserRepository userRepository;
 
-    private final RoleRepository roleRepository;
+    private final MongoTemplate mongoTemplate;
 
-    private final BCryptPasswordEncoder passwordEncoder;
+    private final OutboxEventRepository outboxEventRepository;
 
-    public UserServiceImpl(UserRepository userRepository, RoleRepository roleRepository, BCryptPasswordEncoder passwordEncoder) {
+    private final RoleCatalog roleCatalog;
+
+    private final RoleMemberCounts memberCounts;
+
+    private final PasswordEncoder passwordEncoder;
+
+    private final UserCache userCache;
+
+    private final VerifiedCredentialCache credentialCache;
+
+    private final PageSizes pageSizes;
+
+    private final int maxBatchSize;
+
+    public UserServiceImpl(UserRepository userRepository, MongoTemplate mongoTemplate,
+                           OutboxEventRepository outboxEventRepository, RoleCatalog roleCatalog, RoleMemberCounts memberCounts,
+                           PasswordEncoder passwordEncoder, UserCache userCache,
+                           VerifiedCredentialCache credentialCache,
+                           @Value("${user_service.app.users.default-page-size:50}") int defaultPageSize,
+                           @Value("${user_service.app.users.max-page-size:500}") int maxPageSize,
+                           @Value("${user_service.app.users.max-batch-size:500}") int maxBatchSize) {
         this.userRepository = userRepository;
-        this.roleRepository = roleRepository;
+        this.mongoTemplate = mongoTemplate;
+        this.outboxEventRepository = outboxEventRepository;
+        this.roleCatalog = roleCatalog;
+        this.memberCounts = memberCounts;
         this.passwordEncoder = passwordEncoder;
+        this.userCache = userCache;
+        this.credentialCache = credentialCache;
+        this.pageSizes = new PageSizes(defaultPageSize, maxPageSize);
+        this.maxBatchSize = maxBatchSize;
     }
 
     /**
-     * Get all users.
-     * @return List of UserResponse objects representing all users.
+     * Get one page of users, ordered by ID.
+     * Uses keyset pagination on _id, so every page costs a single indexed range scan
+     * no matter how deep into the collection the cursor is.
+     * @param cursor The ID of the last user of the previous page, or null for the first page.
+     * @param size The requested page size, capped at the configured maximum. Null for the default size.
+     * @return CursorPageResponse holding the users of the page and the cursor of the next page.
+     * @throws IllegalArgumentException if the requested page size is not positive.
      */
     @Override
-    public List<UserResponse> getAllUsers() {
-        List<User> users = userRepository.findAll();
-        return users.stream().map(UserMapper.MAPPER::toResponse).toList();
+    public CursorPageResponse<UserResponse> getAllUsers(String cursor, Integer size) {
+        int pageSize = pageSizes.of(size);
+        // Fetch one extra row to know whether there is a next page without a count query.
+        PageRequest pageRequest = PageRequest.ofSize(pageSize + 1);
+        List<UserResponse> users = cursor == null || cursor.isBlank()
+                ? userRepository.findAllByDeletedAtIsNullOrderByIdAsc(pageRequest)
+                : userRepository.findByIdGreaterThanAndDeletedAtIsNullOrderByIdAsc(cursor, pageRequest);
+        boolean hasNext = users.size() > pageSize;
+        List<UserResponse> items = hasNext ? users.subList(0, pageSize) : users;
+        String nextCursor = hasNext ? items.get(items.size() - 1).getId() : null;
+        return new CursorPageResponse<>(items, nextCursor);
+    }
+
+    /**
+     * Search users by username or email prefix, first or last name prefix and role, ignoring case.
+     * Every filter and sort order is served by one of the *_search indexes, and pages are keyset paginated
+     * on the sort field, so no page requires a collection scan.
+     * @param searchRequest The filters, sort order, cursor and page size of the search.
+     * @return CursorPageResponse holding the users of the page and the cursor of the next page.
+     * @throws IllegalArgumentException if the sort order, cursor or page size is invalid.
+     */
+    @Override
+    public CursorPageResponse<UserResponse> searchUsers(UserSearchRequest searchRequest) {
+        int pageSize = pageSizes.of(searchRequest.getSize());
+        UserSearchQuery searchQuery = new UserSearchQuery(searchRequest);
+        List<UserResponse> users = mongoTemplate.query(User.class).as(UserResponse.class)
+                .matching(searchQuery.query(pageSize))
+                .all();
+        return searchQuery.page(users, pageSize);
+    }
+
+    /**
+     * Get the user and role changes published since the given token, in feed order.
+     * Reads the published outbox events with a single range scan on their sequence.
+     * @param since The token returned with the previous changes, or null to read from the oldest retained change.
+     * @param size The requested number of changes, capped at the configured maximum page size. Null for the default size.
+     * @return ChangeFeedResponse holding the changes and the token to read the next changes from.
+     * @throws IllegalArgumentException if the token is invalid or the requested size is not positive.
+     */
+    @Override
+    public ChangeFeedResponse getChanges(String since, Integer size) {
+        long after = ChangeFeeds.since(since);
+        int pageSize = pageSizes.of(size);
+        List<ChangeEventResponse> changes = outboxEventRepository.findBySequenceGreaterThanOrderBySequenceAsc(after,
+                PageRequest.ofSize(pageSize + 1));
+        return ChangeFeeds.page(changes, pageSize, after);
+    }
+
+    /**
+     * Stream all users, ordered by ID, to the given consumer.
+     * Users are read through a server-side cursor in batches, so memory use does not grow with the collection.
+     * @param consumer The consumer receiving each user in turn.
+     */
+    @Override
+    public void streamAllUsers(Consumer<UserResponse> consumer) {
+        try (Stream<UserResponse> users = userRepository.streamAllByDeletedAtIsNullOrderByIdAsc()) {
+            users.forEach(consumer);
+        }
     }
 
     /**
@@ -53,10 +165,9 @@ public class UserServiceImpl implements UserService {
      */
     @Override
     public UserResponse findUserById(String id) {
-        User user = userRepository.findById(id).orElseThrow(
+        return userRepository.findResponseByIdAndDeletedAtIsNull(id).orElseThrow(
                 () -> new NoSuchElementException("Unable to find user with id: " + id)
         );
-        return UserMapper.MAPPER.toResponse(user);
     }
 
     /**
@@ -67,14 +178,33 @@ public class UserServiceImpl implements UserService {
      */
     @Override
     public UserResponse findUserByUsername(String username) {
-        User user = userRepository.findByUsername(username).orElseThrow(
+        return userRepository.findResponseByUsernameAndDeletedAtIsNull(username).orElseThrow(
                 () -> new NoSuchElementException("Unable to find user with username: " + username)
         );
-        return UserMapper.MAPPER.toResponse(user);
     }
 
     /**
-     * Create a new user.
+     * Find many users by ID or by username with a single $in query.
+     * Duplicate keys are looked up once.
+     * @param batchGetUsersRequest The BatchGetUsersRequest holding either the IDs or the usernames to find.
+     * @return BatchGetResponse holding the found users keyed by the requested ID or username, and the keys matching no user.
+     * @throws IllegalArgumentException if more users are requested than the configured maximum.
+     */
+    @Override
+    public BatchGetResponse<UserResponse> findUsers(BatchGetUsersRequest batchGetUsersRequest) {
+        boolean byId = batchGetUsersRequest.getIds() != null;
+        Set<String> keys = batchKeys(byId ? batchGetUsersRequest.getIds() : batchGetUsersRequest.getUsernames());
+        if (keys.isEmpty()) {
+            return BatchGetResponse.of(keys, List.of(), UserResponse::getId);
+        }
+        return byId
+                ? BatchGetResponse.of(keys, userRepository.findResponsesByIdInAndDeletedAtIsNull(keys), UserResponse::getId)
+                : BatchGetResponse.of(keys, userRepository.findResponsesByUsernameInAndDeletedAtIsNull(keys), UserResponse::getUsername);
+    }
+
+    /**
+     * Create a new user, record its pending event in the same write and count it as a member of its roles.
+     * Uniqueness of the username and email is enforced by unique indexes, so this is a single insert.
      * @param userRequest The CreateUserRequest object containing the user details.
      * @return The UserResponse object representing the created user.
      * @throws IllegalStateException if a user with the given username or email already exists.
@@ -83,82 +213,149 @@ public class UserServiceImpl implements UserService {
     @Override
     public UserResponse createUser(CreateUserRequest userRequest) {
         User userToBeCreated = UserMapper.MAPPER.toModel(userRequest);
-        boolean userExists = userRepository.findByUsername(userToBeCreated.getEmail()).isPresent();
-        if(userExists){
-            throw new IllegalStateException("User with username: " + userToBeCreated.getEmail() + " already registered");
-        }
-        userExists = userRepository.findByEmail(userToBeCreated.getEmail()).isPresent();
-        if(userExists){
-            throw new IllegalStateException("User with email: " + userToBeCreated.getEmail() + " already registered");
-        }
-        userToBeCreated.setId(UUID.randomUUID().toString());
-        userToBeCreated.setPassword(passwordEncoder.encode(userToBeCreated.getPassword()));
-        List<Role> roles = userRequest.getRoleNames().stream().map(
-                roleName -> roleRepository.findByRoleName(roleName).orElseThrow(
+        List<RoleRef> roles = userRequest.getRoleNames().stream().map(
+                roleName -> roleCatalog.findByRoleName(roleName).map(RoleRef::of).orElseThrow(
                         () -> new NoSuchElementException("No role with roleName: " + roleName + " exists")
                 )
         ).toList();
+        userToBeCreated.setId(UUID.randomUUID().toString());
+        userToBeCreated.setActive(true);
+        userToBeCreated.setPassword(passwordEncoder.encode(userToBeCreated.getPassword()));
         userToBeCreated.setRoles(roles);
-        return UserMapper.MAPPER.toResponse(userRepository.save(userToBeCreated));
+        User createdUser;
+        try {
+            createdUser = userRepository.insert(OutboxEvents.created(userToBeCreated));
+        } catch (DuplicateKeyException e) {
+            throw DuplicateUsers.alreadyRegistered(e.getMessage(), userToBeCreated);
+        }
+        memberCounts.added(createdUser.getRoles());
+        return UserMapper.MAPPER.toResponse(createdUser);
     }
 
     /**
-     * Update an existing user.
+     * Update an existing user, record its pending event in the same write and evict it from the user cache.
+     * Only the changed fields are written, with a single update conditional on the version read,
+     * so a concurrent update of the same user is detected instead of overwritten.
      * @param userRequest The UpdateUserRequest object containing the updated user details.
      * @return The UserResponse object representing the updated user.
      * @throws NoSuchElementException if no user with the given ID is found.
+     * @throws IllegalStateException if the new username or email belongs to another user.
+     * @throws OptimisticLockingFailureException if the user was modified since it was read, or is not at the requested version.
      */
     @Override
     public UserResponse updateUser(UpdateUserRequest userRequest) {
-        User userToBeUpdated = userRepository.findById(userRequest.getId()).orElseThrow(
+        User userToBeUpdated = userRepository.findByIdAndDeletedAtIsNull(userRequest.getId()).orElseThrow(
                 () -> new NoSuchElementException("Unable to find user with id: " + userRequest.getId())
         );
-        User user = UserMapper.MAPPER.toModel(userRequest, userToBeUpdated);
-        return UserMapper.MAPPER.toResponse(userRepository.save(user));
+        Update changes = VersionedUserUpdates.changes(userToBeUpdated, userRequest);
+        if (changes == null) {
+            return UserMapper.MAPPER.toResponse(userToBeUpdated);
+        }
+        User updatedUser;
+        try {
+            updatedUser = mongoTemplate.findAndModify(VersionedUserUpdates.atVersion(userToBeUpdated),
+                    OutboxEvents.record(changes, OutboxEvents.userUpdated(userToBeUpdated, userRequest)),
+                    VersionedUserUpdates.RETURN_NEW, User.class);
+        } catch (DuplicateKeyException e) {
+            throw DuplicateUsers.alreadyRegistered(e.getMessage(), userRequest);
+        }
+        if (updatedUser == null) {
+            throw VersionedUserUpdates.conflict(userRequest.getId());
+        }
+        userCache.removeUserFromCache(userToBeUpdated.getUsername());
+        userCache.removeUserFromCache(updatedUser.getUsername());
+        return UserMapper.MAPPER.toResponse(updatedUser);
     }
 
     /**
-     * Update the password of a user.
+     * Update the password of a user, record its pending event in the same write
+     * and evict it from the user and credential caches.
      * @param updatePasswordRequest The UpdatePasswordRequest object containing the user ID and new password.
      * @return The UserResponse object representing the user with the updated password.
      * @throws NoSuchElementException if no user with the given ID is found.
-     * @throws RuntimeException if the provided current password is incorrect.
+     * @throws IllegalArgumentException if the provided current password is incorrect.
+     * @throws OptimisticLockingFailureException if the user was modified while its password was being checked.
      */
     @Override
     public UserResponse updatePassword(UpdatePasswordRequest updatePasswordRequest) {
-        User userToBeUpdated = userRepository.findById(updatePasswordRequest.getId()).orElseThrow(
+        User userToBeUpdated = userRepository.findByIdAndDeletedAtIsNull(updatePasswordRequest.getId()).orElseThrow(
                 () -> new NoSuchElementException("Unable to find user with id: " + updatePasswordRequest.getId())
         );
-        if (userToBeUpdated.getPassword().equals(updatePasswordRequest.getCurrentPassword())){
-            userToBeUpdated.setPassword(userToBeUpdated.getPassword());
-            userRepository.save(userToBeUpdated);
+        if (!passwordEncoder.matches(updatePasswordRequest.getCurrentPassword(), userToBeUpdated.getPassword())){
+            throw new IllegalArgumentException("Incorrect Password");
+        }
+        Update password = VersionedUserUpdates.password(passwordEncoder.encode(updatePasswordRequest.getNewPassword()));
+        User updatedUser = mongoTemplate.findAndModify(VersionedUserUpdates.atVersion(userToBeUpdated),
+                OutboxEvents.record(password, OutboxEvents.passwordChanged(userToBeUpdated)), VersionedUserUpdates.RETURN_NEW, User.class);
+        if (updatedUser == null) {
+            throw VersionedUserUpdates.conflict(updatePasswordRequest.getId());
         }
-        throw new RuntimeException("Incorrect Password");
+        userCache.removeUserFromCache(updatedUser.getUsername());
+        credentialCache.invalidate(userToBeUpdated.getPassword());
+        return UserMapper.MAPPER.toResponse(updatedUser);
     }
 
     /**
-     * Delete a user by ID.
+     * Delete a user by ID, record its pending event in the same write, evict it from the user and credential caches
+     * and stop counting it as a member of its roles.
+     * The user is tombstoned with a single update conditional on it not being deleted yet, and purged later.
      * @param id The ID of the user to delete.
-     * @throws NoSuchElementException if no user with the given ID is found.
+     * @throws NoSuchElementException if no user with the given ID is found, or it is already deleted.
      */
     @Override
     public void deleteUser(String id) {
-        User userToBeDeleted = userRepository.findById(id).orElseThrow(
-                () -> new NoSuchElementException("Unable to find user with id: " + id)
-        );
-        userRepository.delete(userToBeDeleted);
+        User deletedUser = mongoTemplate.findAndModify(DeletedUsers.notDeleted(id),
+                OutboxEvents.record(DeletedUsers.tombstone(Instant.now()), OutboxEvents.userDeleted()), VersionedUserUpdates.RETURN_NEW, User.class);
+        if (deletedUser == null) {
+            throw new NoSuchElementException("Unable to find user with id: " + id);
+        }
+        userCache.removeUserFromCache(deletedUser.getUsername());
+        credentialCache.invalidate(deletedUser.getPassword());
+        memberCounts.removed(deletedUser.getRoles());
     }
 
     /**
      * Load a user by username.
+     * Role names are embedded in the user document, so this is a single document fetch.
      * @param username The username of the user to load.
      * @return A UserDetails object representing the loaded user.
      * @throws UsernameNotFoundException if no user with the given username is found.
      */
     @Override
     public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
-        return userRepository.findByUsername(username).orElseThrow(
+        return userRepository.findByUsernameAndDeletedAtIsNull(username).orElseThrow(
                 () -> new UsernameNotFoundException("User with username: " + username + " not found!")
         );
     }
+
+    /**
+     * Replace the password hash of a user who just logged in with an outdated encoding,
+     * and evict it from the user and credential caches.
+     * The hash is only replaced if it is still the one the user logged in with, so a concurrent password change wins.
+     * @param user The authenticated user, holding the outdated hash.
+     * @param newPassword The password of the user, encoded with the current encoding.
+     * @return The user holding the new hash, or unchanged if its password was changed in the meantime.
+     */
+    @Override
+    public UserDetails updatePassword(UserDetails user, String newPassword) {
+        User userToBeUpdated = (User) user;
+        String previousPassword = userToBeUpdated.getPassword();
+        if (userRepository.replacePassword(userToBeUpdated.getId(), previousPassword, newPassword) == 0) {
+            return user;
+        }
+        userCache.removeUserFromCache(userToBeUpdated.getUsername());
+        credentialCache.invalidate(previousPassword);
+        userToBeUpdated.setPassword(newPassword);
+        userToBeUpdated.setVersion(userToBeUpdated.getVersion() + 1);
+        return userToBeUpdated;
+    }
+
+    private Set<String> batchKeys(List<String> requested) {
+        Set<String> keys = new LinkedHashSet<>(requested);
+        keys.remove(null);
+        if (keys.size() > maxBatchSize) {
+            throw new IllegalArgumentException("At most " + maxBatchSize + " users can be requested at once");
+        }
+        return keys;
+    }
 }
@@ -0,0 +1,48 @@
+package com.devsinc.userservice.services.impl;
+
+import com.devsinc.userservice.models.Role;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+/**
+ * Builds the version checked updates of role documents, which record their event in the same write.
+ * A role renamed concurrently fails with an OptimisticLockingFailureException instead of being overwritten.
+ */
+final class VersionedRoleUpdates {
+
+    private static final String VERSION = "version";
+
+    private VersionedRoleUpdates() {
+    }
+
+    /**
+     * @param role the role as it was read
+     * @return the query matching the role only while it is still at the version it was read at.
+     * Roles written before versioning have no version field, and match version zero.
+     */
+    static Query atVersion(Role role) {
+        Criteria version = role.getVersion() == 0
+                ? Criteria.where(VERSION).in(0L, null)
+                : Criteria.where(VERSION).is(role.getVersion());
+        return Query.query(Criteria.where("_id").is(role.getId()).andOperator(version));
+    }
+
+    /**
+     * @param role the role as it was read
+     * @param roleName the name it is given
+     * @return the update renaming the role, incrementing its version and recording the event
+     */
+    static Update rename(Role role, String roleName) {
+        return OutboxEvents.record(Update.update("roleName", roleName).inc(VERSION, 1), OutboxEvents.roleRenamed(role, roleName));
+    }
+
+    /**
+     * @param id the ID of the role
+     * @return the exception thrown when the role changed since it was read
+     */
+    static OptimisticLockingFailureException conflict(String id) {
+        return new OptimisticLockingFailureException("Role with id: " + id + " was modified concurrently, reload it and retry");
+    }
+}
@@ -0,0 +1,77 @@
+package com.devsinc.userservice.services.impl;
+
+import com.devsinc.userservice.dtos.request.UpdateUserRequest;
+import com.devsinc.userservice.models.User;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.util.Objects;
+
+/**
+ * Builds the partial, version checked updates of user documents.
+ * Only the fields that change are written, and only if the user is still at the version it was read at,
+ * so concurrent updates fail with an OptimisticLockingFailureException instead of overwriting each other.
+ */
+final class VersionedUserUpdates {
+
+    /**
+     * Returns the user as it is after the update.
+     */
+    static final FindAndModifyOptions RETURN_NEW = FindAndModifyOptions.options().returnNew(true);
+
+    private static final String VERSION = "version";
+
+    private VersionedUserUpdates() {
+    }
+
+    /**
+     * @param user the user as it was read
+     * @return the query matching the user only while it is still at the version it was read at.
+     * Users written before versioning have no version field, and match version zero.
+     */
+    static Query atVersion(User user) {
+        Criteria version = user.getVersion() == 0
+                ? Criteria.where(VERSION).in(0L, null)
+                : Criteria.where(VERSION).is(user.getVersion());
+        return Query.query(Criteria.where("_id").is(user.getId()).andOperator(version));
+    }
+
+    /**
+     * @param user the user as it was read
+     * @param userRequest the requested changes
+     * @return the update setting the fields the request changes and incrementing the version, or null if nothing changes
+     * @throws OptimisticLockingFailureException if the request expects another version than the one read
+     */
+    static Update changes(User user, UpdateUserRequest userRequest) {
+        if (userRequest.getVersion() != null && userRequest.getVersion() != user.getVersion()) {
+            throw conflict(user.getId());
+        }
+        Update update = new Update();
+        if (!Objects.equals(user.getUsername(), userRequest.getUsername())) {
+            update.set("username", userRequest.getUsername());
+        }
+        if (!Objects.equals(user.getEmail(), userRequest.getEmail())) {
+            update.set("email", userRequest.getEmail());
+        }
+        return update.getUpdateObject().isEmpty() ? null : update.inc(VERSION, 1);
+    }
+
+    /**
+     * @param encodedPassword the new password hash
+     * @return the update setting the password and incrementing the version
+     */
+    static Update password(String encodedPassword) {
+        return new Update().set("password", encodedPassword).inc(VERSION, 1);
+    }
+
+    /**
+     * @param id the ID of the user
+     * @return the exception thrown when the user changed since it was read
+     */
+    static OptimisticLockingFailureException conflict(String id) {
+        return new OptimisticLockingFailureException("User with id: " + id + " was modified concurrently, reload it and retry");
+    }
+}
@@ -0,0 +1,15 @@
+package com.devsinc.userservice;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+@SpringBootTest
+@ActiveProfiles({"test", "reactive"})
+class ReactiveUserServiceApplicationTests {
+
+    @Test
+    void contextLoads() {
+    }
+
+}
@@ -0,0 +1,34 @@
+package com.devsinc.userservice.benchmarks;
+
+import com.devsinc.userservice.dtos.response.UserResponse;
+import com.devsinc.userservice.models.RoleRef;
+import com.devsinc.userservice.models.User;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Sample models shared by the benchmarks.
+ */
+final class Fixtures {
+
+    private Fixtures() {
+    }
+
+    static User user(int roleCount) {
+        List<RoleRef> roles = new ArrayList<>(roleCount);
+        for (int i = 0; i < roleCount; i++) {
+            roles.add(new RoleRef("r-" + i, "ROLE_" + i));
+        }
+        return new User("7f1c2a9e-4b7d-4f43-9d59-0c8e3f6a1b2c", "benchmark", "Bench", "Mark",
+                "benchmark@example.com", "{noop}password", roles, 0, true, null, null);
+    }
+
+    static List<UserResponse> userResponses(int count) {
+        List<UserResponse> userResponses = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            userResponses.add(new UserResponse("user-" + i, "benchmark" + i, "benchmark" + i + "@example.com", 0));
+        }
+        return userResponses;
+    }
+}
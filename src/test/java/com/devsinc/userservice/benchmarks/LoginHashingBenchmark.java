@@ -0,0 +1,73 @@
+package com.devsinc.userservice.benchmarks;
+
+import com.devsinc.userservice.security.PasswordEncoderSettings;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Logins per second on one core for each supported hashing setting, built the same way as the application's encoder.
+ * A setting is the algorithm followed by its costs: bcrypt:strength, argon2:memoryKib:iterations or pbkdf2:iterations.
+ * loginWithRehash is the first login of a user whose hash predates the setting: a legacy BCrypt match plus a new hash.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Threads(1)
+@Fork(1)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 2)
+public class LoginHashingBenchmark {
+
+    private static final String PASSWORD = "correct horse battery staple";
+
+    @Param({"bcrypt:10", "bcrypt:12", "argon2:19456:2", "argon2:65536:3", "pbkdf2:310000", "pbkdf2:600000"})
+    private String setting;
+
+    private PasswordEncoder passwordEncoder;
+
+    private String encodedPassword;
+
+    private String legacyPassword;
+
+    @Setup
+    public void setUp() {
+        String[] parts = setting.split(":");
+        int cost = Integer.parseInt(parts[1]);
+        PasswordEncoderSettings settings = switch (parts[0]) {
+            case PasswordEncoderSettings.BCRYPT -> new PasswordEncoderSettings(parts[0], cost, 19456, 2, 1, 310000);
+            case PasswordEncoderSettings.ARGON2 -> new PasswordEncoderSettings(parts[0], 10, cost, Integer.parseInt(parts[2]), 1, 310000);
+            case PasswordEncoderSettings.PBKDF2 -> new PasswordEncoderSettings(parts[0], 10, 19456, 2, 1, cost);
+            default -> throw new IllegalArgumentException("Unknown setting " + setting);
+        };
+        passwordEncoder = settings.createEncoder();
+        encodedPassword = passwordEncoder.encode(PASSWORD);
+        legacyPassword = new BCryptPasswordEncoder().encode(PASSWORD);
+    }
+
+    @Benchmark
+    public boolean login() {
+        return passwordEncoder.matches(PASSWORD, encodedPassword);
+    }
+
+    @Benchmark
+    public String loginWithRehash() {
+        if (passwordEncoder.matches(PASSWORD, legacyPassword) && passwordEncoder.upgradeEncoding(legacyPassword)) {
+            return passwordEncoder.encode(PASSWORD);
+        }
+        throw new IllegalStateException("Legacy hash was not upgraded");
+    }
+}
@@ -0,0 +1,72 @@
+package com.devsinc.userservice.benchmarks;
+
+import com.devsinc.userservice.dtos.request.CreateUserRequest;
+import com.devsinc.userservice.dtos.response.RoleResponse;
+import com.devsinc.userservice.dtos.response.UserResponse;
+import com.devsinc.userservice.mappers.RoleMapper;
+import com.devsinc.userservice.mappers.UserMapper;
+import com.devsinc.userservice.models.Role;
+import com.devsinc.userservice.models.RoleRef;
+import com.devsinc.userservice.models.User;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * MapStruct mappings on the request path of every user and role endpoint.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class MapperBenchmark {
+
+    private User user;
+
+    private CreateUserRequest createUserRequest;
+
+    private Role role;
+
+    @Setup
+    public void setUp() {
+        user = Fixtures.user(3);
+        createUserRequest = new CreateUserRequest();
+        createUserRequest.setUsername("benchmark");
+        createUserRequest.setEmail("benchmark@example.com");
+        createUserRequest.setPassword("password");
+        createUserRequest.setRoleNames(List.of("USER", "ADMIN"));
+        role = new Role("r-user", "USER", 0, null);
+    }
+
+    @Benchmark
+    public UserResponse userToResponse() {
+        return UserMapper.MAPPER.toResponse(user);
+    }
+
+    @Benchmark
+    public User createUserRequestToModel() {
+        return UserMapper.MAPPER.toModel(createUserRequest);
+    }
+
+    @Benchmark
+    public RoleResponse roleToResponse() {
+        return RoleMapper.MAPPER.toResponse(role);
+    }
+
+    @Benchmark
+    public RoleRef roleToRoleRef() {
+        return RoleRef.of(role);
+    }
+}
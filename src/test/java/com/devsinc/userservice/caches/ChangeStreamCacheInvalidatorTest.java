@@ -0,0 +1,175 @@
+package com.devsinc.userservice.caches;
+
+import com.devsinc.userservice.models.Role;
+import com.devsinc.userservice.models.RoleRef;
+import com.devsinc.userservice.models.User;
+import com.devsinc.userservice.repositories.RoleRepository;
+import com.mongodb.ConnectionString;
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoClients;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.data.mongodb.repository.support.MongoRepositoryFactory;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.fail;
+
+/**
+ * Writes users and roles behind the back of a ChangeStreamCacheInvalidator, as another instance would,
+ * and asserts that its caches follow. Change streams need a replica set, which the in-memory server used by
+ * the other tests is not, so this only runs when mongo.replica-set.uri is set, for instance against the
+ * replica-set service of compose.yaml:
+ * {@code mvn test -Dtest=ChangeStreamCacheInvalidatorTest -Dmongo.replica-set.uri=mongodb://localhost:27018/change_streams?directConnection=true}.
+ * The users, roles and resume tokens collections of that database are dropped.
+ */
+@EnabledIfSystemProperty(named = "mongo.replica-set.uri", matches = ".+")
+class ChangeStreamCacheInvalidatorTest {
+
+    private static final Duration TIMEOUT = Duration.ofSeconds(10);
+
+    private static MongoClient mongoClient;
+
+    private static MongoTemplate mongoTemplate;
+
+    private CaffeineUserCache userCache;
+
+    private RoleCatalog roleCatalog;
+
+    private RoleMemberCounts memberCounts;
+
+    private ChangeStreamCacheInvalidator invalidator;
+
+    @BeforeAll
+    static void connect() {
+        ConnectionString uri = new ConnectionString(System.getProperty("mongo.replica-set.uri"));
+        mongoClient = MongoClients.create(uri);
+        mongoTemplate = new MongoTemplate(mongoClient, uri.getDatabase() == null ? "change_streams" : uri.getDatabase());
+    }
+
+    @AfterAll
+    static void disconnect() {
+        mongoClient.close();
+    }
+
+    @BeforeEach
+    void seed() {
+        mongoTemplate.dropCollection(User.class);
+        mongoTemplate.dropCollection(Role.class);
+        mongoTemplate.dropCollection(ChangeStreamCacheInvalidator.RESUME_TOKENS_COLLECTION);
+        mongoTemplate.insert(new Role("r-user", "USER", 0, null));
+        mongoTemplate.insert(List.of(user("u-1", "alice"), user("u-2", "bob")), User.class);
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        userCache = new CaffeineUserCache(meterRegistry, 100, Duration.ofMinutes(5));
+        roleCatalog = new RoleCatalog(new MongoRepositoryFactory(mongoTemplate).getRepository(RoleRepository.class),
+                meterRegistry, false);
+        memberCounts = new RoleMemberCounts(meterRegistry, 100, Duration.ofMinutes(5));
+        invalidator = invalidator(meterRegistry);
+    }
+
+    @AfterEach
+    void stop() throws InterruptedException {
+        invalidator.stop();
+    }
+
+    @Test
+    void evictsUsersUpdatedOrDeletedElsewhere() {
+        startAndAwaitStream();
+        userCache.putUserInCache(user("u-1", "alice"));
+        userCache.putUserInCache(user("u-2", "bob"));
+
+        mongoTemplate.updateFirst(Query.query(Criteria.where("_id").is("u-1")), Update.update("username", "alicia"), User.class);
+        awaitUntil(() -> userCache.getUserFromCache("alice") == null);
+
+        mongoTemplate.remove(Query.query(Criteria.where("_id").is("u-2")), User.class);
+        awaitUntil(() -> userCache.getUserFromCache("bob") == null);
+    }
+
+    @Test
+    void dropsMemberCountsOfRolesGainingUsersElsewhere() {
+        startAndAwaitStream();
+        memberCounts.put("r-user", 2);
+
+        mongoTemplate.insert(user("u-3", "carol"));
+        awaitUntil(() -> memberCounts.getIfPresent("r-user").isEmpty());
+    }
+
+    @Test
+    void dropsMemberCountsOfRolesLosingUsersElsewhere() {
+        startAndAwaitStream();
+        memberCounts.put("r-user", 2);
+
+        mongoTemplate.updateFirst(Query.query(Criteria.where("_id").is("u-1")), Update.update("deletedAt", Instant.now()), User.class);
+        awaitUntil(() -> memberCounts.getIfPresent("r-user").isEmpty());
+    }
+
+    @Test
+    void refreshesRoleCatalogOnRolesCreatedElsewhere() {
+        startAndAwaitStream();
+
+        mongoTemplate.insert(new Role("r-admin", "ADMIN", 0, null));
+        awaitUntil(() -> roleCatalog.findCachedByRoleName("ADMIN").isPresent());
+    }
+
+    @Test
+    void resumesFromStoredTokenAfterRestart() throws InterruptedException {
+        startAndAwaitStream();
+        invalidator.stop();
+        userCache.putUserInCache(user("u-1", "alice"));
+        userCache.putUserInCache(user("u-2", "bob"));
+
+        mongoTemplate.updateFirst(Query.query(Criteria.where("_id").is("u-1")), Update.update("email", "new@example.com"), User.class);
+        invalidator = invalidator(new SimpleMeterRegistry());
+        invalidator.start();
+
+        awaitUntil(() -> userCache.getUserFromCache("alice") == null);
+        assertThat(userCache.getUserFromCache("bob")).as("a resumed stream keeps unchanged users cached").isNotNull();
+    }
+
+    private ChangeStreamCacheInvalidator invalidator(SimpleMeterRegistry meterRegistry) {
+        return new ChangeStreamCacheInvalidator(mongoTemplate, userCache, roleCatalog, memberCounts, meterRegistry,
+                "test", Duration.ofMillis(100), Duration.ZERO, Duration.ofMillis(100));
+    }
+
+    /**
+     * Starts the invalidator and waits for its first resume token, saved once the change stream is open.
+     */
+    private void startAndAwaitStream() {
+        invalidator.start();
+        awaitUntil(() -> mongoTemplate.getCollection(ChangeStreamCacheInvalidator.RESUME_TOKENS_COLLECTION)
+                .countDocuments() > 0);
+    }
+
+    private static void awaitUntil(BooleanSupplier condition) {
+        long deadline = System.nanoTime() + TIMEOUT.toNanos();
+        while (!condition.getAsBoolean()) {
+            if (System.nanoTime() > deadline) {
+                fail("Condition not met within " + TIMEOUT);
+            }
+            try {
+                Thread.sleep(50);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                fail("Interrupted while waiting");
+            }
+        }
+    }
+
+    private static User user(String id, String username) {
+        return new User(id, username, "First", "Last", username + "@example.com", "{noop}password",
+                List.of(new RoleRef("r-user", "USER")), 0, true, null, null);
+    }
+}
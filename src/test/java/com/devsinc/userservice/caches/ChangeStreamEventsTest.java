@@ -0,0 +1,191 @@
+package com.devsinc.userservice.caches;
+
+import com.devsinc.userservice.models.Role;
+import com.devsinc.userservice.models.RoleRef;
+import com.devsinc.userservice.models.User;
+import com.devsinc.userservice.repositories.RoleRepository;
+import com.mongodb.MongoClientSettings;
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoClients;
+import com.mongodb.client.model.changestream.ChangeStreamDocument;
+import de.bwaldvogel.mongo.MongoServer;
+import de.bwaldvogel.mongo.backend.memory.MemoryBackend;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.bson.BsonDocument;
+import org.bson.BsonDocumentReader;
+import org.bson.Document;
+import org.bson.codecs.Codec;
+import org.bson.codecs.DecoderContext;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.repository.support.MongoRepositoryFactory;
+
+import java.net.InetSocketAddress;
+import java.time.Duration;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Applies change events, shaped as the server sends them, to a ChangeStreamCacheInvalidator that never opens its stream,
+ * and asserts what each one evicts. Following a real change stream is tested by ChangeStreamCacheInvalidatorTest.
+ * Roles are read from an in-memory server, which the catalog refreshes from.
+ */
+class ChangeStreamEventsTest {
+
+    private static final Codec<ChangeStreamDocument<Document>> CODEC =
+            ChangeStreamDocument.createCodec(Document.class, MongoClientSettings.getDefaultCodecRegistry());
+
+    private MongoServer server;
+
+    private MongoClient mongoClient;
+
+    private MongoTemplate mongoTemplate;
+
+    private SimpleMeterRegistry meterRegistry;
+
+    private CaffeineUserCache userCache;
+
+    private RoleCatalog roleCatalog;
+
+    private RoleMemberCounts memberCounts;
+
+    private ChangeStreamCacheInvalidator invalidator;
+
+    @BeforeEach
+    void start() {
+        server = new MongoServer(new MemoryBackend());
+        InetSocketAddress address = server.bind();
+        mongoClient = MongoClients.create("mongodb://" + address.getHostString() + ":" + address.getPort());
+        mongoTemplate = new MongoTemplate(mongoClient, "events");
+        mongoTemplate.insert(new Role("r-user", "USER", 0, null));
+        meterRegistry = new SimpleMeterRegistry();
+        userCache = new CaffeineUserCache(meterRegistry, 100, Duration.ofMinutes(5));
+        roleCatalog = new RoleCatalog(new MongoRepositoryFactory(mongoTemplate).getRepository(RoleRepository.class),
+                meterRegistry, false);
+        roleCatalog.refresh();
+        memberCounts = new RoleMemberCounts(meterRegistry, 100, Duration.ofMinutes(5));
+        invalidator = new ChangeStreamCacheInvalidator(mongoTemplate, userCache, roleCatalog, memberCounts, meterRegistry,
+                "test", Duration.ofMillis(100), Duration.ZERO, Duration.ofMillis(100));
+        userCache.putUserInCache(user("u-1", "alice"));
+        userCache.putUserInCache(user("u-2", "bobby"));
+        memberCounts.put("r-user", 2);
+        memberCounts.put("r-admin", 1);
+    }
+
+    @AfterEach
+    void stop() {
+        mongoClient.close();
+        server.shutdownNow();
+    }
+
+    @Test
+    void insertDropsTheMemberCountsOfTheRolesOfTheUser() {
+        assertThat(invalidator.apply(event("""
+                { operationType: 'insert', ns: { db: 'events', coll: 'user' }, documentKey: { _id: 'u-3' },
+                  fullDocument: { _id: 'u-3', username: 'carol', roles: [ { _id: 'r-user', roleName: 'USER' } ] } }
+                """))).isTrue();
+
+        assertThat(memberCounts.getIfPresent("r-user")).isEmpty();
+        assertThat(memberCounts.getIfPresent("r-admin")).hasValue(1L);
+        assertThat(cachedUsernames()).containsExactly("alice", "bobby");
+    }
+
+    @Test
+    void updateEvictsTheUser() {
+        assertThat(invalidator.apply(event("""
+                { operationType: 'update', ns: { db: 'events', coll: 'user' }, documentKey: { _id: 'u-1' },
+                  updateDescription: { updatedFields: { email: 'new@example.com', version: 2 }, removedFields: [] } }
+                """))).isTrue();
+
+        assertThat(cachedUsernames()).containsExactly("bobby");
+        assertThat(memberCounts.getIfPresent("r-user")).hasValue(2L);
+    }
+
+    @Test
+    void tombstoneEvictsTheUserAndDropsEveryMemberCount() {
+        assertThat(invalidator.apply(event("""
+                { operationType: 'update', ns: { db: 'events', coll: 'user' }, documentKey: { _id: 'u-1' },
+                  updateDescription: { updatedFields: { deletedAt: { $date: '2026-01-01T00:00:00Z' }, version: 2,
+                                                        'pendingEvents.0': { _id: 'e-1', type: 'USER_DELETED' } },
+                                       removedFields: [ 'active' ] } }
+                """))).isTrue();
+
+        assertThat(cachedUsernames()).containsExactly("bobby");
+        assertThat(memberCounts.getIfPresent("r-user")).isEmpty();
+        assertThat(memberCounts.getIfPresent("r-admin")).isEmpty();
+    }
+
+    @Test
+    void deleteEvictsTheUser() {
+        assertThat(invalidator.apply(event("""
+                { operationType: 'delete', ns: { db: 'events', coll: 'user' }, documentKey: { _id: 'u-2' } }
+                """))).isTrue();
+
+        assertThat(cachedUsernames()).containsExactly("alice");
+        assertThat(memberCounts.getIfPresent("r-user")).as("only tombstones are purged, uncounted already").hasValue(2L);
+    }
+
+    @Test
+    void publishingPendingEventsChangesNothingCached() {
+        assertThat(invalidator.apply(event("""
+                { operationType: 'update', ns: { db: 'events', coll: 'user' }, documentKey: { _id: 'u-1' },
+                  updateDescription: { updatedFields: { pendingEvents: [] }, removedFields: [] } }
+                """))).isTrue();
+
+        assertThat(cachedUsernames()).containsExactly("alice", "bobby");
+        assertThat(memberCounts.getIfPresent("r-user")).hasValue(2L);
+    }
+
+    @Test
+    void roleChangeRefreshesTheCatalog() {
+        mongoTemplate.insert(new Role("r-admin", "ADMIN", 0, null));
+
+        assertThat(invalidator.apply(event("""
+                { operationType: 'insert', ns: { db: 'events', coll: 'roles' }, documentKey: { _id: 'r-admin' },
+                  fullDocument: { _id: 'r-admin', roleName: 'ADMIN' } }
+                """))).isTrue();
+
+        assertThat(roleCatalog.findCachedByRoleName("ADMIN")).isPresent();
+        assertThat(cachedUsernames()).containsExactly("alice", "bobby");
+    }
+
+    @Test
+    void otherOperationsDropEveryCache() {
+        double refreshes = meterRegistry.get("role.catalog.refreshes").counter().count();
+
+        assertThat(invalidator.apply(event("""
+                { operationType: 'drop', ns: { db: 'events', coll: 'user' } }
+                """))).isTrue();
+
+        assertThat(cachedUsernames()).isEmpty();
+        assertThat(memberCounts.getIfPresent("r-user")).isEmpty();
+        assertThat(meterRegistry.get("role.catalog.refreshes").counter().count()).isEqualTo(refreshes + 1);
+    }
+
+    @Test
+    void invalidateAsksForTheStreamToBeReopenedBeforeDroppingCaches() {
+        assertThat(invalidator.apply(event("""
+                { operationType: 'invalidate' }
+                """))).isFalse();
+
+        assertThat(cachedUsernames()).containsExactly("alice", "bobby");
+        assertThat(memberCounts.getIfPresent("r-user")).hasValue(2L);
+    }
+
+    private List<String> cachedUsernames() {
+        return Stream.of("alice", "bobby").filter(username -> userCache.getUserFromCache(username) != null).toList();
+    }
+
+    private static ChangeStreamDocument<Document> event(String json) {
+        return CODEC.decode(new BsonDocumentReader(BsonDocument.parse(json)), DecoderContext.builder().build());
+    }
+
+    private static User user(String id, String username) {
+        return new User(id, username, "First", "Last", username + "@example.com", "{noop}password",
+                List.of(new RoleRef("r-user", "USER")), 0, true, null, null);
+    }
+}
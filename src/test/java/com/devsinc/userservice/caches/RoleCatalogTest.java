@@ -0,0 +1,89 @@
+package com.devsinc.userservice.caches;
+
+import com.devsinc.userservice.models.Role;
+import com.devsinc.userservice.repositories.RoleRepository;
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoClients;
+import de.bwaldvogel.mongo.MongoServer;
+import de.bwaldvogel.mongo.backend.memory.MemoryBackend;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.data.mongodb.repository.support.MongoRepositoryFactory;
+
+import java.net.InetSocketAddress;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Renames roles behind the back of a loaded catalog, as another instance does, on an in-memory server.
+ */
+class RoleCatalogTest {
+
+    private MongoServer server;
+
+    private MongoClient mongoClient;
+
+    private MongoTemplate mongoTemplate;
+
+    private RoleCatalog roleCatalog;
+
+    @BeforeEach
+    void start() {
+        server = new MongoServer(new MemoryBackend());
+        InetSocketAddress address = server.bind();
+        mongoClient = MongoClients.create("mongodb://" + address.getHostString() + ":" + address.getPort()
+                + "/?serverSelectionTimeoutMS=500");
+        mongoTemplate = new MongoTemplate(mongoClient, "catalog");
+        mongoTemplate.insert(new Role("r-user", "USER", 0, null));
+        roleCatalog = new RoleCatalog(new MongoRepositoryFactory(mongoTemplate).getRepository(RoleRepository.class),
+                new SimpleMeterRegistry(), false);
+        roleCatalog.refresh();
+    }
+
+    @AfterEach
+    void stop() {
+        mongoClient.close();
+        server.shutdownNow();
+    }
+
+    @Test
+    void roleLoadedUnderItsNewNameNoLongerResolvesUnderTheOldOne() {
+        renameInDatabase("r-user", "MEMBER");
+
+        assertThat(roleCatalog.findByRoleName("MEMBER")).get().extracting(Role::getId).isEqualTo("r-user");
+
+        assertThat(roleCatalog.findCachedByRoleName("USER")).isEmpty();
+        assertThat(roleCatalog.findByRoleName("USER")).isEmpty();
+        assertThat(roleCatalog.findCachedById("r-user")).get().extracting(Role::getRoleName).isEqualTo("MEMBER");
+    }
+
+    @Test
+    void periodicRefreshPicksUpRenamesMadeElsewhere() {
+        renameInDatabase("r-user", "MEMBER");
+        assertThat(roleCatalog.findCachedByRoleName("USER")).as("stale until refreshed").isPresent();
+
+        roleCatalog.refreshPeriodically();
+
+        assertThat(roleCatalog.findCachedByRoleName("USER")).isEmpty();
+        assertThat(roleCatalog.findCachedByRoleName("MEMBER")).isPresent();
+    }
+
+    @Test
+    void failedPeriodicRefreshKeepsTheCurrentSnapshot() {
+        server.shutdownNow();
+
+        roleCatalog.refreshPeriodically();
+
+        assertThat(roleCatalog.findCachedByRoleName("USER")).isPresent();
+    }
+
+    private void renameInDatabase(String id, String roleName) {
+        mongoTemplate.updateFirst(Query.query(Criteria.where("_id").is(id)), Update.update("roleName", roleName), Role.class);
+    }
+}
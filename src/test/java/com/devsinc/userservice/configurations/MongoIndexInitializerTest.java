@@ -0,0 +1,82 @@
+package com.devsinc.userservice.configurations;
+
+import com.devsinc.userservice.models.Role;
+import com.devsinc.userservice.models.RoleRef;
+import com.devsinc.userservice.models.User;
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoClients;
+import de.bwaldvogel.mongo.MongoServer;
+import de.bwaldvogel.mongo.backend.memory.MemoryBackend;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.IndexInfo;
+
+import java.net.InetSocketAddress;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Ensures the declared indexes on an in-memory server, over documents written before they existed.
+ */
+class MongoIndexInitializerTest {
+
+    private MongoServer server;
+
+    private MongoClient mongoClient;
+
+    private MongoTemplate mongoTemplate;
+
+    @BeforeEach
+    void start() {
+        server = new MongoServer(new MemoryBackend());
+        InetSocketAddress address = server.bind();
+        mongoClient = MongoClients.create("mongodb://" + address.getHostString() + ":" + address.getPort());
+        mongoTemplate = new MongoTemplate(mongoClient, "indexes");
+        mongoTemplate.insert(new Role("r-user", "USER", 0, null));
+    }
+
+    @AfterEach
+    void stop() {
+        mongoClient.close();
+        server.shutdownNow();
+    }
+
+    @Test
+    void ensuresTheDeclaredIndexes() {
+        mongoTemplate.insert(List.of(user("u-1", "alice", "alice@example.com"), user("u-2", "bobby", "bobby@example.com")),
+                User.class);
+
+        new MongoIndexInitializer(mongoTemplate).ensureIndexes();
+
+        assertThat(mongoTemplate.indexOps(User.class).getIndexInfo()).extracting(IndexInfo::getName)
+                .contains(User.USERNAME_INDEX, User.EMAIL_INDEX, "username_lookup", "role_members");
+        assertThat(mongoTemplate.indexOps(Role.class).getIndexInfo()).extracting(IndexInfo::getName).contains("roleName");
+        assertThatThrownBy(() -> mongoTemplate.insert(user("u-3", "alice", "other@example.com")))
+                .isInstanceOf(DuplicateKeyException.class);
+    }
+
+    @Test
+    void failureToCreateAUniqueIndexListsTheDuplicateValues() {
+        mongoTemplate.insert(List.of(
+                user("u-1", "alice", "alice@example.com"),
+                user("u-2", "alice", "alice2@example.com"),
+                user("u-3", "alice", "alice3@example.com"),
+                user("u-4", "bobby", "bobby@example.com")), User.class);
+
+        assertThatThrownBy(() -> new MongoIndexInitializer(mongoTemplate).ensureIndexes())
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessage("Unable to create unique index " + User.USERNAME_INDEX + " on user, resolve these duplicate values "
+                        + "first: {\"username\": \"alice\"} (3 documents)")
+                .hasCauseInstanceOf(DuplicateKeyException.class);
+    }
+
+    private static User user(String id, String username, String email) {
+        return new User(id, username, "First", "Last", email, "{noop}password",
+                List.of(new RoleRef("r-user", "USER")), 0, true, null, null);
+    }
+}
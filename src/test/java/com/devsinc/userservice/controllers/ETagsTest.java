@@ -0,0 +1,37 @@
+package com.devsinc.userservice.controllers;
+
+import com.devsinc.userservice.dtos.response.RoleResponse;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ETagsTest {
+
+    @Test
+    void listsOfRolesWithCollidingHashCodesAreTaggedApart() {
+        // "Aa" and "BB" share their String hash code.
+        assertThat(ETags.of(List.of(role("Aa", 1)))).isNotEqualTo(ETags.of(List.of(role("BB", 1))));
+    }
+
+    @Test
+    void listsOfRolesAreTaggedByEveryIdAndVersionInOrder() {
+        List<RoleResponse> roles = List.of(role("r-user", 0), role("r-admin", 2));
+
+        assertThat(ETags.of(roles)).isEqualTo(ETags.of(List.of(role("r-user", 0), role("r-admin", 2))))
+                .startsWith("\"2-").endsWith("\"")
+                .isNotEqualTo(ETags.of(List.of(role("r-admin", 2), role("r-user", 0))))
+                .isNotEqualTo(ETags.of(List.of(role("r-user", 0), role("r-admin", 3))))
+                .isNotEqualTo(ETags.of(List.of(role("r-user", 0))));
+        assertThat(ETags.of(List.of(role("r-1", 12)))).isNotEqualTo(ETags.of(List.of(role("r-11", 2))));
+    }
+
+    private static RoleResponse role(String id, long version) {
+        RoleResponse role = new RoleResponse();
+        role.setId(id);
+        role.setRoleName(id.toUpperCase());
+        role.setVersion(version);
+        return role;
+    }
+}
@@ -0,0 +1,166 @@
+package com.devsinc.userservice.controllers;
+
+import com.devsinc.userservice.dtos.request.CreateRoleRequest;
+import com.devsinc.userservice.dtos.request.UpdateRoleRequest;
+import com.devsinc.userservice.dtos.response.UserImportResponse;
+import com.devsinc.userservice.dtos.response.UserResponse;
+import com.devsinc.userservice.exceptions.ApplicationExceptionHandler;
+import com.devsinc.userservice.services.impl.ServiceFixture;
+import com.jayway.jsonpath.JsonPath;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * The role endpoints over the services wired against the in-memory server, without the security filters.
+ */
+class RoleControllerTest {
+
+    private ServiceFixture fixture;
+
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    void start() {
+        fixture = ServiceFixture.start();
+        mockMvc = MockMvcBuilders.standaloneSetup(new RoleController(fixture.roleService))
+                .setControllerAdvice(new ApplicationExceptionHandler())
+                .build();
+    }
+
+    @AfterEach
+    void stop() {
+        fixture.close();
+    }
+
+    @Test
+    void roleIsNotModifiedUntilItIsRenamed() throws Exception {
+        String etag = etagOf("/role/find-by-id/r-user");
+        assertThat(etag).isEqualTo("\"r-user.0\"");
+        assertNotModified("/role/find-by-id/r-user", etag);
+
+        fixture.roleService.updateRole(rename("r-user", "MEMBER"));
+
+        mockMvc.perform(get("/role/find-by-id/r-user").header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"r-user.1\""))
+                .andExpect(jsonPath("$.data.roleName").value("MEMBER"));
+    }
+
+    @Test
+    void rolesAreNotModifiedUntilOneIsAddedOrRenamed() throws Exception {
+        String etag = etagOf("/role/get-all");
+        assertNotModified("/role/get-all", etag);
+
+        CreateRoleRequest auditor = new CreateRoleRequest();
+        auditor.setRoleName("AUDITOR");
+        fixture.roleService.saveRole(auditor);
+        String added = etagOf("/role/get-all");
+        assertThat(added).isNotEqualTo(etag);
+        assertNotModified("/role/get-all", added);
+
+        fixture.roleService.updateRole(rename("r-admin", "ADMINISTRATOR"));
+        assertThat(etagOf("/role/get-all")).isNotIn(etag, added);
+    }
+
+    @Test
+    void membersArePagedByIdWithoutDuplicatesOrGaps() throws Exception {
+        List<String> members = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            members.add(fixture.userService.createUser(ServiceFixture.createRequest("member" + i)).getId());
+        }
+        fixture.userService.createUser(ServiceFixture.createRequest("admin0", "ADMIN"));
+
+        List<String> paged = new ArrayList<>();
+        int pages = 0;
+        String cursor = null;
+        do {
+            String page = mockMvc.perform(get("/role/r-user/users").param("size", "2").param("cursor", cursor))
+                    .andExpect(jsonPath("$.httpStatus").value("OK"))
+                    .andReturn().getResponse().getContentAsString();
+            List<String> ids = JsonPath.read(page, "$.data.items[*].id");
+            assertThat(ids).hasSizeLessThanOrEqualTo(2);
+            paged.addAll(ids);
+            cursor = JsonPath.read(page, "$.data.nextCursor");
+            pages++;
+        } while (cursor != null);
+
+        assertThat(paged).containsExactlyElementsOf(members.stream().sorted().toList());
+        assertThat(pages).isEqualTo(3);
+        mockMvc.perform(get("/role/r-user/users").param("size", "0"))
+                .andExpect(jsonPath("$.httpStatus").value("BAD_REQUEST"));
+        mockMvc.perform(get("/role/r-missing/users"))
+                .andExpect(jsonPath("$.httpStatus").value("NOT_FOUND"));
+        mockMvc.perform(get("/role/r-missing/users/count"))
+                .andExpect(jsonPath("$.httpStatus").value("NOT_FOUND"));
+    }
+
+    @Test
+    void memberCountsFollowCreatesDeletesAndImports() throws Exception {
+        assertCounts(0, 0);
+
+        UserResponse alice = fixture.userService.createUser(ServiceFixture.createRequest("alice", "USER", "ADMIN"));
+        fixture.userService.createUser(ServiceFixture.createRequest("bobby"));
+        assertCounts(2, 1);
+
+        fixture.userService.deleteUser(alice.getId());
+        assertCounts(1, 0);
+
+        UserImportResponse imported = fixture.importService.importUsers(List.of(
+                ServiceFixture.createRequest("carol"),
+                ServiceFixture.createRequest("danny", "USER", "ADMIN"),
+                ServiceFixture.createRequest("bobby")).iterator());
+        assertThat(imported.getImported()).isEqualTo(2);
+        assertThat(imported.getFailed()).isEqualTo(1);
+        assertCounts(3, 1);
+    }
+
+    /**
+     * Asserts the counts served from the member count cache, then recounted from the users once it is dropped,
+     * which caches them again for the next write to update.
+     */
+    private void assertCounts(long users, long admins) throws Exception {
+        assertServedCounts(users, admins);
+        fixture.memberCounts.invalidateAll();
+        assertServedCounts(users, admins);
+    }
+
+    private void assertServedCounts(long users, long admins) throws Exception {
+        mockMvc.perform(get("/role/r-user/users/count")).andExpect(jsonPath("$.data").value(users));
+        mockMvc.perform(get("/role/r-admin/users/count")).andExpect(jsonPath("$.data").value(admins));
+    }
+
+    private String etagOf(String uri) throws Exception {
+        return mockMvc.perform(get(uri).header(HttpHeaders.IF_NONE_MATCH, "\"stale\""))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.httpStatus").value("OK"))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+    }
+
+    private void assertNotModified(String uri, String etag) throws Exception {
+        mockMvc.perform(get(uri).header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.ETAG, etag))
+                .andExpect(content().string(""));
+    }
+
+    private static UpdateRoleRequest rename(String id, String roleName) {
+        UpdateRoleRequest request = new UpdateRoleRequest();
+        request.setId(id);
+        request.setRoleName(roleName);
+        return request;
+    }
+}
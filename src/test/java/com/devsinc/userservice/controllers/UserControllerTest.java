@@ -0,0 +1,222 @@
+package com.devsinc.userservice.controllers;
+
+import com.devsinc.userservice.dtos.request.UpdateUserRequest;
+import com.devsinc.userservice.dtos.response.UserResponse;
+import com.devsinc.userservice.exceptions.ApplicationExceptionHandler;
+import com.devsinc.userservice.models.User;
+import com.devsinc.userservice.services.impl.ServiceFixture;
+import com.devsinc.userservice.services.impl.UserServiceImpl;
+import com.jayway.jsonpath.JsonPath;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * The user endpoints over the services wired against the in-memory server, without the security filters.
+ */
+class UserControllerTest {
+
+    private static final int MAX_BATCH_SIZE = 3;
+
+    private ServiceFixture fixture;
+
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    void start() {
+        fixture = ServiceFixture.start();
+        mockMvc = mockMvc(fixture.userService(50, 500, MAX_BATCH_SIZE));
+    }
+
+    @AfterEach
+    void stop() {
+        fixture.close();
+    }
+
+    @Test
+    void deletingADeletedUserAnswersNotFound() throws Exception {
+        UserResponse user = fixture.userService.createUser(ServiceFixture.createRequest("alice"));
+
+        mockMvc.perform(delete("/user/delete/{id}", user.getId()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.httpStatus").value("OK"));
+        mockMvc.perform(delete("/user/delete/{id}", user.getId()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.httpStatus").value("NOT_FOUND"))
+                .andExpect(jsonPath("$.exceptionMessages.errors[0]").value("Unable to find user with id: " + user.getId()));
+    }
+
+    @ParameterizedTest(name = "{0}")
+    @ValueSource(strings = { "{}", "{ \"ids\": [\"a\"], \"usernames\": [\"alice\"] }" })
+    void batchGetRequiresExactlyOneOfIdsOrUsernames(String body) throws Exception {
+        mockMvc.perform(post("/user/batch-get").contentType(MediaType.APPLICATION_JSON).content(body))
+                .andExpect(jsonPath("$.httpStatus").value("BAD_REQUEST"))
+                .andExpect(jsonPath("$.exceptionMessages.errors[0]")
+                        .value("eitherIdsOrUsernames: Exactly one of ids or usernames must be specified!"));
+    }
+
+    @Test
+    void batchGetFindsUsersInRequestOrderAndListsMissingKeys() throws Exception {
+        String alice = fixture.userService.createUser(ServiceFixture.createRequest("alice")).getId();
+        String carol = fixture.userService.createUser(ServiceFixture.createRequest("carol")).getId();
+
+        String byId = batchGet("{ \"ids\": [\"" + carol + "\", \"ghost\", \"" + alice + "\", \"" + carol + "\"] }");
+        Map<String, Map<String, Object>> foundById = JsonPath.read(byId, "$.data.found");
+        assertThat(foundById.keySet()).containsExactly(carol, alice);
+        assertThat(foundById.get(alice)).containsEntry("username", "alice");
+        assertThat(JsonPath.<List<String>>read(byId, "$.data.missing")).containsExactly("ghost");
+
+        String byUsername = batchGet("{ \"usernames\": [\"ghost\", \"alice\", \"carol\"] }");
+        Map<String, Map<String, Object>> foundByUsername = JsonPath.read(byUsername, "$.data.found");
+        assertThat(foundByUsername.keySet()).containsExactly("alice", "carol");
+        assertThat(foundByUsername.get("carol")).containsEntry("id", carol);
+        assertThat(JsonPath.<List<String>>read(byUsername, "$.data.missing")).containsExactly("ghost");
+
+        String none = batchGet("{ \"usernames\": [] }");
+        assertThat(JsonPath.<Map<String, Object>>read(none, "$.data.found")).isEmpty();
+        assertThat(JsonPath.<List<String>>read(none, "$.data.missing")).isEmpty();
+    }
+
+    @Test
+    void batchGetIsLimitedToTheMaximumBatchSizeOfDistinctKeys() throws Exception {
+        String atMost = batchGet("{ \"usernames\": [\"a\", \"b\", \"c\", \"a\", \"b\"] }");
+        assertThat(JsonPath.<List<String>>read(atMost, "$.data.missing")).containsExactly("a", "b", "c");
+
+        mockMvc.perform(post("/user/batch-get").contentType(MediaType.APPLICATION_JSON)
+                        .content("{ \"usernames\": [\"a\", \"b\", \"c\", \"d\"] }"))
+                .andExpect(jsonPath("$.httpStatus").value("BAD_REQUEST"))
+                .andExpect(jsonPath("$.exceptionMessages.errors[0]")
+                        .value("At most " + MAX_BATCH_SIZE + " users can be requested at once"));
+    }
+
+    @ParameterizedTest(name = "{0}")
+    @ValueSource(strings = { "/user/get/{id}", "/user/get-by-username/{username}" })
+    void userReadsAreNotModifiedUntilTheUserIsWritten(String path) throws Exception {
+        UserResponse user = fixture.userService.createUser(ServiceFixture.createRequest("alice"));
+        String uri = path.replace("{id}", user.getId()).replace("{username}", "alice");
+
+        String etag = mockMvc.perform(get(uri))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"" + user.getId() + ".1\""))
+                .andExpect(jsonPath("$.data.version").value(1))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        mockMvc.perform(get(uri).header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.ETAG, etag))
+                .andExpect(content().string(""));
+
+        UpdateUserRequest update = new UpdateUserRequest();
+        update.setId(user.getId());
+        update.setUsername("alice");
+        update.setEmail("new@example.com");
+        fixture.userService.updateUser(update);
+
+        mockMvc.perform(get(uri).header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"" + user.getId() + ".2\""))
+                .andExpect(jsonPath("$.data.email").value("new@example.com"));
+    }
+
+    @Test
+    void updateOfAStaleVersionAnswersConflictAndWritesNothing() throws Exception {
+        UserResponse user = fixture.userService.createUser(ServiceFixture.createRequest("alice"));
+        String body = "{ \"id\": \"" + user.getId() + "\", \"username\": \"alice\", \"email\": \"new@example.com\", ";
+
+        mockMvc.perform(post("/user/update").contentType(MediaType.APPLICATION_JSON).content(body + "\"version\": 0 }"))
+                .andExpect(status().isConflict())
+                .andExpect(jsonPath("$.httpStatus").value("CONFLICT"))
+                .andExpect(jsonPath("$.exceptionMessages.errors[0]")
+                        .value("User with id: " + user.getId() + " was modified concurrently, reload it and retry"));
+        assertThat(fixture.userService.findUserById(user.getId()).getEmail()).isEqualTo("alice@example.com");
+
+        mockMvc.perform(post("/user/update").contentType(MediaType.APPLICATION_JSON).content(body + "\"version\": 1 }"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.email").value("new@example.com"))
+                .andExpect(jsonPath("$.data.version").value(2));
+    }
+
+    @Test
+    void passwordChangeRacingAnotherUpdateAnswersConflictAndKeepsThePassword() throws Exception {
+        UserResponse user = fixture.userService.createUser(ServiceFixture.createRequest("alice"));
+        UpdateUserRequest concurrentUpdate = new UpdateUserRequest();
+        concurrentUpdate.setId(user.getId());
+        concurrentUpdate.setUsername("alice");
+        concurrentUpdate.setEmail("new@example.com");
+        // Another request updates the user while the current password is being checked.
+        PasswordEncoder racingEncoder = new PasswordEncoder() {
+            @Override
+            public String encode(CharSequence rawPassword) {
+                return fixture.passwordEncoder.encode(rawPassword);
+            }
+
+            @Override
+            public boolean matches(CharSequence rawPassword, String encodedPassword) {
+                fixture.userService.updateUser(concurrentUpdate);
+                return fixture.passwordEncoder.matches(rawPassword, encodedPassword);
+            }
+        };
+        MockMvc racing = mockMvc(fixture.userService(racingEncoder));
+
+        racing.perform(post("/user/update-password").contentType(MediaType.APPLICATION_JSON).content(
+                        "{ \"id\": \"" + user.getId() + "\", \"currentPassword\": \"" + ServiceFixture.PASSWORD
+                                + "\", \"newPassword\": \"changed\" }"))
+                .andExpect(status().isConflict())
+                .andExpect(jsonPath("$.httpStatus").value("CONFLICT"));
+
+        User stored = fixture.mongoTemplate.findById(user.getId(), User.class);
+        assertThat(fixture.passwordEncoder.matches(ServiceFixture.PASSWORD, stored.getPassword())).isTrue();
+        assertThat(stored.getEmail()).isEqualTo("new@example.com");
+        assertThat(stored.getVersion()).isEqualTo(2);
+    }
+
+    @Test
+    void updateSetsOnlyTheChangedFields() throws Exception {
+        UserResponse user = fixture.userService.createUser(ServiceFixture.createRequest("alice", "USER", "ADMIN"));
+        User before = fixture.mongoTemplate.findById(user.getId(), User.class);
+
+        mockMvc.perform(post("/user/update").contentType(MediaType.APPLICATION_JSON).content(
+                        "{ \"id\": \"" + user.getId() + "\", \"username\": \"alice\", \"email\": \"new@example.com\" }"))
+                .andExpect(jsonPath("$.httpStatus").value("OK"));
+
+        User after = fixture.mongoTemplate.findById(user.getId(), User.class);
+        assertThat(after.getEmail()).isEqualTo("new@example.com");
+        assertThat(after.getUsername()).isEqualTo("alice");
+        assertThat(after.getPassword()).isEqualTo(before.getPassword());
+        assertThat(after.getRoles()).usingRecursiveFieldByFieldElementComparator().isEqualTo(before.getRoles());
+        assertThat(after.getVersion()).isEqualTo(before.getVersion() + 1);
+    }
+
+    private MockMvc mockMvc(UserServiceImpl userService) {
+        return MockMvcBuilders.standaloneSetup(new UserController(userService, fixture.importService,
+                        Jackson2ObjectMapperBuilder.json().build()))
+                .setControllerAdvice(new ApplicationExceptionHandler())
+                .build();
+    }
+
+    private String batchGet(String body) throws Exception {
+        return mockMvc.perform(post("/user/batch-get").contentType(MediaType.APPLICATION_JSON).content(body))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.httpStatus").value("OK"))
+                .andReturn().getResponse().getContentAsString();
+    }
+}
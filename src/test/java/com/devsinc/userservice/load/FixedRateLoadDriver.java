@@ -0,0 +1,158 @@
+package com.devsinc.userservice.load;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Supplier;
+
+/**
+ * Sends a weighted mix of requests at a fixed arrival rate, whether or not earlier requests have completed.
+ * Latency is measured from the time a request was scheduled to be sent rather than when it actually was,
+ * so a stalled server shows up in the percentiles instead of silently lowering the offered load.
+ */
+final class FixedRateLoadDriver {
+
+    private static final long HIGHEST_TRACKABLE_MICROS = TimeUnit.MINUTES.toMicros(1);
+
+    private static final Duration REQUEST_TIMEOUT = Duration.ofSeconds(30);
+
+    private final HttpClient client;
+
+    private final List<Operation> operations;
+
+    private final int[] cumulativeWeights;
+
+    FixedRateLoadDriver(HttpClient client, List<Operation> operations) {
+        this.client = client;
+        this.operations = operations.stream().filter(operation -> operation.weight() > 0).toList();
+        this.cumulativeWeights = new int[this.operations.size()];
+        int total = 0;
+        for (int i = 0; i < this.operations.size(); i++) {
+            total += this.operations.get(i).weight();
+            cumulativeWeights[i] = total;
+        }
+        if (total == 0) {
+            throw new IllegalArgumentException("At least one operation must have a positive weight");
+        }
+    }
+
+    /**
+     * Offers requests at the given rate for the given duration and waits for the responses still in flight.
+     */
+    Result run(double requestsPerSecond, Duration duration) throws InterruptedException {
+        Map<String, EndpointResult> results = new LinkedHashMap<>();
+        operations.forEach(operation -> results.put(operation.name(), new EndpointResult(operation.name())));
+        AtomicInteger inFlight = new AtomicInteger();
+        long period = (long) (TimeUnit.SECONDS.toNanos(1) / requestsPerSecond);
+        long start = System.nanoTime();
+        long end = start + duration.toNanos();
+        for (long i = 0; ; i++) {
+            long intended = start + i * period;
+            if (intended >= end) {
+                break;
+            }
+            long wait = intended - System.nanoTime();
+            if (wait > 0) {
+                LockSupport.parkNanos(wait);
+            }
+            Operation operation = pick();
+            EndpointResult result = results.get(operation.name());
+            HttpRequest request = operation.request().get()
+                    .header(MongoCommandCounter.ENDPOINT_HEADER, operation.name())
+                    .timeout(REQUEST_TIMEOUT)
+                    .build();
+            inFlight.incrementAndGet();
+            client.sendAsync(request, HttpResponse.BodyHandlers.ofString()).whenComplete((response, error) -> {
+                result.record(System.nanoTime() - intended, error == null && succeeded(response));
+                inFlight.decrementAndGet();
+            });
+        }
+        long drainDeadline = System.nanoTime() + REQUEST_TIMEOUT.toNanos();
+        while (inFlight.get() > 0 && System.nanoTime() < drainDeadline) {
+            Thread.sleep(10);
+        }
+        return new Result(Duration.ofNanos(System.nanoTime() - start), List.copyOf(results.values()));
+    }
+
+    private Operation pick() {
+        int value = ThreadLocalRandom.current().nextInt(cumulativeWeights[cumulativeWeights.length - 1]);
+        for (int i = 0; i < cumulativeWeights.length; i++) {
+            if (value < cumulativeWeights[i]) {
+                return operations.get(i);
+            }
+        }
+        throw new IllegalStateException("Weight " + value + " out of range");
+    }
+
+    /**
+     * The service answers with HTTP 200 and reports failures in the body's httpStatus.
+     */
+    private static boolean succeeded(HttpResponse<String> response) {
+        return response.statusCode() == 200
+                && (response.body().contains("\"httpStatus\":\"OK\"") || response.body().contains("\"httpStatus\":\"CREATED\""));
+    }
+
+    /**
+     * A request type in the mix; the request builder is called once per request.
+     */
+    record Operation(String name, int weight, Supplier<HttpRequest.Builder> request) {
+    }
+
+    record Result(Duration elapsed, List<EndpointResult> endpoints) {
+    }
+
+    static final class EndpointResult {
+
+        private final String name;
+
+        private final Histogram latencyMicros = new ConcurrentHistogram(HIGHEST_TRACKABLE_MICROS, 3);
+
+        private final LongAdder errors = new LongAdder();
+
+        private EndpointResult(String name) {
+            this.name = name;
+        }
+
+        private void record(long latencyNanos, boolean success) {
+            latencyMicros.recordValue(Math.min(TimeUnit.NANOSECONDS.toMicros(latencyNanos), HIGHEST_TRACKABLE_MICROS));
+            if (!success) {
+                errors.increment();
+            }
+        }
+
+        String name() {
+            return name;
+        }
+
+        long count() {
+            return latencyMicros.getTotalCount();
+        }
+
+        long errors() {
+            return errors.sum();
+        }
+
+        /**
+         * @return the latency at the given percentile (0-100) in milliseconds, over successful and failed requests
+         */
+        double latencyMillis(double percentile) {
+            return latencyMicros.getValueAtPercentile(percentile) / 1000.0;
+        }
+
+        double maxLatencyMillis() {
+            return latencyMicros.getMaxValue() / 1000.0;
+        }
+    }
+}
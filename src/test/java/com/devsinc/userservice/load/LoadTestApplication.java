@@ -0,0 +1,122 @@
+package com.devsinc.userservice.load;
+
+import com.devsinc.userservice.UserServiceApplication;
+import com.devsinc.userservice.caches.RoleCatalog;
+import com.devsinc.userservice.models.Role;
+import com.devsinc.userservice.models.RoleRef;
+import com.devsinc.userservice.models.User;
+import jakarta.servlet.Filter;
+import org.springframework.boot.autoconfigure.mongo.MongoClientSettingsBuilderCustomizer;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.core.Ordered;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * The user service booted on a random port against the given Mongo, with a {@link MongoCommandCounter}
+ * registered on the Mongo client and its attribution filter ahead of the security filter chain.
+ */
+final class LoadTestApplication implements AutoCloseable {
+
+    static final String ADMIN_USERNAME = "loadadmin";
+
+    static final String PASSWORD = "load-password";
+
+    private final ConfigurableApplicationContext context;
+
+    private final MongoCommandCounter commandCounter;
+
+    private LoadTestApplication(ConfigurableApplicationContext context, MongoCommandCounter commandCounter) {
+        this.context = context;
+        this.commandCounter = commandCounter;
+    }
+
+    /**
+     * @param properties extra application properties in key=value form
+     */
+    static LoadTestApplication start(String mongoUri, String... properties) {
+        MongoCommandCounter commandCounter = new MongoCommandCounter();
+        FilterRegistrationBean<Filter> attribution = new FilterRegistrationBean<>(commandCounter.attributionFilter());
+        attribution.setOrder(Ordered.HIGHEST_PRECEDENCE);
+        MongoClientSettingsBuilderCustomizer listener = settings -> settings.addCommandListener(commandCounter);
+        ConfigurableApplicationContext context = new SpringApplicationBuilder(UserServiceApplication.class)
+                .properties(Stream.concat(Stream.of(
+                        "server.port=0",
+                        "spring.data.mongodb.uri=" + mongoUri,
+                        // Every request of the load test comes from one client IP.
+                        "user_service.app.rate-limits.enabled=false",
+                        "logging.level.root=WARN"), Stream.of(properties)).toArray(String[]::new))
+                .initializers(applicationContext -> {
+                    applicationContext.getBeanFactory().registerSingleton("loadTestCommandListener", listener);
+                    applicationContext.getBeanFactory().registerSingleton("loadTestAttributionFilter", attribution);
+                })
+                .run();
+        return new LoadTestApplication(context, commandCounter);
+    }
+
+    int port() {
+        return ((WebServerApplicationContext) context).getWebServer().getPort();
+    }
+
+    MongoCommandCounter commandCounter() {
+        return commandCounter;
+    }
+
+    /**
+     * Replaces all users and roles with the USER and ADMIN roles plus extra roles up to the given count,
+     * an admin account, and users with USER and one extra role each. Every account has the {@link #PASSWORD}.
+     */
+    SeedData seed(int userCount, int roleCount) {
+        MongoTemplate mongoTemplate = context.getBean(MongoTemplate.class);
+        mongoTemplate.remove(new Query(), User.class);
+        mongoTemplate.remove(new Query(), Role.class);
+
+        List<Role> roles = new ArrayList<>(Math.max(roleCount, 2));
+        roles.add(new Role("load-role-user", "USER", 0, null));
+        roles.add(new Role("load-role-admin", "ADMIN", 0, null));
+        for (int i = roles.size(); i < roleCount; i++) {
+            roles.add(new Role(String.format("load-role-%03d", i), "LOAD_ROLE_" + i, 0, null));
+        }
+        mongoTemplate.insert(roles, Role.class);
+        context.getBean(RoleCatalog.class).refresh();
+
+        String encodedPassword = context.getBean(PasswordEncoder.class).encode(PASSWORD);
+        RoleRef userRole = roleRef(roles.get(0));
+        List<User> users = new ArrayList<>(userCount + 1);
+        users.add(new User("load-admin", ADMIN_USERNAME, "Load", "Admin", "loadadmin@example.com",
+                encodedPassword, List.of(roleRef(roles.get(1))), 0, true, null, null));
+        List<String> ids = new ArrayList<>(userCount);
+        List<String> usernames = new ArrayList<>(userCount);
+        for (int i = 0; i < userCount; i++) {
+            String id = String.format("load-%06d", i);
+            String username = "loaduser" + i;
+            RoleRef extraRole = roleRef(roles.get(i % roles.size()));
+            users.add(new User(id, username, "Load", "User", username + "@example.com", encodedPassword,
+                    extraRole.getId().equals(userRole.getId()) ? List.of(userRole) : List.of(userRole, extraRole), 0, true, null, null));
+            ids.add(id);
+            usernames.add(username);
+        }
+        mongoTemplate.insert(users, User.class);
+        return new SeedData(ids, usernames, roles.stream().map(Role::getId).toList());
+    }
+
+    private static RoleRef roleRef(Role role) {
+        return new RoleRef(role.getId(), role.getRoleName());
+    }
+
+    @Override
+    public void close() {
+        context.close();
+    }
+
+    record SeedData(List<String> userIds, List<String> usernames, List<String> roleIds) {
+    }
+}
@@ -0,0 +1,184 @@
+package com.devsinc.userservice.load;
+
+import com.devsinc.userservice.load.FixedRateLoadDriver.EndpointResult;
+import com.devsinc.userservice.load.FixedRateLoadDriver.Operation;
+import com.devsinc.userservice.load.LoadTestApplication.SeedData;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Drives a mixed workload over /api/user/** and /api/role/** at a fixed arrival rate and reports, per endpoint,
+ * throughput, latency percentiles and the Mongo commands issued per request.
+ * Runs against an in-memory Mongo unless load.mongo-uri points at a real server.
+ * Run with {@code mvn test -Pload-tests -Dtest=MixedWorkloadLoadTest}; tune with -Dload.rate (requests per second),
+ * -Dload.duration and -Dload.warm-up (seconds), -Dload.users, -Dload.roles, -Dload.virtual-threads and -Dload.mix,
+ * a comma-separated list of endpoint=weight pairs that replaces the default weights of the endpoints it names.
+ */
+@Slf4j
+@Tag("load")
+class MixedWorkloadLoadTest {
+
+    private static final double RATE = Double.parseDouble(System.getProperty("load.rate", "200"));
+
+    private static final Duration DURATION = Duration.ofSeconds(Integer.getInteger("load.duration", 30));
+
+    private static final Duration WARM_UP = Duration.ofSeconds(Integer.getInteger("load.warm-up", 10));
+
+    private static final int USERS = Integer.getInteger("load.users", 1000);
+
+    private static final int ROLES = Integer.getInteger("load.roles", 10);
+
+    private static final String DEFAULT_MIX =
+            "get-by-id=35,get-by-username=20,get-all=10,update=10,register=5,role-get-all=10,role-find-by-id=10";
+
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+
+    private static final AtomicInteger registrations = new AtomicInteger();
+
+    @Test
+    void mixedWorkload() throws Exception {
+        try (MongoStandIn mongo = MongoStandIn.start();
+             LoadTestApplication application = LoadTestApplication.start(mongo.uri(),
+                     "user_service.app.virtual-threads.enabled=" + Boolean.getBoolean("load.virtual-threads"))) {
+            SeedData seed = application.seed(USERS, ROLES);
+            ExecutorService clientExecutor = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
+            try {
+                HttpClient client = HttpClient.newBuilder()
+                        .version(HttpClient.Version.HTTP_1_1)
+                        .executor(clientExecutor)
+                        .build();
+                String baseUrl = "http://localhost:" + application.port() + "/api";
+                String token = signIn(client, baseUrl);
+                FixedRateLoadDriver driver = new FixedRateLoadDriver(client, operations(baseUrl, token, seed));
+
+                driver.run(RATE, WARM_UP);
+                application.commandCounter().reset();
+                FixedRateLoadDriver.Result result = driver.run(RATE, DURATION);
+
+                log.info("Mixed workload report:{}", report(result, application.commandCounter(), mongo.embedded()));
+                for (EndpointResult endpoint : result.endpoints()) {
+                    assertTrue(endpoint.count() > 0, endpoint.name() + " was never called");
+                    assertEquals(0, endpoint.errors(), endpoint.name() + " had failed requests");
+                }
+            } finally {
+                clientExecutor.shutdownNow();
+            }
+        }
+    }
+
+    private static List<Operation> operations(String baseUrl, String token, SeedData seed) {
+        Map<String, Integer> weights = weights();
+        return List.of(
+                new Operation("get-by-id", weights.get("get-by-id"), () ->
+                        get(baseUrl + "/user/get/" + random(seed.userIds()))),
+                new Operation("get-by-username", weights.get("get-by-username"), () ->
+                        get(baseUrl + "/user/get-by-username/" + random(seed.usernames()))),
+                new Operation("get-all", weights.get("get-all"), () ->
+                        get(baseUrl + "/user/getAll?size=20")),
+                new Operation("update", weights.get("update"), () -> {
+                    int index = ThreadLocalRandom.current().nextInt(seed.userIds().size());
+                    String username = seed.usernames().get(index);
+                    return post(baseUrl + "/user/update", Map.of(
+                            "id", seed.userIds().get(index),
+                            "username", username,
+                            "email", username + "@example.com"));
+                }),
+                new Operation("register", weights.get("register"), () -> {
+                    int n = registrations.incrementAndGet();
+                    return post(baseUrl + "/user/register", Map.of(
+                            "username", "loadreg" + n,
+                            "email", "loadreg" + n + "@example.com",
+                            "password", LoadTestApplication.PASSWORD,
+                            "roleNames", List.of("USER")));
+                }),
+                new Operation("role-get-all", weights.get("role-get-all"), () ->
+                        get(baseUrl + "/role/get-all").header("Authorization", "Bearer " + token)),
+                new Operation("role-find-by-id", weights.get("role-find-by-id"), () ->
+                        get(baseUrl + "/role/find-by-id/" + random(seed.roleIds())).header("Authorization", "Bearer " + token)));
+    }
+
+    private static Map<String, Integer> weights() {
+        Map<String, Integer> weights = new HashMap<>();
+        for (String mix : List.of(DEFAULT_MIX, System.getProperty("load.mix", ""))) {
+            for (String entry : mix.split(",")) {
+                if (!entry.isBlank()) {
+                    String[] pair = entry.split("=");
+                    weights.put(pair[0].trim(), Integer.parseInt(pair[1].trim()));
+                }
+            }
+        }
+        return weights;
+    }
+
+    private static String signIn(HttpClient client, String baseUrl) throws Exception {
+        HttpResponse<String> response = client.send(post(baseUrl + "/sign_in", Map.of(
+                "username", LoadTestApplication.ADMIN_USERNAME,
+                "password", LoadTestApplication.PASSWORD)).build(), HttpResponse.BodyHandlers.ofString());
+        return objectMapper.readTree(response.body()).path("data").path("accessToken").asText();
+    }
+
+    private static HttpRequest.Builder get(String url) {
+        return HttpRequest.newBuilder(URI.create(url));
+    }
+
+    private static HttpRequest.Builder post(String url, Map<String, ?> body) {
+        try {
+            return HttpRequest.newBuilder(URI.create(url))
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofString(objectMapper.writeValueAsString(body)));
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static String random(List<String> values) {
+        return values.get(ThreadLocalRandom.current().nextInt(values.size()));
+    }
+
+    private static String report(FixedRateLoadDriver.Result result, MongoCommandCounter commandCounter, boolean embeddedMongo) {
+        double seconds = result.elapsed().toNanos() / 1e9;
+        StringBuilder report = new StringBuilder(String.format(
+                "%nOffered %.0f req/s for %ds against %s Mongo, %d users, %d roles%n",
+                RATE, DURATION.toSeconds(), embeddedMongo ? "in-memory" : "external", USERS, ROLES));
+        report.append(String.format("%-16s %8s %7s %8s %8s %8s %8s %9s %8s  %s%n",
+                "endpoint", "requests", "errors", "req/s", "p50 ms", "p90 ms", "p99 ms", "p99.9 ms", "max ms", "mongo commands/request"));
+        for (EndpointResult endpoint : result.endpoints()) {
+            report.append(String.format("%-16s %8d %7d %8.1f %8.2f %8.2f %8.2f %9.2f %8.2f  %s%n",
+                    endpoint.name(), endpoint.count(), endpoint.errors(), endpoint.count() / seconds,
+                    endpoint.latencyMillis(50), endpoint.latencyMillis(90), endpoint.latencyMillis(99),
+                    endpoint.latencyMillis(99.9), endpoint.maxLatencyMillis(),
+                    perRequest(commandCounter.commands(endpoint.name()), endpoint.count())));
+        }
+        SortedMap<String, Long> unattributed = commandCounter.commands(MongoCommandCounter.UNATTRIBUTED);
+        if (!unattributed.isEmpty()) {
+            report.append(String.format("%-16s %s%n", MongoCommandCounter.UNATTRIBUTED, unattributed));
+        }
+        return report.toString();
+    }
+
+    private static String perRequest(SortedMap<String, Long> commands, long requests) {
+        StringBuilder perRequest = new StringBuilder();
+        commands.forEach((command, count) -> perRequest.append(perRequest.isEmpty() ? "" : ", ")
+                .append(String.format("%s %.2f", command, requests == 0 ? 0 : (double) count / requests)));
+        return perRequest.isEmpty() ? "-" : perRequest.toString();
+    }
+}
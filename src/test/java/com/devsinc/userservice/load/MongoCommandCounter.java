@@ -0,0 +1,61 @@
+package com.devsinc.userservice.load;
+
+import com.mongodb.event.CommandListener;
+import com.mongodb.event.CommandStartedEvent;
+import jakarta.servlet.Filter;
+import jakarta.servlet.http.HttpServletRequest;
+
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counts the Mongo commands the application sends, per endpoint and command name.
+ * The load driver names the endpoint in the {@link #ENDPOINT_HEADER} request header and {@link #attributionFilter()}
+ * binds it to the request thread; the synchronous driver publishes command events on that same thread.
+ * Commands issued outside a request, such as index creation, are counted under {@link #UNATTRIBUTED}.
+ */
+final class MongoCommandCounter implements CommandListener {
+
+    static final String ENDPOINT_HEADER = "X-Load-Endpoint";
+
+    static final String UNATTRIBUTED = "(unattributed)";
+
+    private static final ThreadLocal<String> ENDPOINT = new ThreadLocal<>();
+
+    private final Map<String, Map<String, LongAdder>> counts = new ConcurrentHashMap<>();
+
+    @Override
+    public void commandStarted(CommandStartedEvent event) {
+        String endpoint = ENDPOINT.get();
+        counts.computeIfAbsent(endpoint == null ? UNATTRIBUTED : endpoint, key -> new ConcurrentHashMap<>())
+                .computeIfAbsent(event.getCommandName(), key -> new LongAdder())
+                .increment();
+    }
+
+    Filter attributionFilter() {
+        return (request, response, chain) -> {
+            ENDPOINT.set(((HttpServletRequest) request).getHeader(ENDPOINT_HEADER));
+            try {
+                chain.doFilter(request, response);
+            } finally {
+                ENDPOINT.remove();
+            }
+        };
+    }
+
+    /**
+     * @return the command counts recorded for the endpoint, by command name
+     */
+    SortedMap<String, Long> commands(String endpoint) {
+        SortedMap<String, Long> commands = new TreeMap<>();
+        counts.getOrDefault(endpoint, Map.of()).forEach((command, count) -> commands.put(command, count.sum()));
+        return commands;
+    }
+
+    void reset() {
+        counts.clear();
+    }
+}
@@ -0,0 +1,47 @@
+package com.devsinc.userservice.load;
+
+import de.bwaldvogel.mongo.MongoServer;
+import de.bwaldvogel.mongo.backend.memory.MemoryBackend;
+
+import java.net.InetSocketAddress;
+
+/**
+ * The MongoDB a load test runs against: the server at load.mongo-uri when it is set,
+ * otherwise an in-memory mongo-java-server bound to a random local port, so load tests run offline.
+ */
+final class MongoStandIn implements AutoCloseable {
+
+    private final MongoServer server;
+
+    private final String uri;
+
+    private MongoStandIn(MongoServer server, String uri) {
+        this.server = server;
+        this.uri = uri;
+    }
+
+    static MongoStandIn start() {
+        String uri = System.getProperty("load.mongo-uri");
+        if (uri != null) {
+            return new MongoStandIn(null, uri);
+        }
+        MongoServer server = new MongoServer(new MemoryBackend());
+        InetSocketAddress address = server.bind();
+        return new MongoStandIn(server, "mongodb://" + address.getHostString() + ":" + address.getPort() + "/loadtest");
+    }
+
+    String uri() {
+        return uri;
+    }
+
+    boolean embedded() {
+        return server != null;
+    }
+
+    @Override
+    public void close() {
+        if (server != null) {
+            server.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,134 @@
+package com.devsinc.userservice.load;
+
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * Compares throughput and latency of GET /user/get/{id} with Tomcat's platform thread pool and with virtual threads,
+ * at a concurrency well above the default 200 Tomcat threads.
+ * Runs against an in-memory Mongo unless load.mongo-uri points at a real server, which makes requests I/O bound
+ * and the difference between the two modes more visible.
+ * Run with {@code mvn test -Pload-tests -Dtest=VirtualThreadLoadTest}; tune with -Dload.concurrency, -Dload.duration (seconds) and -Dload.users.
+ */
+@Slf4j
+@Tag("load")
+class VirtualThreadLoadTest {
+
+    private static final int CONCURRENCY = Integer.getInteger("load.concurrency", 1000);
+
+    private static final Duration DURATION = Duration.ofSeconds(Integer.getInteger("load.duration", 20));
+
+    private static final Duration WARM_UP = Duration.ofSeconds(5);
+
+    private static final int USERS = Integer.getInteger("load.users", 1000);
+
+    private static MongoStandIn mongo;
+
+    @BeforeAll
+    static void startMongo() {
+        mongo = MongoStandIn.start();
+    }
+
+    @AfterAll
+    static void stopMongo() {
+        mongo.close();
+    }
+
+    @Test
+    void virtualThreadsAgainstPlatformThreads() throws Exception {
+        Result platform = run(false);
+        log.info("platform threads: {}", platform);
+        assertEquals(0, platform.errors());
+
+        assumeTrue(Runtime.version().feature() >= 21, "Virtual threads require Java 21");
+        Result virtual = run(true);
+        log.info("virtual threads:  {}", virtual);
+        assertEquals(0, virtual.errors());
+        log.info(String.format("throughput x%.2f, p99 x%.2f",
+                virtual.throughput() / platform.throughput(), (double) virtual.p99Micros() / platform.p99Micros()));
+    }
+
+    private Result run(boolean virtualThreads) throws Exception {
+        try (LoadTestApplication application = LoadTestApplication.start(mongo.uri(),
+                "user_service.app.virtual-threads.enabled=" + virtualThreads)) {
+            List<String> ids = application.seed(USERS, 2).userIds();
+            ExecutorService clientExecutor = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
+            try {
+                HttpClient client = HttpClient.newBuilder()
+                        .version(HttpClient.Version.HTTP_1_1)
+                        .executor(clientExecutor)
+                        .build();
+                drive(client, application.port(), ids, WARM_UP);
+                return drive(client, application.port(), ids, DURATION);
+            } finally {
+                clientExecutor.shutdownNow();
+            }
+        }
+    }
+
+    /**
+     * Keeps CONCURRENCY requests in flight for the given duration.
+     */
+    private Result drive(HttpClient client, int port, List<String> ids, Duration duration) throws InterruptedException {
+        Semaphore inFlight = new Semaphore(CONCURRENCY);
+        Queue<Long> latencies = new ConcurrentLinkedQueue<>();
+        AtomicInteger errors = new AtomicInteger();
+        long start = System.nanoTime();
+        long deadline = start + duration.toNanos();
+        while (System.nanoTime() < deadline) {
+            inFlight.acquire();
+            String id = ids.get(ThreadLocalRandom.current().nextInt(ids.size()));
+            HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/api/user/get/" + id)).build();
+            long sent = System.nanoTime();
+            client.sendAsync(request, HttpResponse.BodyHandlers.discarding()).whenComplete((response, error) -> {
+                if (error != null || response.statusCode() != 200) {
+                    errors.incrementAndGet();
+                } else {
+                    latencies.add(System.nanoTime() - sent);
+                }
+                inFlight.release();
+            });
+        }
+        inFlight.acquire(CONCURRENCY);
+        long elapsed = System.nanoTime() - start;
+        long[] sorted = latencies.stream().mapToLong(Long::longValue).sorted().toArray();
+        return new Result(sorted.length, errors.get(), sorted.length / (elapsed / 1e9),
+                percentile(sorted, 0.50) / 1000, percentile(sorted, 0.99) / 1000, sorted.length == 0 ? 0 : sorted[sorted.length - 1] / 1000);
+    }
+
+    private static long percentile(long[] sorted, double quantile) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        return sorted[(int) Math.ceil(quantile * sorted.length) - 1];
+    }
+
+    private record Result(int requests, int errors, double throughput, long p50Micros, long p99Micros, long maxMicros) {
+
+        @Override
+        public String toString() {
+            return String.format("%d requests, %d errors, %.0f req/s, p50 %d us, p99 %d us, max %d us",
+                    requests, errors, throughput, p50Micros, p99Micros, maxMicros);
+        }
+    }
+}
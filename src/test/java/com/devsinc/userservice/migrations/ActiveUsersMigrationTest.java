@@ -0,0 +1,80 @@
+package com.devsinc.userservice.migrations;
+
+import com.devsinc.userservice.configurations.MongoIndexInitializer;
+import com.devsinc.userservice.models.User;
+import com.devsinc.userservice.services.impl.ServiceFixture;
+import org.bson.Document;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.core.index.IndexInfo;
+import org.springframework.data.mongodb.core.index.IndexOperations;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Upgrades a database holding the unique username and email indexes on every user, as written before soft deletion.
+ * The server refuses to create the lookup indexes alongside those, which the in-memory server does not check, so this
+ * only runs when mongo.uri is set:
+ * {@code mvn test -Dtest=ActiveUsersMigrationTest -Dmongo.uri=mongodb://localhost:27017/active_users}.
+ * The users, roles and outbox events of that database are dropped.
+ */
+@EnabledIfSystemProperty(named = "mongo.uri", matches = ".+")
+class ActiveUsersMigrationTest {
+
+    private ServiceFixture fixture;
+
+    @BeforeEach
+    void start() {
+        fixture = ServiceFixture.start(System.getProperty("mongo.uri"));
+        fixture.mongoTemplate.dropCollection(User.class);
+        IndexOperations indexOperations = fixture.mongoTemplate.indexOps(User.class);
+        indexOperations.ensureIndex(new Index("username", Sort.Direction.ASC).unique().named("username"));
+        indexOperations.ensureIndex(new Index("email", Sort.Direction.ASC).unique().named("email"));
+        for (String username : List.of("alice", "bobby", "carol")) {
+            fixture.mongoTemplate.insert(new Document("_id", "u-" + username)
+                    .append("username", username)
+                    .append("email", username + "@example.com")
+                    .append("password", fixture.passwordEncoder.encode(ServiceFixture.PASSWORD))
+                    .append("roles", List.of(new Document("_id", "r-user").append("roleName", "USER"))), "user");
+        }
+    }
+
+    @AfterEach
+    void stop() {
+        fixture.close();
+    }
+
+    @Test
+    void upgradeReplacesTheUniqueIndexesBeforeTheDeclaredOnesAreEnsured() {
+        ActiveUsersMigration migration = new ActiveUsersMigration(fixture.mongoTemplate, 2);
+
+        assertThat(migration.migrate()).isEqualTo(3);
+        new MongoIndexInitializer(fixture.mongoTemplate).ensureIndexes();
+
+        assertThat(fixture.mongoTemplate.indexOps(User.class).getIndexInfo()).extracting(IndexInfo::getName)
+                .contains(User.USERNAME_INDEX, User.EMAIL_INDEX, "username_lookup", "email_lookup")
+                .doesNotContain("username", "email");
+        assertThat(fixture.mongoTemplate.findAll(User.class)).extracting(User::getActive).containsOnly(true);
+        assertThat(migration.migrate()).as("nothing left to upgrade").isZero();
+    }
+
+    @Test
+    void usernamesAndEmailsOfUsersDeletedAfterTheUpgradeCanBeRegisteredAgain() {
+        new ActiveUsersMigration(fixture.mongoTemplate, 2).migrate();
+
+        fixture.userService.deleteUser("u-alice");
+
+        assertThat(fixture.userService.createUser(ServiceFixture.createRequest("alice")).getId()).isNotEqualTo("u-alice");
+        assertThatThrownBy(() -> fixture.userService.createUser(ServiceFixture.createRequest("bobby")))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessage("User with username: bobby already registered");
+        assertThat(fixture.userService.loadUserByUsername("carol").getUsername()).isEqualTo("carol");
+    }
+}
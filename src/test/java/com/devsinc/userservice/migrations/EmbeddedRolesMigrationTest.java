@@ -0,0 +1,80 @@
+package com.devsinc.userservice.migrations;
+
+import com.devsinc.userservice.models.RoleRef;
+import com.devsinc.userservice.models.User;
+import com.devsinc.userservice.services.impl.ServiceFixture;
+import com.mongodb.DBRef;
+import org.bson.Document;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.task.SyncTaskExecutor;
+import org.springframework.security.core.GrantedAuthority;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+/**
+ * Rewrites users whose roles are DBRefs, as written before roles were embedded, in batches smaller than the users.
+ */
+class EmbeddedRolesMigrationTest {
+
+    private ServiceFixture fixture;
+
+    private EmbeddedRolesMigration migration;
+
+    @BeforeEach
+    void start() {
+        fixture = ServiceFixture.start();
+        migration = new EmbeddedRolesMigration(fixture.mongoTemplate, fixture.roleCatalog, fixture.memberCounts,
+                new SyncTaskExecutor(), 2);
+    }
+
+    @AfterEach
+    void stop() {
+        fixture.close();
+    }
+
+    @Test
+    void referencedRolesAreEmbeddedAcrossBatches() {
+        for (String username : List.of("alice", "bobby", "carol", "danny", "erica")) {
+            insertUser(username, List.of(new DBRef("roles", "r-user"), new DBRef("roles", "r-admin")));
+        }
+        insertUser("frank", List.of(new Document("_id", "r-user").append("roleName", "USER")));
+
+        assertThat(migration.migrate()).isEqualTo(5);
+
+        List<Document> users = fixture.mongoTemplate.findAll(Document.class, "user");
+        assertThat(users).hasSize(6);
+        assertThat(users).allSatisfy(user -> assertThat(user.getList("roles", Object.class)).allSatisfy(role ->
+                assertThat(role).isInstanceOf(Document.class)));
+        assertThat(fixture.mongoTemplate.findById("u-erica", User.class).getRoles())
+                .extracting(RoleRef::getId, RoleRef::getRoleName)
+                .containsExactly(tuple("r-user", "USER"), tuple("r-admin", "ADMIN"));
+        assertThat(fixture.userService.loadUserByUsername("alice").getAuthorities())
+                .extracting(GrantedAuthority::getAuthority).containsExactly("USER", "ADMIN");
+        assertThat(fixture.roleService.countRoleUsers("r-admin")).isEqualTo(5);
+        assertThat(migration.migrate()).as("nothing left to rewrite").isZero();
+    }
+
+    @Test
+    void referencesToMissingRolesAreDropped() {
+        insertUser("alice", List.of(new DBRef("roles", "r-user"), new DBRef("roles", "r-missing")));
+
+        migration.start();
+
+        assertThat(fixture.mongoTemplate.findById("u-alice", User.class).getRoles())
+                .extracting(RoleRef::getId).containsExactly("r-user");
+    }
+
+    private void insertUser(String username, List<?> roles) {
+        fixture.mongoTemplate.insert(new Document("_id", "u-" + username)
+                .append("username", username)
+                .append("email", username + "@example.com")
+                .append("password", "{noop}" + ServiceFixture.PASSWORD)
+                .append("roles", roles)
+                .append("active", true), "user");
+    }
+}
@@ -0,0 +1,91 @@
+package com.devsinc.userservice.security;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class TokenBucketRateLimiterTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Test
+    void fullBucketAllowsABurstOfItsCapacity() {
+        TokenBucketRateLimiter limiter = limiter(3, 0.001, 1024);
+
+        assertThat(limiter.tryAcquire("alice")).isTrue();
+        assertThat(limiter.tryAcquire("alice")).isTrue();
+        assertThat(limiter.tryAcquire("alice")).isTrue();
+        assertThat(limiter.tryAcquire("alice")).isFalse();
+        assertThat(limiter.refillInterval()).isEqualTo(Duration.ofSeconds(1000));
+        assertThat(decisions("allowed")).isEqualTo(3);
+        assertThat(decisions("rejected")).isEqualTo(1);
+    }
+
+    @Test
+    void emptyBucketIsRefilledOneTokenPerInterval() throws InterruptedException {
+        TokenBucketRateLimiter limiter = limiter(1, 5, 1024);
+        assertThat(limiter.tryAcquire("alice")).isTrue();
+        assertThat(limiter.tryAcquire("alice")).isFalse();
+
+        Thread.sleep(limiter.refillInterval().toMillis() + 50);
+
+        assertThat(limiter.tryAcquire("alice")).isTrue();
+    }
+
+    @Test
+    void checkingWhetherABucketIsExhaustedTakesNoToken() {
+        TokenBucketRateLimiter limiter = limiter(1, 0.001, 1024);
+
+        assertThat(limiter.isExhausted("alice")).isFalse();
+        assertThat(limiter.isExhausted("alice")).isFalse();
+        assertThat(limiter.tryAcquire("alice")).isTrue();
+        assertThat(limiter.isExhausted("alice")).isTrue();
+    }
+
+    @Test
+    void chargingTakesATokenWithoutRecordingADecision() {
+        TokenBucketRateLimiter limiter = limiter(1, 0.001, 1024);
+
+        limiter.charge("alice");
+        limiter.charge("alice");
+
+        assertThat(limiter.tryAcquire("alice")).isFalse();
+        assertThat(decisions("allowed")).isZero();
+        assertThat(decisions("rejected")).isEqualTo(1);
+    }
+
+    @ParameterizedTest(name = "{0} stripes give {1} buckets")
+    @CsvSource({ "1, 1", "2, 2", "3, 4", "1000, 1024", "16384, 16384" })
+    void stripesAreRoundedUpToAPowerOfTwo(int stripes, int buckets) {
+        assertThat(limiter(1, 1, stripes).stripes()).isEqualTo(buckets);
+    }
+
+    @Test
+    void keysSharingABucketShareItsLimit() {
+        TokenBucketRateLimiter limiter = limiter(1, 0.001, 1);
+
+        assertThat(limiter.tryAcquire("alice")).isTrue();
+        assertThat(limiter.tryAcquire("bobby")).isFalse();
+    }
+
+    @Test
+    void rejectsLimitsThatAllowNothing() {
+        assertThatThrownBy(() -> limiter(0, 1, 1024)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> limiter(1, 0, 1024)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> limiter(1, 1, 0)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private TokenBucketRateLimiter limiter(int capacity, double refillPerSecond, int stripes) {
+        return new TokenBucketRateLimiter("test", capacity, refillPerSecond, stripes, meterRegistry);
+    }
+
+    private double decisions(String result) {
+        return meterRegistry.get("rate.limiter.decisions").tag("limiter", "test").tag("result", result).counter().count();
+    }
+}
@@ -0,0 +1,62 @@
+package com.devsinc.userservice.services.impl;
+
+import com.devsinc.userservice.dtos.request.CreateUserRequest;
+import com.devsinc.userservice.dtos.response.UserResponse;
+import com.devsinc.userservice.models.User;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Registers the username and email of a deleted user again. The unique indexes hold active users only, a partial filter
+ * the in-memory server ignores, so this only runs when mongo.uri is set:
+ * {@code mvn test -Dtest=DeletedUserReRegistrationTest -Dmongo.uri=mongodb://localhost:27017/re_registration}.
+ * The users, roles and outbox events of that database are dropped.
+ */
+@EnabledIfSystemProperty(named = "mongo.uri", matches = ".+")
+class DeletedUserReRegistrationTest {
+
+    private ServiceFixture fixture;
+
+    @BeforeEach
+    void start() {
+        fixture = ServiceFixture.start(System.getProperty("mongo.uri"));
+    }
+
+    @AfterEach
+    void stop() {
+        fixture.close();
+    }
+
+    @Test
+    void usernameAndEmailOfADeletedUserCanBeRegisteredAgain() {
+        UserResponse deleted = fixture.userService.createUser(ServiceFixture.createRequest("alice"));
+        fixture.userService.deleteUser(deleted.getId());
+
+        UserResponse registered = fixture.userService.createUser(ServiceFixture.createRequest("alice"));
+
+        assertThat(registered.getId()).isNotEqualTo(deleted.getId());
+        assertThat(fixture.userService.findUserByUsername("alice").getId()).isEqualTo(registered.getId());
+        assertThat(fixture.mongoTemplate.findById(deleted.getId(), User.class).getDeletedAt()).isNotNull();
+    }
+
+    @Test
+    void activeUsersStillHoldTheirUsernameAndEmail() {
+        UserResponse deleted = fixture.userService.createUser(ServiceFixture.createRequest("alice"));
+        fixture.userService.deleteUser(deleted.getId());
+        fixture.userService.createUser(ServiceFixture.createRequest("alice"));
+
+        assertThatThrownBy(() -> fixture.userService.createUser(ServiceFixture.createRequest("alice")))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessage("User with username: alice already registered");
+        CreateUserRequest sameEmail = ServiceFixture.createRequest("alice2");
+        sameEmail.setEmail("alice@example.com");
+        assertThatThrownBy(() -> fixture.userService.createUser(sameEmail))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessage("User with email: alice@example.com already registered");
+    }
+}
@@ -0,0 +1,131 @@
+package com.devsinc.userservice.services.impl;
+
+import com.devsinc.userservice.dtos.request.BatchGetUsersRequest;
+import com.devsinc.userservice.dtos.request.UserSearchRequest;
+import com.devsinc.userservice.dtos.response.BatchGetResponse;
+import com.devsinc.userservice.dtos.response.UserResponse;
+import com.devsinc.userservice.models.User;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class DeletedUsersTest {
+
+    private ServiceFixture fixture;
+
+    @BeforeEach
+    void start() {
+        fixture = ServiceFixture.start();
+    }
+
+    @AfterEach
+    void stop() {
+        fixture.close();
+    }
+
+    @Test
+    void tombstonesAreMissedByEveryRead() {
+        UserResponse alice = fixture.userService.createUser(ServiceFixture.createRequest("alice", "USER", "ADMIN"));
+        UserResponse bob = fixture.userService.createUser(ServiceFixture.createRequest("bobby"));
+        // Cache the member counts, which the deletion must then decrement.
+        assertThat(fixture.roleService.countRoleUsers("r-user")).isEqualTo(2);
+        assertThat(fixture.roleService.countRoleUsers("r-admin")).isEqualTo(1);
+
+        fixture.userService.deleteUser(alice.getId());
+
+        assertThatThrownBy(() -> fixture.userService.findUserById(alice.getId())).isInstanceOf(NoSuchElementException.class);
+        assertThatThrownBy(() -> fixture.userService.findUserByUsername("alice")).isInstanceOf(NoSuchElementException.class);
+        assertThatThrownBy(() -> fixture.userService.loadUserByUsername("alice")).isInstanceOf(UsernameNotFoundException.class);
+        BatchGetResponse<UserResponse> byId = fixture.userService.findUsers(batchGetByIds(alice.getId(), bob.getId()));
+        assertThat(byId.getFound()).containsOnlyKeys(bob.getId());
+        assertThat(byId.getMissing()).containsExactly(alice.getId());
+        BatchGetResponse<UserResponse> byUsername = fixture.userService.findUsers(batchGetByUsernames("alice", "bobby"));
+        assertThat(byUsername.getFound()).containsOnlyKeys("bobby");
+        assertThat(byUsername.getMissing()).containsExactly("alice");
+        assertThat(fixture.userService.searchUsers(new UserSearchRequest()).getItems())
+                .extracting(UserResponse::getId).containsExactly(bob.getId());
+        assertThat(fixture.userService.getAllUsers(null, null).getItems())
+                .extracting(UserResponse::getId).containsExactly(bob.getId());
+        assertThat(fixture.roleService.getRoleUsers("r-user", null, null).getItems())
+                .extracting(UserResponse::getId).containsExactly(bob.getId());
+        assertThat(fixture.roleService.getRoleUsers("r-admin", null, null).getItems()).isEmpty();
+        assertThat(fixture.roleService.countRoleUsers("r-user")).isEqualTo(1);
+        assertThat(fixture.roleService.countRoleUsers("r-admin")).isZero();
+        fixture.memberCounts.invalidateAll();
+        assertThat(fixture.roleService.countRoleUsers("r-user")).as("counted again from the database").isEqualTo(1);
+    }
+
+    @Test
+    void deletingADeletedUserFailsAsNotFound() {
+        UserResponse alice = fixture.userService.createUser(ServiceFixture.createRequest("alice"));
+        fixture.userService.deleteUser(alice.getId());
+
+        assertThatThrownBy(() -> fixture.userService.deleteUser(alice.getId()))
+                .isInstanceOf(NoSuchElementException.class)
+                .hasMessage("Unable to find user with id: " + alice.getId());
+        assertThat(fixture.roleService.countRoleUsers("r-user")).as("not decremented twice").isZero();
+    }
+
+    @Test
+    void purgeRemovesOneBatchOfTheUsersDeletedLongestAgoPerRun() {
+        UserResponse live = fixture.userService.createUser(ServiceFixture.createRequest("alive"));
+        List<String> deleted = new ArrayList<>();
+        for (int i = 0; i < 6; i++) {
+            String id = fixture.userService.createUser(ServiceFixture.createRequest("user" + i)).getId();
+            deleted.add(id);
+        }
+        for (String id : deleted.subList(0, 5)) {
+            fixture.userService.deleteUser(id);
+        }
+        fixture.relay(100).relay();
+        // Deleted past the grace period, but its deletion is not published yet.
+        fixture.userService.deleteUser(deleted.get(5));
+        Instant now = Instant.now();
+        deletedAt(deleted.get(0), now.minus(Duration.ofHours(4)));
+        deletedAt(deleted.get(1), now.minus(Duration.ofHours(3)));
+        deletedAt(deleted.get(2), now.minus(Duration.ofHours(2)));
+        deletedAt(deleted.get(5), now.minus(Duration.ofHours(5)));
+        DeletedUserPurge purge = fixture.purge(Duration.ofHours(1), 2);
+
+        assertThat(purge.purge()).isEqualTo(2);
+        assertThat(userIds()).doesNotContain(deleted.get(0), deleted.get(1)).contains(deleted.get(2));
+        assertThat(purge.purge()).isEqualTo(1);
+        assertThat(purge.purge()).isZero();
+
+        assertThat(userIds()).containsExactlyInAnyOrder(live.getId(), deleted.get(3), deleted.get(4), deleted.get(5));
+        assertThat(fixture.meterRegistry.get("users.purged").counter().count()).isEqualTo(3);
+    }
+
+    private void deletedAt(String id, Instant deletedAt) {
+        fixture.mongoTemplate.updateFirst(Query.query(Criteria.where("_id").is(id)), Update.update("deletedAt", deletedAt), User.class);
+    }
+
+    private List<String> userIds() {
+        return fixture.mongoTemplate.findAll(User.class).stream().map(User::getId).toList();
+    }
+
+    private static BatchGetUsersRequest batchGetByIds(String... ids) {
+        BatchGetUsersRequest request = new BatchGetUsersRequest();
+        request.setIds(List.of(ids));
+        return request;
+    }
+
+    private static BatchGetUsersRequest batchGetByUsernames(String... usernames) {
+        BatchGetUsersRequest request = new BatchGetUsersRequest();
+        request.setUsernames(List.of(usernames));
+        return request;
+    }
+}
@@ -0,0 +1,178 @@
+package com.devsinc.userservice.services.impl;
+
+import com.devsinc.userservice.dtos.request.CreateRoleRequest;
+import com.devsinc.userservice.dtos.request.UpdatePasswordRequest;
+import com.devsinc.userservice.dtos.request.UpdateRoleRequest;
+import com.devsinc.userservice.dtos.request.UpdateUserRequest;
+import com.devsinc.userservice.dtos.response.ChangeEventResponse;
+import com.devsinc.userservice.dtos.response.ChangeFeedResponse;
+import com.devsinc.userservice.dtos.response.RoleResponse;
+import com.devsinc.userservice.dtos.response.UserResponse;
+import com.devsinc.userservice.models.OutboxEvent;
+import com.devsinc.userservice.models.OutboxEventType;
+import com.devsinc.userservice.models.User;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.tuple;
+
+class OutboxRelayTest {
+
+    private ServiceFixture fixture;
+
+    @BeforeEach
+    void start() {
+        fixture = ServiceFixture.start();
+    }
+
+    @AfterEach
+    void stop() {
+        fixture.close();
+    }
+
+    @Test
+    void writeRecordsItsEventInTheChangedDocumentUntilRelayed() {
+        UserResponse user = fixture.userService.createUser(ServiceFixture.createRequest("alice"));
+
+        assertThat(fixture.mongoTemplate.findById(user.getId(), User.class).getPendingEvents())
+                .singleElement()
+                .satisfies(event -> assertThat(event.getType()).isEqualTo(OutboxEventType.USER_CREATED));
+        assertThat(fixture.mongoTemplate.count(new Query(), OutboxEvent.class)).isZero();
+
+        OutboxRelay relay = fixture.relay(10);
+        assertThat(relay.relay()).isEqualTo(1);
+
+        assertThat(fixture.mongoTemplate.findById(user.getId(), User.class).getPendingEvents()).isEmpty();
+        assertThat(fixture.userService.getChanges(null, 10).getChanges())
+                .singleElement()
+                .satisfies(change -> {
+                    assertThat(change.getSequence()).isEqualTo(1);
+                    assertThat(change.getType()).isEqualTo(OutboxEventType.USER_CREATED);
+                    assertThat(change.getAggregateId()).isEqualTo(user.getId());
+                    assertThat(change.getUser().getUsername()).isEqualTo("alice");
+                    assertThat(change.getUser().getVersion()).isEqualTo(user.getVersion());
+                });
+        assertThat(relay.relay()).as("nothing is left to relay").isZero();
+    }
+
+    @Test
+    void relayNumbersEventsContiguouslyInTheOrderOfEachDocumentsChanges() {
+        UserResponse alice = fixture.userService.createUser(ServiceFixture.createRequest("alice"));
+        UserResponse bob = fixture.userService.createUser(ServiceFixture.createRequest("bobby"));
+        fixture.userService.updateUser(update(alice, "alice2"));
+        fixture.userService.updatePassword(passwordChange(alice.getId()));
+        fixture.userService.deleteUser(bob.getId());
+        RoleResponse role = fixture.roleService.saveRole(createRole("AUDITOR"));
+        fixture.roleService.updateRole(renameRole(role.getId(), "AUDITORS"));
+        OutboxRelay relay = fixture.relay(1);
+        relay.relay();
+        fixture.userService.updateUser(update(fixture.userService.findUserById(alice.getId()), "alice3"));
+        relay.relay();
+
+        List<ChangeEventResponse> changes = fixture.userService.getChanges(null, 100).getChanges();
+
+        assertThat(changes).extracting(ChangeEventResponse::getSequence)
+                .containsExactlyElementsOf(LongStream.rangeClosed(1, 8).boxed().toList());
+        assertThat(changes).filteredOn(change -> change.getAggregateId().equals(alice.getId()))
+                .extracting(ChangeEventResponse::getType, change -> change.getUser().getUsername(), change -> change.getUser().getVersion())
+                .containsExactly(
+                        tuple(OutboxEventType.USER_CREATED, "alice", 1L),
+                        tuple(OutboxEventType.USER_UPDATED, "alice2", 2L),
+                        tuple(OutboxEventType.USER_PASSWORD_CHANGED, "alice2", 3L),
+                        tuple(OutboxEventType.USER_UPDATED, "alice3", 4L));
+        assertThat(changes).filteredOn(change -> change.getAggregateId().equals(bob.getId()))
+                .extracting(ChangeEventResponse::getType, change -> change.getUser().getVersion())
+                .containsExactly(tuple(OutboxEventType.USER_CREATED, 1L), tuple(OutboxEventType.USER_DELETED, 2L));
+        assertThat(changes).filteredOn(change -> change.getAggregateId().equals(role.getId()))
+                .extracting(ChangeEventResponse::getType, change -> change.getRole().getRoleName())
+                .containsExactly(tuple(OutboxEventType.ROLE_CREATED, "AUDITOR"), tuple(OutboxEventType.ROLE_UPDATED, "AUDITORS"));
+    }
+
+    @Test
+    void pagingFromTheNextTokenReturnsEveryEventExactlyOnce() {
+        for (int i = 0; i < 7; i++) {
+            fixture.userService.createUser(ServiceFixture.createRequest("user" + i));
+        }
+        OutboxRelay relay = fixture.relay(3);
+        relay.relay();
+
+        List<Long> read = new ArrayList<>();
+        String token = readAll(null, read);
+        assertThat(read).containsExactlyElementsOf(LongStream.rangeClosed(1, 7).boxed().toList());
+
+        ChangeFeedResponse caughtUp = fixture.userService.getChanges(token, 3);
+        assertThat(caughtUp.getChanges()).isEmpty();
+        assertThat(caughtUp.getNextToken()).isEqualTo(token);
+        assertThat(caughtUp.isHasMore()).isFalse();
+
+        fixture.userService.createUser(ServiceFixture.createRequest("latecomer"));
+        relay.relay();
+        read.clear();
+        readAll(token, read);
+        assertThat(read).containsExactly(8L);
+    }
+
+    @Test
+    void failedDeletesRecordNothing() {
+        UserResponse user = fixture.userService.createUser(ServiceFixture.createRequest("alice"));
+        fixture.userService.deleteUser(user.getId());
+        OutboxRelay relay = fixture.relay(10);
+        relay.relay();
+
+        assertThatThrownBy(() -> fixture.userService.deleteUser(user.getId())).isInstanceOf(NoSuchElementException.class);
+        assertThatThrownBy(() -> fixture.userService.deleteUser("missing")).isInstanceOf(NoSuchElementException.class);
+
+        assertThat(fixture.mongoTemplate.findById(user.getId(), User.class).getPendingEvents()).isEmpty();
+        assertThat(relay.relay()).isZero();
+        assertThat(fixture.userService.getChanges(null, 100).getChanges()).extracting(ChangeEventResponse::getType)
+                .containsExactly(OutboxEventType.USER_CREATED, OutboxEventType.USER_DELETED);
+    }
+
+    private String readAll(String token, List<Long> read) {
+        ChangeFeedResponse page;
+        do {
+            page = fixture.userService.getChanges(token, 3);
+            page.getChanges().forEach(change -> read.add(change.getSequence()));
+            token = page.getNextToken();
+        } while (page.isHasMore());
+        return token;
+    }
+
+    private static UpdateUserRequest update(UserResponse user, String username) {
+        UpdateUserRequest request = new UpdateUserRequest();
+        request.setId(user.getId());
+        request.setUsername(username);
+        request.setEmail(user.getEmail());
+        return request;
+    }
+
+    private static UpdatePasswordRequest passwordChange(String id) {
+        UpdatePasswordRequest request = new UpdatePasswordRequest();
+        request.setId(id);
+        request.setCurrentPassword(ServiceFixture.PASSWORD);
+        request.setNewPassword("new-" + ServiceFixture.PASSWORD);
+        return request;
+    }
+
+    private static CreateRoleRequest createRole(String roleName) {
+        CreateRoleRequest request = new CreateRoleRequest();
+        request.setRoleName(roleName);
+        return request;
+    }
+
+    private static UpdateRoleRequest renameRole(String id, String roleName) {
+        UpdateRoleRequest request = new UpdateRoleRequest();
+        request.setId(id);
+        request.setRoleName(roleName);
+        return request;
+    }
+}
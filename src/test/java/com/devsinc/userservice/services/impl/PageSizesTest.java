@@ -0,0 +1,32 @@
+package com.devsinc.userservice.services.impl;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class PageSizesTest {
+
+    private final PageSizes pageSizes = new PageSizes(20, 100);
+
+    @Test
+    void missingSizeReadsTheDefaultPage() {
+        assertThat(pageSizes.of(null)).isEqualTo(20);
+    }
+
+    @ParameterizedTest(name = "{0} reads {1}")
+    @CsvSource({ "1, 1", "100, 100", "101, 100", "2147483647, 100" })
+    void requestedSizeIsCappedAtTheMaximum(int size, int pageSize) {
+        assertThat(pageSizes.of(size)).isEqualTo(pageSize);
+    }
+
+    @Test
+    void rejectsSizesThatAreNotPositive() {
+        assertThatThrownBy(() -> pageSizes.of(0))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Page size must be greater than zero");
+        assertThatThrownBy(() -> pageSizes.of(-1)).isInstanceOf(IllegalArgumentException.class);
+    }
+}
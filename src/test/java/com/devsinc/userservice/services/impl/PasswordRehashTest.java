@@ -0,0 +1,99 @@
+package com.devsinc.userservice.services.impl;
+
+import com.devsinc.userservice.dtos.request.UpdatePasswordRequest;
+import com.devsinc.userservice.models.User;
+import com.devsinc.userservice.security.PasswordEncoderSettings;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Logs in users whose hashes were written by the unprefixed BCrypt encoder of the fixture,
+ * through a provider wired as in DefaultSecurityConfig with PBKDF2 as the current algorithm.
+ */
+class PasswordRehashTest {
+
+    private ServiceFixture fixture;
+
+    private UserServiceImpl userService;
+
+    private DaoAuthenticationProvider provider;
+
+    private String userId;
+
+    @BeforeEach
+    void start() {
+        fixture = ServiceFixture.start();
+        PasswordEncoder passwordEncoder = new PasswordEncoderSettings(PasswordEncoderSettings.PBKDF2, 4, 1024, 1, 1, 1000)
+                .createEncoder();
+        userService = fixture.userService(passwordEncoder);
+        provider = new DaoAuthenticationProvider();
+        provider.setPasswordEncoder(passwordEncoder);
+        provider.setUserDetailsService(fixture.userCache.timed(userService));
+        provider.setUserCache(fixture.userCache);
+        provider.setUserDetailsPasswordService(userService);
+        userId = fixture.userService.createUser(ServiceFixture.createRequest("alice")).getId();
+    }
+
+    @AfterEach
+    void stop() {
+        fixture.close();
+    }
+
+    @Test
+    void outdatedHashIsReplacedOnceOnLogin() {
+        User outdated = storedUser();
+        assertThat(outdated.getPassword()).startsWith("$2a$04$");
+
+        login(ServiceFixture.PASSWORD);
+
+        User rehashed = storedUser();
+        assertThat(rehashed.getPassword()).startsWith("{pbkdf2}");
+        assertThat(rehashed.getVersion()).isEqualTo(outdated.getVersion() + 1);
+
+        fixture.userCache.removeAllUsersFromCache();
+        login(ServiceFixture.PASSWORD);
+        login(ServiceFixture.PASSWORD);
+
+        assertThat(storedUser().getPassword()).isEqualTo(rehashed.getPassword());
+        assertThat(storedUser().getVersion()).as("current hashes are not rewritten").isEqualTo(rehashed.getVersion());
+        assertThatThrownBy(() -> login("wrong-password")).isInstanceOf(BadCredentialsException.class);
+    }
+
+    @Test
+    void passwordChangedSinceTheLoginIsNotOverwritten() {
+        UserDetails loggedIn = userService.loadUserByUsername("alice");
+        UpdatePasswordRequest change = new UpdatePasswordRequest();
+        change.setId(userId);
+        change.setCurrentPassword(ServiceFixture.PASSWORD);
+        change.setNewPassword("changed-password");
+        userService.updatePassword(change);
+        User changed = storedUser();
+
+        UserDetails returned = userService.updatePassword(loggedIn, "{pbkdf2}stale-rehash");
+
+        assertThat(returned).isSameAs(loggedIn);
+        assertThat(returned.getPassword()).isNotEqualTo("{pbkdf2}stale-rehash");
+        assertThat(storedUser().getPassword()).isEqualTo(changed.getPassword());
+        assertThat(storedUser().getVersion()).isEqualTo(changed.getVersion());
+        fixture.userCache.removeAllUsersFromCache();
+        login("changed-password");
+        assertThatThrownBy(() -> login(ServiceFixture.PASSWORD)).isInstanceOf(BadCredentialsException.class);
+    }
+
+    private void login(String password) {
+        provider.authenticate(UsernamePasswordAuthenticationToken.unauthenticated("alice", password));
+    }
+
+    private User storedUser() {
+        return fixture.mongoTemplate.findById(userId, User.class);
+    }
+}
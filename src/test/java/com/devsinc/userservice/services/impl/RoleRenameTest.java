@@ -0,0 +1,79 @@
+package com.devsinc.userservice.services.impl;
+
+import com.devsinc.userservice.dtos.request.UpdateRoleRequest;
+import com.devsinc.userservice.models.RoleRef;
+import com.devsinc.userservice.models.User;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.core.GrantedAuthority;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.tuple;
+
+/**
+ * Renames roles embedded in more user documents than a page of members holds.
+ */
+class RoleRenameTest {
+
+    private ServiceFixture fixture;
+
+    @BeforeEach
+    void start() {
+        fixture = ServiceFixture.start();
+    }
+
+    @AfterEach
+    void stop() {
+        fixture.close();
+    }
+
+    @Test
+    void newNameReachesEveryUserEmbeddingTheRole() {
+        List<String> admins = new ArrayList<>();
+        for (int i = 0; i < 60; i++) {
+            admins.add(fixture.userService.createUser(ServiceFixture.createRequest("admin" + i, "USER", "ADMIN")).getId());
+        }
+        admins.add(fixture.userService.createUser(ServiceFixture.createRequest("owner", "ADMIN")).getId());
+        fixture.userService.createUser(ServiceFixture.createRequest("member"));
+
+        fixture.roleService.updateRole(rename("r-admin", "ADMINISTRATOR"));
+
+        for (User user : fixture.mongoTemplate.findAll(User.class)) {
+            assertThat(user.getRoles()).extracting(RoleRef::getRoleName).doesNotContain("ADMIN");
+            if (admins.contains(user.getId())) {
+                assertThat(user.getRoles()).extracting(RoleRef::getId, RoleRef::getRoleName)
+                        .contains(tuple("r-admin", "ADMINISTRATOR"));
+            }
+        }
+        assertThat(fixture.userService.loadUserByUsername("admin0").getAuthorities())
+                .extracting(GrantedAuthority::getAuthority).containsExactlyInAnyOrder("USER", "ADMINISTRATOR");
+        assertThat(fixture.userService.loadUserByUsername("owner").getAuthorities())
+                .extracting(GrantedAuthority::getAuthority).containsExactly("ADMINISTRATOR");
+        assertThat(fixture.userService.loadUserByUsername("member").getAuthorities())
+                .extracting(GrantedAuthority::getAuthority).containsExactly("USER");
+    }
+
+    @Test
+    void renameToATakenNameLeavesTheUsersAlone() {
+        fixture.userService.createUser(ServiceFixture.createRequest("alice", "USER", "ADMIN"));
+
+        assertThatThrownBy(() -> fixture.roleService.updateRole(rename("r-admin", "USER")))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessage("Role with roleName: USER already exists");
+
+        assertThat(fixture.userService.loadUserByUsername("alice").getAuthorities())
+                .extracting(GrantedAuthority::getAuthority).containsExactlyInAnyOrder("USER", "ADMIN");
+    }
+
+    private static UpdateRoleRequest rename(String id, String roleName) {
+        UpdateRoleRequest request = new UpdateRoleRequest();
+        request.setId(id);
+        request.setRoleName(roleName);
+        return request;
+    }
+}
@@ -0,0 +1,180 @@
+package com.devsinc.userservice.services.impl;
+
+import com.devsinc.userservice.caches.CaffeineUserCache;
+import com.devsinc.userservice.caches.RoleCatalog;
+import com.devsinc.userservice.caches.RoleMemberCounts;
+import com.devsinc.userservice.caches.VerifiedCredentialCache;
+import com.devsinc.userservice.dtos.request.CreateUserRequest;
+import com.devsinc.userservice.models.OutboxEvent;
+import com.devsinc.userservice.models.Role;
+import com.devsinc.userservice.models.User;
+import com.devsinc.userservice.repositories.OutboxEventRepository;
+import com.devsinc.userservice.repositories.RoleRepository;
+import com.devsinc.userservice.repositories.UserRepository;
+import com.devsinc.userservice.security.PasswordHashingExecutor;
+import com.mongodb.ConnectionString;
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoClients;
+import de.bwaldvogel.mongo.MongoServer;
+import de.bwaldvogel.mongo.backend.memory.MemoryBackend;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.validation.Validation;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.IndexOperations;
+import org.springframework.data.mongodb.core.index.IndexResolver;
+import org.springframework.data.mongodb.core.index.MongoPersistentEntityIndexResolver;
+import org.springframework.data.mongodb.repository.support.MongoRepositoryFactory;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.net.InetSocketAddress;
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * The servlet services, wired by hand against an in-memory mongo-java-server holding the indexes of the mapped documents.
+ * That server ignores collations and partial index filters, and has neither change streams nor transactions,
+ * so what depends on them is tested against a real server instead, as UserSearchQueryExplainTest and
+ * ChangeStreamCacheInvalidatorTest do, or with the services wired against one by {@link #start(String)}.
+ */
+public final class ServiceFixture implements AutoCloseable {
+
+    public static final String PASSWORD = "password";
+
+    private static final List<Class<?>> DOCUMENT_CLASSES = List.of(User.class, Role.class, OutboxEvent.class);
+
+    public final MongoTemplate mongoTemplate;
+
+    public final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    public final PasswordEncoder passwordEncoder = new BCryptPasswordEncoder(4);
+
+    public final UserRepository userRepository;
+
+    public final RoleCatalog roleCatalog;
+
+    public final RoleMemberCounts memberCounts;
+
+    public final CaffeineUserCache userCache;
+
+    public final UserServiceImpl userService;
+
+    public final RoleServiceImpl roleService;
+
+    public final UserImportServiceImpl importService;
+
+    private final MongoServer server;
+
+    private final MongoClient mongoClient;
+
+    private final PasswordHashingExecutor passwordHashingExecutor;
+
+    private ServiceFixture(MongoServer server, ConnectionString uri) {
+        this.server = server;
+        mongoClient = MongoClients.create(uri);
+        mongoTemplate = new MongoTemplate(mongoClient, uri.getDatabase() == null ? "fixture" : uri.getDatabase());
+        if (server == null) {
+            dropCollections();
+        }
+        ensureIndexes();
+        MongoRepositoryFactory repositoryFactory = new MongoRepositoryFactory(mongoTemplate);
+        userRepository = repositoryFactory.getRepository(UserRepository.class);
+        roleCatalog = new RoleCatalog(repositoryFactory.getRepository(RoleRepository.class), meterRegistry, false);
+        memberCounts = new RoleMemberCounts(meterRegistry, 100, Duration.ofMinutes(5));
+        userCache = new CaffeineUserCache(meterRegistry, 100, Duration.ofMinutes(5));
+        passwordHashingExecutor = new PasswordHashingExecutor(passwordEncoder, meterRegistry, 1, 64);
+        userService = userService(50, 500, 500);
+        roleService = new RoleServiceImpl(repositoryFactory.getRepository(RoleRepository.class), roleCatalog, mongoTemplate,
+                userRepository, memberCounts, 50, 500);
+        importService = new UserImportServiceImpl(mongoTemplate, roleCatalog, memberCounts, passwordHashingExecutor,
+                Validation.buildDefaultValidatorFactory().getValidator(), 2, 100);
+    }
+
+    /**
+     * Starts an empty server holding the USER and ADMIN roles.
+     */
+    public static ServiceFixture start() {
+        MongoServer server = new MongoServer(new MemoryBackend());
+        InetSocketAddress address = server.bind();
+        return seed(new ServiceFixture(server, new ConnectionString("mongodb://" + address.getHostString() + ":" + address.getPort())));
+    }
+
+    /**
+     * Connects to a real server instead, dropping the users, roles and outbox events of the database of the URI.
+     */
+    public static ServiceFixture start(String uri) {
+        return seed(new ServiceFixture(null, new ConnectionString(uri)));
+    }
+
+    private static ServiceFixture seed(ServiceFixture fixture) {
+        fixture.mongoTemplate.insert(List.of(new Role("r-user", "USER", 0, null), new Role("r-admin", "ADMIN", 0, null)),
+                Role.class);
+        fixture.roleCatalog.refresh();
+        return fixture;
+    }
+
+    /**
+     * @return a user service with other page and batch limits than the default one
+     */
+    public UserServiceImpl userService(int defaultPageSize, int maxPageSize, int maxBatchSize) {
+        return userService(passwordEncoder, defaultPageSize, maxPageSize, maxBatchSize);
+    }
+
+    /**
+     * @return a user service hashing and checking passwords with another encoder than the default one
+     */
+    public UserServiceImpl userService(PasswordEncoder passwordEncoder) {
+        return userService(passwordEncoder, 50, 500, 500);
+    }
+
+    private UserServiceImpl userService(PasswordEncoder passwordEncoder, int defaultPageSize, int maxPageSize, int maxBatchSize) {
+        return new UserServiceImpl(userRepository, mongoTemplate,
+                new MongoRepositoryFactory(mongoTemplate).getRepository(OutboxEventRepository.class),
+                roleCatalog, memberCounts, passwordEncoder, userCache,
+                new VerifiedCredentialCache(meterRegistry, false, 100, Duration.ofMinutes(5)),
+                defaultPageSize, maxPageSize, maxBatchSize);
+    }
+
+    public OutboxRelay relay(int batchSize) {
+        return new OutboxRelay(mongoTemplate, meterRegistry, batchSize, Duration.ofSeconds(30));
+    }
+
+    public DeletedUserPurge purge(Duration gracePeriod, int batchSize) {
+        return new DeletedUserPurge(mongoTemplate, meterRegistry, gracePeriod, batchSize, Duration.ofSeconds(30));
+    }
+
+    public static CreateUserRequest createRequest(String username, String... roleNames) {
+        CreateUserRequest request = new CreateUserRequest();
+        request.setUsername(username);
+        request.setEmail(username + "@example.com");
+        request.setPassword(PASSWORD);
+        request.setRoleNames(roleNames.length == 0 ? List.of("USER") : List.of(roleNames));
+        return request;
+    }
+
+    private void ensureIndexes() {
+        IndexResolver indexResolver = new MongoPersistentEntityIndexResolver(mongoTemplate.getConverter().getMappingContext());
+        for (Class<?> documentClass : DOCUMENT_CLASSES) {
+            IndexOperations indexOperations = mongoTemplate.indexOps(documentClass);
+            indexResolver.resolveIndexFor(documentClass).forEach(indexOperations::ensureIndex);
+        }
+    }
+
+    private void dropCollections() {
+        for (Class<?> documentClass : DOCUMENT_CLASSES) {
+            mongoTemplate.dropCollection(documentClass);
+        }
+    }
+
+    @Override
+    public void close() {
+        passwordHashingExecutor.shutdown();
+        if (server == null) {
+            dropCollections();
+        }
+        mongoClient.close();
+        if (server != null) {
+            server.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,137 @@
+package com.devsinc.userservice.services.impl;
+
+import com.devsinc.userservice.dtos.request.CreateUserRequest;
+import com.devsinc.userservice.dtos.response.UserImportResponse;
+import com.devsinc.userservice.dtos.response.UserImportResult;
+import com.devsinc.userservice.security.PasswordHashingExecutor;
+import jakarta.validation.Validation;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+/**
+ * Imports in batches of two rows, so duplicates are met both within a batch and across batches.
+ */
+class UserImportTest {
+
+    private ServiceFixture fixture;
+
+    @BeforeEach
+    void start() {
+        fixture = ServiceFixture.start();
+    }
+
+    @AfterEach
+    void stop() {
+        fixture.close();
+    }
+
+    @Test
+    void invalidRowsAreRejectedWithoutAffectingTheOthers() {
+        CreateUserRequest invalidEmail = ServiceFixture.createRequest("bobby");
+        invalidEmail.setEmail("not-an-email");
+        CreateUserRequest missingPassword = ServiceFixture.createRequest("danny");
+        missingPassword.setPassword(null);
+
+        UserImportResponse response = fixture.importService.importUsers(Arrays.asList(
+                ServiceFixture.createRequest("alice"),
+                invalidEmail,
+                null,
+                ServiceFixture.createRequest("carol", "AUDITOR"),
+                missingPassword,
+                ServiceFixture.createRequest("erica")).iterator());
+
+        assertThat(response.getImported()).isEqualTo(2);
+        assertThat(response.getFailed()).isEqualTo(4);
+        assertThat(response.getResults()).extracting(UserImportResult::getIndex, UserImportResult::getStatus, UserImportResult::getErrors)
+                .containsExactly(
+                        tuple(0, UserImportResult.Status.IMPORTED, List.of()),
+                        tuple(1, UserImportResult.Status.FAILED, List.of("email: Invalid email format!")),
+                        tuple(2, UserImportResult.Status.FAILED, List.of("Row must not be null")),
+                        tuple(3, UserImportResult.Status.FAILED, List.of("No role with roleName: AUDITOR exists")),
+                        tuple(4, UserImportResult.Status.FAILED, List.of("password: Password must be provided!")),
+                        tuple(5, UserImportResult.Status.IMPORTED, List.of()));
+        assertThat(fixture.userService.loadUserByUsername("erica").getUsername()).isEqualTo("erica");
+    }
+
+    @Test
+    void usernamesAndEmailsTakenInTheDatabaseOrByEarlierRowsAreRejected() {
+        fixture.userService.createUser(ServiceFixture.createRequest("alice"));
+        CreateUserRequest aliceEmail = ServiceFixture.createRequest("alice2");
+        aliceEmail.setEmail("alice@example.com");
+        CreateUserRequest carolEmail = ServiceFixture.createRequest("carol2");
+        carolEmail.setEmail("carol@example.com");
+
+        UserImportResponse response = fixture.importService.importUsers(List.of(
+                ServiceFixture.createRequest("alice"),
+                aliceEmail,
+                ServiceFixture.createRequest("bobby"),
+                ServiceFixture.createRequest("bobby"),
+                ServiceFixture.createRequest("carol"),
+                ServiceFixture.createRequest("danny"),
+                carolEmail).iterator());
+
+        assertThat(response.getResults()).extracting(UserImportResult::getUsername, UserImportResult::getStatus, UserImportResult::getErrors)
+                .containsExactly(
+                        tuple("alice", UserImportResult.Status.FAILED, List.of(
+                                "User with username: alice already registered", "User with email: alice@example.com already registered")),
+                        tuple("alice2", UserImportResult.Status.FAILED, List.of("User with email: alice@example.com already registered")),
+                        tuple("bobby", UserImportResult.Status.IMPORTED, List.of()),
+                        tuple("bobby", UserImportResult.Status.FAILED, List.of(
+                                "User with username: bobby already registered", "User with email: bobby@example.com already registered")),
+                        tuple("carol", UserImportResult.Status.IMPORTED, List.of()),
+                        tuple("danny", UserImportResult.Status.IMPORTED, List.of()),
+                        tuple("carol2", UserImportResult.Status.FAILED, List.of("User with email: carol@example.com already registered")));
+        assertThat(fixture.roleService.countRoleUsers("r-user")).isEqualTo(4);
+    }
+
+    @Test
+    void rowsFailingTheBulkWriteDoNotHoldTheirNamesForLaterRows() {
+        // Registers a user with the email of the first row while the batch is hashed, after its emails were checked.
+        PasswordEncoder racingEncoder = new PasswordEncoder() {
+            @Override
+            public String encode(CharSequence rawPassword) {
+                if ("racing-password".contentEquals(rawPassword)) {
+                    CreateUserRequest concurrent = ServiceFixture.createRequest("zelda");
+                    concurrent.setEmail("alice@example.com");
+                    fixture.userService.createUser(concurrent);
+                }
+                return fixture.passwordEncoder.encode(rawPassword);
+            }
+
+            @Override
+            public boolean matches(CharSequence rawPassword, String encodedPassword) {
+                return fixture.passwordEncoder.matches(rawPassword, encodedPassword);
+            }
+        };
+        PasswordHashingExecutor passwordHashingExecutor = new PasswordHashingExecutor(racingEncoder, fixture.meterRegistry, 1, 64);
+        UserImportServiceImpl importService = new UserImportServiceImpl(fixture.mongoTemplate, fixture.roleCatalog,
+                fixture.memberCounts, passwordHashingExecutor, Validation.buildDefaultValidatorFactory().getValidator(), 2, 100);
+        CreateUserRequest racing = ServiceFixture.createRequest("alice");
+        racing.setPassword("racing-password");
+        CreateUserRequest retried = ServiceFixture.createRequest("alice");
+        retried.setEmail("alice.retried@example.com");
+
+        UserImportResponse response;
+        try {
+            response = importService.importUsers(List.of(racing, ServiceFixture.createRequest("bobby"), retried).iterator());
+        } finally {
+            passwordHashingExecutor.shutdown();
+        }
+
+        assertThat(response.getResults()).extracting(UserImportResult::getUsername, UserImportResult::getStatus, UserImportResult::getErrors)
+                .containsExactly(
+                        tuple("alice", UserImportResult.Status.FAILED, List.of("User with email: alice@example.com already registered")),
+                        tuple("bobby", UserImportResult.Status.IMPORTED, List.of()),
+                        tuple("alice", UserImportResult.Status.IMPORTED, List.of()));
+        assertThat(fixture.userService.findUserByUsername("alice").getEmail()).isEqualTo("alice.retried@example.com");
+        assertThat(fixture.roleService.countRoleUsers("r-user")).isEqualTo(3);
+    }
+}
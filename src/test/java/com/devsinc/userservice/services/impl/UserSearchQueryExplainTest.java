@@ -0,0 +1,132 @@
+package com.devsinc.userservice.services.impl;
+
+import com.devsinc.userservice.configurations.MongoIndexInitializer;
+import com.devsinc.userservice.dtos.request.UserSearchRequest;
+import com.devsinc.userservice.dtos.response.CursorPageResponse;
+import com.devsinc.userservice.dtos.response.UserResponse;
+import com.devsinc.userservice.models.RoleRef;
+import com.devsinc.userservice.models.User;
+import com.mongodb.ConnectionString;
+import com.mongodb.ExplainVerbosity;
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoClients;
+import org.bson.Document;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Explains every shape of user search, first and next page, and asserts that none is planned as a collection scan,
+ * then checks that prefixes ignore case under the collation, which the in-memory server does not apply.
+ * Query plans need a real MongoDB, which the in-memory server used by the other tests does not provide,
+ * so this only runs when mongo.uri is set: {@code mvn test -Dtest=UserSearchQueryExplainTest -Dmongo.uri=mongodb://localhost:27017/search_explain}.
+ * The users collection of that database is dropped.
+ */
+@EnabledIfSystemProperty(named = "mongo.uri", matches = ".+")
+class UserSearchQueryExplainTest {
+
+    private static final int USERS = 500;
+
+    private static final int PAGE_SIZE = 50;
+
+    private static MongoClient mongoClient;
+
+    private static MongoTemplate mongoTemplate;
+
+    @BeforeAll
+    static void seed() {
+        ConnectionString uri = new ConnectionString(System.getProperty("mongo.uri"));
+        mongoClient = MongoClients.create(uri);
+        mongoTemplate = new MongoTemplate(mongoClient, uri.getDatabase() == null ? "search_explain" : uri.getDatabase());
+        mongoTemplate.dropCollection(User.class);
+        RoleRef userRole = new RoleRef("r-user", "USER");
+        RoleRef adminRole = new RoleRef("r-admin", "ADMIN");
+        List<User> users = new ArrayList<>(USERS);
+        for (int i = 0; i < USERS; i++) {
+            String username = (i % 2 == 0 ? "User" : "user") + String.format("%04d", i);
+            users.add(new User("id-" + i, username, "First" + i % 7, "Last" + i % 11, username + "@example.com",
+                    "{noop}password", i % 10 == 0 ? List.of(userRole, adminRole) : List.of(userRole), 0, true, null, null));
+        }
+        mongoTemplate.insert(users, User.class);
+        new MongoIndexInitializer(mongoTemplate).ensureIndexes();
+    }
+
+    @AfterAll
+    static void drop() {
+        mongoTemplate.dropCollection(User.class);
+        mongoClient.close();
+    }
+
+    static Stream<Arguments> searches() {
+        return Stream.of(
+                Arguments.of("everyone", search(null, null, null, null, null)),
+                Arguments.of("everyone by email descending", search(null, null, null, null, "email,desc")),
+                Arguments.of("username prefix", search("USER00", null, null, null, null)),
+                Arguments.of("username prefix by email", search("user0", null, null, null, "email")),
+                Arguments.of("email prefix", search(null, "user01", null, null, "email")),
+                Arguments.of("name", search(null, null, "last1", null, null)),
+                Arguments.of("role", search(null, null, null, "admin", null)),
+                Arguments.of("role by username descending", search(null, null, null, "USER", "username,desc")),
+                Arguments.of("role and username prefix", search("user0", null, null, "USER", null))
+        );
+    }
+
+    @ParameterizedTest(name = "{0}")
+    @MethodSource("searches")
+    void searchNeverScansTheCollection(String description, UserSearchRequest searchRequest) {
+        UserSearchQuery searchQuery = new UserSearchQuery(searchRequest);
+        Query firstPage = searchQuery.query(PAGE_SIZE);
+        assertThat(winningPlan(firstPage)).doesNotContain("COLLSCAN");
+
+        CursorPageResponse<UserResponse> page = searchQuery.page(
+                mongoTemplate.query(User.class).as(UserResponse.class).matching(firstPage).all(), PAGE_SIZE);
+        if (page.getNextCursor() != null) {
+            searchRequest.setCursor(page.getNextCursor());
+            assertThat(winningPlan(new UserSearchQuery(searchRequest).query(PAGE_SIZE))).doesNotContain("COLLSCAN");
+        }
+    }
+
+    @Test
+    void prefixesIgnoreCase() {
+        UserSearchQuery searchQuery = new UserSearchQuery(search("USER000", null, null, null, null));
+        List<String> usernames = mongoTemplate.query(User.class).as(UserResponse.class)
+                .matching(searchQuery.query(PAGE_SIZE)).all().stream()
+                .map(UserResponse::getUsername)
+                .toList();
+
+        assertThat(usernames).containsExactly("User0000", "user0001", "User0002", "user0003", "User0004",
+                "user0005", "User0006", "user0007", "User0008", "user0009");
+    }
+
+    private static String winningPlan(Query query) {
+        Document explain = mongoTemplate.getCollection(mongoTemplate.getCollectionName(User.class))
+                .find(query.getQueryObject())
+                .sort(query.getSortObject())
+                .limit(query.getLimit())
+                .collation(UserSearchQuery.COLLATION.toMongoCollation())
+                .explain(ExplainVerbosity.QUERY_PLANNER);
+        return explain.get("queryPlanner", Document.class).get("winningPlan", Document.class).toJson();
+    }
+
+    private static UserSearchRequest search(String usernamePrefix, String emailPrefix, String name, String role, String sort) {
+        UserSearchRequest searchRequest = new UserSearchRequest();
+        searchRequest.setUsernamePrefix(usernamePrefix);
+        searchRequest.setEmailPrefix(emailPrefix);
+        searchRequest.setName(name);
+        searchRequest.setRole(role);
+        searchRequest.setSort(sort);
+        return searchRequest;
+    }
+}
@@ -0,0 +1,184 @@
+package com.devsinc.userservice.services.impl;
+
+import com.devsinc.userservice.dtos.request.CreateUserRequest;
+import com.devsinc.userservice.dtos.request.UserSearchRequest;
+import com.devsinc.userservice.dtos.response.CursorPageResponse;
+import com.devsinc.userservice.dtos.response.UserResponse;
+import com.devsinc.userservice.models.User;
+import org.bson.Document;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Searches against the in-memory server, which compares strings without the collation of the search,
+ * so the users here differ in more than case. Matching that ignores case is checked on the query,
+ * and against a real server by UserSearchQueryExplainTest.
+ */
+class UserSearchTest {
+
+    private static final List<String> USERNAMES = List.of("amber", "amelia", "andrew", "bella", "brian",
+            "carla", "cathy", "danae", "derek", "ellen");
+
+    private static ServiceFixture fixture;
+
+    @BeforeAll
+    static void seed() {
+        fixture = ServiceFixture.start();
+        for (int i = 0; i < USERNAMES.size(); i++) {
+            String username = USERNAMES.get(i);
+            // Emails sort in the reverse order of usernames.
+            CreateUserRequest request = ServiceFixture.createRequest(username, i % 3 == 0 ? "ADMIN" : "USER");
+            request.setEmail((char) ('z' - i) + "." + username + "@example.com");
+            UserResponse user = fixture.userService.createUser(request);
+            fixture.mongoTemplate.updateFirst(Query.query(Criteria.where("_id").is(user.getId())),
+                    Update.update("firstName", "First" + username).set("lastName", "Last" + username), User.class);
+        }
+    }
+
+    @AfterAll
+    static void stop() {
+        fixture.close();
+    }
+
+    @Test
+    void prefixesMatchTheStartOfTheirField() {
+        assertThat(usernames(search(request -> request.setUsernamePrefix("am")))).containsExactly("amber", "amelia");
+        assertThat(usernames(search(request -> request.setUsernamePrefix("amber")))).containsExactly("amber");
+        assertThat(usernames(search(request -> request.setUsernamePrefix("mber")))).isEmpty();
+        assertThat(usernames(search(request -> request.setEmailPrefix("y.")))).containsExactly("amelia");
+        assertThat(usernames(search(request -> request.setName("Firstb")))).containsExactly("bella", "brian");
+        assertThat(usernames(search(request -> request.setName("Lastc")))).containsExactly("carla", "cathy");
+        assertThat(usernames(search(request -> {
+            request.setRole("ADMIN");
+            request.setUsernamePrefix("a");
+        }))).containsExactly("amber");
+    }
+
+    @Test
+    void prefixesIgnoreCaseUnderTheCollationOfTheSearchIndexes() {
+        UserSearchRequest searchRequest = new UserSearchRequest();
+        searchRequest.setUsernamePrefix("AM");
+        Query query = new UserSearchQuery(searchRequest).query(10);
+
+        assertThat(query.getCollation()).hasValue(UserSearchQuery.COLLATION);
+        assertThat(UserSearchQuery.COLLATION.toDocument()).isEqualTo(Document.parse(User.SEARCH_COLLATION));
+        assertThat(query.getQueryObject().getList("$and", Document.class))
+                .contains(new Document("username", new Document("$gte", "AM").append("$lt", "AM\uFFFF")));
+    }
+
+    @Test
+    void sortsByUsernameOrEmailInBothDirections() {
+        List<String> ascending = USERNAMES.stream().sorted().toList();
+        List<String> descending = USERNAMES.stream().sorted(Comparator.reverseOrder()).toList();
+
+        assertThat(usernames(search(request -> { }))).containsExactlyElementsOf(ascending);
+        assertThat(usernames(search(request -> request.setSort("username,asc")))).containsExactlyElementsOf(ascending);
+        assertThat(usernames(search(request -> request.setSort("username,desc")))).containsExactlyElementsOf(descending);
+        assertThat(usernames(search(request -> request.setSort("email")))).containsExactlyElementsOf(descending);
+        assertThat(usernames(search(request -> request.setSort("email,desc")))).containsExactlyElementsOf(ascending);
+    }
+
+    @ParameterizedTest(name = "{0}")
+    @ValueSource(strings = { "username", "username,desc", "email", "email,desc" })
+    void cursorsContinueWhereThePreviousPageEnded(String sort) {
+        List<String> all = usernames(search(request -> request.setSort(sort)));
+        for (int pageSize = 1; pageSize <= USERNAMES.size() + 1; pageSize++) {
+            List<String> paged = new ArrayList<>();
+            int pages = 0;
+            String cursor = null;
+            do {
+                String pageCursor = cursor;
+                int size = pageSize;
+                CursorPageResponse<UserResponse> page = search(request -> {
+                    request.setSort(sort);
+                    request.setCursor(pageCursor);
+                    request.setSize(size);
+                });
+                assertThat(page.getItems()).hasSizeLessThanOrEqualTo(pageSize);
+                paged.addAll(usernames(page));
+                cursor = page.getNextCursor();
+                pages++;
+            } while (cursor != null);
+
+            assertThat(paged).as("pages of %d", pageSize).containsExactlyElementsOf(all);
+            assertThat(pages).as("pages of %d", pageSize).isEqualTo(Math.max(1, (USERNAMES.size() + pageSize - 1) / pageSize));
+        }
+    }
+
+    @Test
+    void cursorsContinueAfterTheLastUserWithinAFilter() {
+        CursorPageResponse<UserResponse> first = search(request -> {
+            request.setUsernamePrefix("a");
+            request.setSize(2);
+        });
+        CursorPageResponse<UserResponse> second = search(request -> {
+            request.setUsernamePrefix("a");
+            request.setSize(2);
+            request.setCursor(first.getNextCursor());
+        });
+
+        assertThat(usernames(first)).containsExactly("amber", "amelia");
+        assertThat(usernames(second)).containsExactly("andrew");
+        assertThat(second.getNextCursor()).isNull();
+    }
+
+    @ParameterizedTest(name = "{0}")
+    @ValueSource(strings = { "not base64!", "dXNlcm5hbWU", "ZW1haWwKYW1iZXIKaWQ" })
+    void invalidCursorsAreRejected(String cursor) {
+        assertThatThrownBy(() -> search(request -> request.setCursor(cursor)))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Invalid cursor for this sort order");
+    }
+
+    @Test
+    void cursorsOfAnotherSortOrderAreRejected() {
+        String emailCursor = search(request -> {
+            request.setSort("email");
+            request.setSize(2);
+        }).getNextCursor();
+        String usernameCursor = Base64.getUrlEncoder().withoutPadding()
+                .encodeToString("username\namber\nid".getBytes(StandardCharsets.UTF_8));
+
+        assertThatThrownBy(() -> search(request -> request.setCursor(emailCursor)))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Invalid cursor for this sort order");
+        assertThat(search(request -> request.setCursor(usernameCursor)).getItems()).isNotEmpty();
+    }
+
+    @Test
+    void unsupportedSortOrdersAreRejected() {
+        assertThatThrownBy(() -> search(request -> request.setSort("firstName")))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Users can only be sorted by username or email");
+        assertThatThrownBy(() -> search(request -> request.setSort("username,sideways")))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Sort direction must be asc or desc");
+    }
+
+    private static CursorPageResponse<UserResponse> search(Consumer<UserSearchRequest> filters) {
+        UserSearchRequest searchRequest = new UserSearchRequest();
+        searchRequest.setSize(USERNAMES.size());
+        filters.accept(searchRequest);
+        return fixture.userService.searchUsers(searchRequest);
+    }
+
+    private static List<String> usernames(CursorPageResponse<UserResponse> page) {
+        return page.getItems().stream().map(UserResponse::getUsername).toList();
+    }
+}
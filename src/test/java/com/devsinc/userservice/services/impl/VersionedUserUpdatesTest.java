@@ -0,0 +1,63 @@
+package com.devsinc.userservice.services.impl;
+
+import com.devsinc.userservice.dtos.request.UpdateUserRequest;
+import com.devsinc.userservice.models.RoleRef;
+import com.devsinc.userservice.models.User;
+import org.bson.Document;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.OptimisticLockingFailureException;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class VersionedUserUpdatesTest {
+
+    private final User user = new User("u-1", "alice", "First", "Last", "alice@example.com", "{noop}password",
+            List.of(new RoleRef("r-user", "USER")), 3, true, null, null);
+
+    @Test
+    void updateSetsOnlyTheChangedFieldsAndIncrementsTheVersion() {
+        assertThat(VersionedUserUpdates.changes(user, request("alice", "new@example.com", null)).getUpdateObject())
+                .isEqualTo(new Document("$set", new Document("email", "new@example.com"))
+                        .append("$inc", new Document("version", 1)));
+        assertThat(VersionedUserUpdates.changes(user, request("alice2", "alice@example.com", 3L)).getUpdateObject())
+                .isEqualTo(new Document("$set", new Document("username", "alice2"))
+                        .append("$inc", new Document("version", 1)));
+    }
+
+    @Test
+    void unchangedUserNeedsNoUpdate() {
+        assertThat(VersionedUserUpdates.changes(user, request("alice", "alice@example.com", null))).isNull();
+    }
+
+    @Test
+    void requestForAnotherVersionConflicts() {
+        assertThatThrownBy(() -> VersionedUserUpdates.changes(user, request("alice", "new@example.com", 2L)))
+                .isInstanceOf(OptimisticLockingFailureException.class)
+                .hasMessage("User with id: u-1 was modified concurrently, reload it and retry");
+    }
+
+    @Test
+    void passwordUpdateSetsOnlyThePassword() {
+        assertThat(VersionedUserUpdates.password("{noop}changed").getUpdateObject())
+                .isEqualTo(new Document("$set", new Document("password", "{noop}changed"))
+                        .append("$inc", new Document("version", 1)));
+    }
+
+    @Test
+    void updatesOnlyApplyAtTheVersionRead() {
+        assertThat(VersionedUserUpdates.atVersion(user).getQueryObject())
+                .isEqualTo(new Document("_id", "u-1").append("$and", List.of(new Document("version", 3L))));
+    }
+
+    private static UpdateUserRequest request(String username, String email, Long version) {
+        UpdateUserRequest request = new UpdateUserRequest();
+        request.setId("u-1");
+        request.setUsername(username);
+        request.setEmail(email);
+        request.setVersion(version);
+        return request;
+    }
+}